@@ -0,0 +1,217 @@
+package com.tata.self_healing.ai;
+
+import com.tata.self_healing.monitoring.MetricsCollector;
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated executors for AI analysis (LLM I/O, prompt building and parsing), for healing
+ * actions and for SSE sends, so none of them runs on the JVM-wide common pool. Each is bounded and rejects work
+ * beyond its capacity; active/queued gauges and a rejection counter are published per executor.
+ */
+@Component
+public class AnalysisExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisExecutors.class);
+
+    @Value("${self-healing.executor.llm.virtual-threads:false}")
+    private boolean llmVirtualThreads;
+
+    @Value("${self-healing.executor.llm.max-threads:8}")
+    private int llmMaxThreads;
+
+    @Value("${self-healing.executor.llm.queue-capacity:100}")
+    private int llmQueueCapacity;
+
+    @Value("${self-healing.executor.healing.virtual-threads:false}")
+    private boolean healingVirtualThreads;
+
+    @Value("${self-healing.executor.healing.max-threads:4}")
+    private int healingMaxThreads;
+
+    @Value("${self-healing.executor.healing.queue-capacity:50}")
+    private int healingQueueCapacity;
+
+    @Value("${self-healing.executor.sse.virtual-threads:false}")
+    private boolean sseVirtualThreads;
+
+    @Value("${self-healing.executor.sse.max-threads:16}")
+    private int sseMaxThreads;
+
+    @Value("${self-healing.executor.sse.queue-capacity:10000}")
+    private int sseQueueCapacity;
+
+    @Autowired
+    private MetricsCollector metricsCollector;
+
+    private Executor llmExecutor;
+    private Executor healingExecutor;
+    private Executor sseExecutor;
+    private final List<ExecutorService> managed = new ArrayList<>();
+
+    @PostConstruct
+    void initialize() {
+        llmExecutor = create("llm", llmVirtualThreads, llmMaxThreads, llmQueueCapacity);
+        healingExecutor = create("healing", healingVirtualThreads, healingMaxThreads, healingQueueCapacity);
+        sseExecutor = create("sse", sseVirtualThreads, sseMaxThreads, sseQueueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (ExecutorService executor : managed) {
+            executor.shutdown();
+        }
+        for (ExecutorService executor : managed) {
+            try {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public Executor llm() {
+        return llmExecutor;
+    }
+
+    public Executor healing() {
+        return healingExecutor;
+    }
+
+    /**
+     * Blocking SseEmitter sends, kept off the threads that produce the events
+     */
+    public Executor sse() {
+        return sseExecutor;
+    }
+
+    /**
+     * Like CompletableFuture.supplyAsync, but a rejected task yields a failed future instead of throwing
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Like stage.thenApplyAsync, but the function runs via supplyAsync above, so a rejected task
+     * fails the returned stage whichever thread completes the source stage
+     */
+    public static <T, U> CompletableFuture<U> thenApplyAsync(CompletableFuture<T> stage,
+                                                             Function<? super T, ? extends U> function,
+                                                             Executor executor) {
+        return stage.thenCompose(value -> supplyAsync(() -> function.apply(value), executor));
+    }
+
+    private Executor create(String name, boolean virtualThreads, int maxThreads, int queueCapacity) {
+        String prefix = "self_healing.executor." + name;
+        Counter rejected = metricsCollector.counter(prefix + ".rejected",
+                "Tasks rejected because the " + name + " executor was saturated");
+
+        if (virtualThreads) {
+            // One virtual thread per task; capacity bounds the tasks in flight
+            ExecutorService threadPerTask = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(name + "-", 0).factory());
+            managed.add(threadPerTask);
+            BoundedExecutor bounded = new BoundedExecutor(name, threadPerTask, maxThreads + queueCapacity, rejected);
+            metricsCollector.registerGauge(prefix + ".active", "Tasks running on the " + name + " executor",
+                    bounded, BoundedExecutor::inFlight);
+            logger.info("Created {} executor on virtual threads (max {} tasks in flight)", name, maxThreads + queueCapacity);
+            return bounded;
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                Math.max(1, maxThreads), Math.max(1, maxThreads), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("The " + name + " executor is saturated");
+                });
+        // Idle threads time out, so the pool grows to max-threads before tasks are queued and shrinks when quiet
+        pool.allowCoreThreadTimeOut(true);
+        managed.add(pool);
+
+        metricsCollector.registerGauge(prefix + ".active", "Tasks running on the " + name + " executor",
+                pool, ThreadPoolExecutor::getActiveCount);
+        metricsCollector.registerGauge(prefix + ".queued", "Tasks waiting for the " + name + " executor",
+                pool, executor -> executor.getQueue().size());
+        logger.info("Created {} executor with {} threads and a queue of {}", name, maxThreads, queueCapacity);
+        return pool;
+    }
+
+    /**
+     * Admission limit in front of a thread-per-task executor
+     */
+    private static class BoundedExecutor implements Executor {
+        private final String name;
+        private final Executor delegate;
+        private final Semaphore permits;
+        private final int capacity;
+        private final Counter rejected;
+
+        BoundedExecutor(String name, Executor delegate, int capacity, Counter rejected) {
+            this.name = name;
+            this.delegate = delegate;
+            this.capacity = Math.max(1, capacity);
+            this.permits = new Semaphore(this.capacity);
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (!permits.tryAcquire()) {
+                rejected.increment();
+                throw new RejectedExecutionException("The " + name + " executor is saturated");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        double inFlight() {
+            return capacity - permits.availablePermits();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.tata.self_healing.ai;
+
+import com.tata.self_healing.monitoring.ErrorPatternDetector;
+import io.micrometer.core.instrument.Counter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded LRU cache of analyses keyed by insight-set fingerprint, with a time-to-live per
+ * entry. In-flight analyses are cached too, so concurrent requests for the same incident share
+ * one generation. The whole cache is dropped when the set of pattern types/severities changes.
+ * Each caller gets its own future: cancelling it abandons the generation only if no other
+ * caller has joined it.
+ * Only a private copy of the model's output is cached; every caller served from it gets its own
+ * result, with a new analysis id and the caller's insights, so no caller sees another's edits.
+ */
+public class AnalysisResultCache {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter invalidations;
+    private final LinkedHashMap<String, Entry> entries;
+    private String patternSignature;
+
+    public AnalysisResultCache(long ttlMillis, int maxEntries, Counter hits, Counter misses,
+                               Counter evictions, Counter invalidations) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        // Access order, so the eldest entry is the least recently used
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > AnalysisResultCache.this.maxEntries) {
+                    AnalysisResultCache.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Cached (possibly still running) analysis for the key, copied for the given insights, or the
+     * one started by compute on a miss. compute is called outside the lock. The cached future is
+     * dropped again if it fails or yields a result that must not be reused.
+     */
+    public Lookup getOrCompute(String key, String signature, List<ErrorPatternDetector.ErrorInsight> insights,
+                               Supplier<CompletableFuture<GenAIAnalysisService.AIAnalysisResult>> compute) {
+        long now = System.currentTimeMillis();
+        Entry created = new Entry(new CompletableFuture<>(), now);
+        synchronized (this) {
+            if (!Objects.equals(signature, patternSignature)) {
+                if (patternSignature != null && !entries.isEmpty()) {
+                    invalidations.increment();
+                }
+                entries.clear();
+                patternSignature = signature;
+            }
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.createdMillis < ttlMillis) {
+                hits.increment();
+                entry.sharers++;
+                return new Lookup(entry.result.thenApply(cached -> forCaller(cached, insights)), true);
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+            misses.increment();
+            entries.put(key, created);
+        }
+
+        CompletableFuture<GenAIAnalysisService.AIAnalysisResult> computed;
+        try {
+            computed = compute.get();
+        } catch (RuntimeException e) {
+            computed = CompletableFuture.failedFuture(e);
+        }
+        // The caller that started the generation gets the result itself, the cache a copy of it
+        CompletableFuture<GenAIAnalysisService.AIAnalysisResult> cached = created.result;
+        CompletableFuture<GenAIAnalysisService.AIAnalysisResult> own = new CompletableFuture<>();
+        computed.whenComplete((result, throwable) -> {
+            if (throwable != null || !isReusable(result)) {
+                remove(key, created);
+            }
+            if (throwable != null) {
+                cached.completeExceptionally(throwable);
+                own.completeExceptionally(throwable);
+            } else {
+                cached.complete(result == null ? null : result.copyFor(result.getAnalysisId(), null));
+                own.complete(result);
+            }
+        });
+
+        CompletableFuture<GenAIAnalysisService.AIAnalysisResult> generation = computed;
+        own.whenComplete((result, throwable) -> {
+            if (own.isCancelled() && abandon(key, created)) {
+                generation.cancel(true);
+            }
+        });
+        return new Lookup(own, false);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void remove(String key, Entry entry) {
+        entries.remove(key, entry);
+    }
+
+    /**
+     * Drop an in-flight entry whose caller gave up; false if other callers have joined it
+     */
+    private synchronized boolean abandon(String key, Entry entry) {
+        if (entry.sharers > 0) {
+            return false;
+        }
+        entries.remove(key, entry);
+        return true;
+    }
+
+    /**
+     * The caller's own copy of a cached analysis; error and disabled results keep their marker id
+     */
+    private static GenAIAnalysisService.AIAnalysisResult forCaller(GenAIAnalysisService.AIAnalysisResult cached,
+                                                                   List<ErrorPatternDetector.ErrorInsight> insights) {
+        if (cached == null) {
+            return null;
+        }
+        String analysisId = isMarker(cached) ? cached.getAnalysisId() : UUID.randomUUID().toString();
+        return cached.copyFor(analysisId, insights);
+    }
+
+    // Error, disabled and fallback results are not worth keeping for the TTL
+    private static boolean isReusable(GenAIAnalysisService.AIAnalysisResult result) {
+        return result != null && !result.isFallback() && !isMarker(result);
+    }
+
+    private static boolean isMarker(GenAIAnalysisService.AIAnalysisResult result) {
+        return "error".equals(result.getAnalysisId()) || "disabled".equals(result.getAnalysisId());
+    }
+
+    private static class Entry {
+        private final CompletableFuture<GenAIAnalysisService.AIAnalysisResult> result;
+        private final long createdMillis;
+        private int sharers; // Guarded by the cache
+
+        Entry(CompletableFuture<GenAIAnalysisService.AIAnalysisResult> result, long createdMillis) {
+            this.result = result;
+            this.createdMillis = createdMillis;
+        }
+    }
+
+    /**
+     * Outcome of a lookup: the analysis future and whether it came from the cache
+     */
+    public static class Lookup {
+        private final CompletableFuture<GenAIAnalysisService.AIAnalysisResult> result;
+        private final boolean hit;
+
+        Lookup(CompletableFuture<GenAIAnalysisService.AIAnalysisResult> result, boolean hit) {
+            this.result = result;
+            this.hit = hit;
+        }
+
+        // Getters
+        public CompletableFuture<GenAIAnalysisService.AIAnalysisResult> getResult() { return result; }
+        public boolean isHit() { return hit; }
+    }
+}
@@ -29,6 +29,9 @@ public class AutomatedHealingEngine {
     @Autowired
     private MetricsCollector metricsCollector;
     
+    @Autowired
+    private AnalysisExecutors analysisExecutors;
+    
     @Value("${self-healing.automation.enabled:true}")
     private boolean automationEnabled;
     
@@ -44,7 +47,8 @@ public class AutomatedHealingEngine {
     public CompletableFuture<List<HealingExecutionResult>> executeHealingActions(
             List<GenAIAnalysisService.HealingRecommendation> recommendations) {
         
-        return CompletableFuture.supplyAsync(() -> {
+        // Healing runs on its own bounded executor, isolated from analysis and the common pool
+        return AnalysisExecutors.supplyAsync(() -> {
             List<HealingExecutionResult> results = new ArrayList<>();
             
             logger.info("Starting automated healing execution for {} recommendations", 
@@ -66,7 +70,7 @@ public class AutomatedHealingEngine {
             
             logger.info("Completed automated healing execution with {} results", results.size());
             return results;
-        });
+        }, analysisExecutors.healing());
     }
     
     /**
@@ -2,18 +2,26 @@ package com.tata.self_healing.ai;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tata.self_healing.monitoring.CorrelationMiner;
 import com.tata.self_healing.monitoring.ErrorPatternDetector;
+import com.tata.self_healing.monitoring.MetricsCollector;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 
 /**
  * GenAI-powered analysis service for intelligent error analysis and healing recommendations
@@ -23,6 +31,9 @@ public class GenAIAnalysisService {
     
     private static final Logger logger = LoggerFactory.getLogger(GenAIAnalysisService.class);
     
+    // Strongest precomputed signal correlations included in the prompt and the result
+    private static final int MAX_CORRELATIONS = 10;
+    
     @Autowired
     private ServiceContextProvider serviceContextProvider;
     
@@ -30,7 +41,16 @@ public class GenAIAnalysisService {
     private ObjectMapper objectMapper;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private OllamaClient ollamaClient;
+    
+    @Autowired
+    private AnalysisExecutors analysisExecutors;
+    
+    @Autowired
+    private CorrelationMiner correlationMiner;
+    
+    @Autowired
+    private MetricsCollector metricsCollector;
     
     @Value("${self-healing.ai.enabled:true}")
     private boolean aiEnabled;
@@ -44,8 +64,36 @@ public class GenAIAnalysisService {
     @Value("${jamvant.model.version:jamvant:v5.0}")
     private String jamvantModelVersion;
     
-    @Value("${jamvant.request.timeout:30000}")
-    private int requestTimeoutMs;
+    // Consume the model's output token by token instead of waiting for the whole response
+    @Value("${jamvant.stream.enabled:false}")
+    private boolean streamEnabled;
+    
+    @Value("${self-healing.ai.cache.enabled:true}")
+    private boolean cacheEnabled;
+    
+    @Value("${self-healing.ai.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+    
+    @Value("${self-healing.ai.cache.max-entries:64}")
+    private int cacheMaxEntries;
+    
+    // System context entries that are part of the cache key
+    @Value("${self-healing.ai.cache.context-keys:systemType,storageType,environment}")
+    private String[] cacheContextKeys;
+    
+    private AnalysisResultCache analysisCache;
+    
+    @PostConstruct
+    void initialize() {
+        String prefix = "self_healing.ai.cache";
+        analysisCache = new AnalysisResultCache(cacheTtlSeconds * 1000L, cacheMaxEntries,
+                metricsCollector.counter(prefix + ".hits", "Analyses answered from the cache"),
+                metricsCollector.counter(prefix + ".misses", "Analyses that required a model generation"),
+                metricsCollector.counter(prefix + ".evictions", "Cached analyses evicted by size or TTL"),
+                metricsCollector.counter(prefix + ".invalidations", "Cache clears caused by a changed pattern set"));
+        metricsCollector.registerGauge(prefix + ".size", "Analyses currently cached",
+                analysisCache, AnalysisResultCache::size);
+    }
     
     /**
      * Analyze error patterns using GenAI and provide intelligent recommendations
@@ -53,42 +101,153 @@ public class GenAIAnalysisService {
     public CompletableFuture<AIAnalysisResult> analyzeErrorPatterns(
             List<ErrorPatternDetector.ErrorInsight> insights,
             Map<String, Object> systemContext) {
+        return analyzeErrorPatterns(insights, systemContext, AnalysisListener.NONE);
+    }
+    
+    /**
+     * Analyze error patterns, reporting progress to the listener as it happens. Each healing
+     * recommendation is handed over as soon as the model has finished writing it, before the
+     * analysis as a whole completes; the final result carries the same recommendation instances.
+     * Cancelling the returned future aborts the model call, unless other callers share the analysis.
+     */
+    public CompletableFuture<AIAnalysisResult> analyzeErrorPatterns(
+            List<ErrorPatternDetector.ErrorInsight> insights,
+            Map<String, Object> systemContext,
+            AnalysisListener listener) {
         
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                logger.info("Starting GenAI analysis for {} error insights", insights.size());
-                
-                if (!aiEnabled) {
-                    return createDisabledResult();
-                }
-                
-                // Prepare context for LLM
-                String analysisPrompt = buildAnalysisPrompt(insights, systemContext);
-                
-                // Call LLM (mock or real)
-                String llmResponse = mockMode ? 
-                    generateMockLLMResponse(insights, systemContext) : 
-                    callRealLLM(analysisPrompt);
-                
-                // Parse and structure the response
-                AIAnalysisResult result = parseAIResponse(llmResponse, insights);
-                
-                logger.info("GenAI analysis completed with {} recommendations", 
-                    result.getRecommendations().size());
-                
-                return result;
-                
-            } catch (Exception e) {
-                logger.error("Error during GenAI analysis", e);
-                return createErrorResult(e.getMessage());
+        logger.info("Starting GenAI analysis for {} error insights", insights.size());
+        
+        if (!aiEnabled) {
+            return CompletableFuture.completedFuture(createDisabledResult());
+        }
+        if (!cacheEnabled) {
+            return runAnalysis(insights, systemContext, listener);
+        }
+        
+        AnalysisResultCache.Lookup lookup = analysisCache.getOrCompute(
+                analysisCacheKey(insights, systemContext), patternSignature(insights), insights,
+                () -> runAnalysis(insights, systemContext, listener));
+        if (!lookup.isHit()) {
+            return lookup.getResult();
+        }
+        
+        logger.info("Reusing cached GenAI analysis for {} error insights", insights.size());
+        // A listener that did not see the original run still gets its (own copies of the) recommendations
+        return lookup.getResult().thenApply(result -> {
+            result.getRecommendations().forEach(listener::onRecommendation);
+            return result;
+        });
+    }
+    
+    private CompletableFuture<AIAnalysisResult> runAnalysis(
+            List<ErrorPatternDetector.ErrorInsight> insights,
+            Map<String, Object> systemContext,
+            AnalysisListener listener) {
+        
+        // Correlations computed locally from the error streams go into the prompt and the result
+        List<CorrelationMiner.Correlation> correlations = correlationMiner.getStrongestCorrelations(MAX_CORRELATIONS);
+        
+        // Cancellation goes in, whether the mock stood in for the model comes out
+        ModelCall modelCall = new ModelCall();
+        
+        // Recommendations are picked out of the response as each one closes
+        List<HealingRecommendation> streamed = new CopyOnWriteArrayList<>();
+        StreamingRecommendationParser recommendationParser = new StreamingRecommendationParser(json -> {
+            HealingRecommendation recommendation = parseRecommendation(json);
+            if (recommendation != null) {
+                streamed.add(recommendation);
+                listener.onRecommendation(recommendation);
+            }
+        });
+        
+        // Prepare context for LLM on the dedicated analysis executor, never the common pool
+        CompletableFuture<String> generation = AnalysisExecutors.supplyAsync(
+                        () -> buildAnalysisPrompt(insights, correlations, systemContext), analysisExecutors.llm())
+                // Call LLM (mock or real); the real call holds no thread while the model generates
+                .thenCompose(analysisPrompt -> {
+                    listener.onPromptBuilt(analysisPrompt);
+                    if (mockMode) {
+                        String mockResponse = generateMockLLMResponse(insights, systemContext);
+                        recommendationParser.feed(mockResponse);
+                        return CompletableFuture.completedFuture(mockResponse);
+                    }
+                    if (streamEnabled) {
+                        return streamRealLLM(analysisPrompt, recommendationParser, listener, modelCall);
+                    }
+                    return callRealLLM(analysisPrompt, modelCall).thenApply(llmResponse -> {
+                        recommendationParser.feed(llmResponse);
+                        return llmResponse;
+                    });
+                });
+        // Parse and structure the response (off the HTTP client's threads); a saturated executor fails the analysis
+        CompletableFuture<AIAnalysisResult> analysis = AnalysisExecutors.thenApplyAsync(generation, llmResponse -> {
+                    AIAnalysisResult result = parseAIResponse(llmResponse, insights, streamed);
+                    result.setSignalCorrelations(correlations);
+                    result.setFallback(modelCall.fallback);
+                    
+                    logger.info("GenAI analysis completed with {} recommendations", 
+                        result.getRecommendations().size());
+                    
+                    return result;
+                }, analysisExecutors.llm())
+                .exceptionally(throwable -> {
+                    Throwable cause = unwrap(throwable);
+                    logger.error("Error during GenAI analysis", cause);
+                    return createErrorResult(cause.getMessage());
+                });
+        analysis.whenComplete((result, throwable) -> {
+            if (analysis.isCancelled()) {
+                modelCall.cancelled.complete(null);
             }
         });
+        return analysis;
+    }
+    
+    /**
+     * Cache key: SHA-256 over the insight types, pattern ids (which pattern or route each insight is
+     * about), severities and power-of-two occurrence buckets (order-insensitive) plus the
+     * configured slice of the system context. Volatile context such
+     * as timestamps and memory figures is deliberately left out.
+     */
+    private String analysisCacheKey(List<ErrorPatternDetector.ErrorInsight> insights,
+                                    Map<String, Object> systemContext) {
+        List<String> lines = new ArrayList<>();
+        for (ErrorPatternDetector.ErrorInsight insight : insights) {
+            int countBucket = 32 - Integer.numberOfLeadingZeros(Math.max(0, insight.getOccurrenceCount()));
+            lines.add(insight.getType() + "|" + insight.getPatternId() + "|" + insight.getSeverity() + "|" + countBucket);
+        }
+        Collections.sort(lines);
+        
+        StringBuilder canonical = new StringBuilder();
+        lines.forEach(line -> canonical.append(line).append('\n'));
+        Arrays.stream(cacheContextKeys).sorted().forEach(key ->
+                canonical.append(key).append('=').append(systemContext.get(key)).append('\n'));
+        
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Which kinds of pattern are present; a change here invalidates every cached analysis
+     */
+    private static String patternSignature(List<ErrorPatternDetector.ErrorInsight> insights) {
+        return insights.stream()
+                .map(insight -> insight.getType() + "|" + insight.getSeverity())
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
     }
     
     /**
      * Build comprehensive analysis prompt for LLM
      */
     private String buildAnalysisPrompt(List<ErrorPatternDetector.ErrorInsight> insights, 
+                                     List<CorrelationMiner.Correlation> correlations,
                                      Map<String, Object> systemContext) {
         
         StringBuilder prompt = new StringBuilder();
@@ -112,6 +271,17 @@ public class GenAIAnalysisService {
             prompt.append(String.format("   Current Recommendation: %s\n\n", insight.getRecommendation()));
         }
         
+        // Add precomputed correlations
+        if (!correlations.isEmpty()) {
+            prompt.append(String.format("## Correlated Signals (last %d seconds)\n", correlationMiner.getHistorySeconds()));
+            for (CorrelationMiner.Correlation correlation : correlations) {
+                prompt.append(String.format("- %s <-> %s: correlation %.2f, lift %.1f, together in %d buckets\n",
+                        correlation.getSignalA(), correlation.getSignalB(), correlation.getCorrelation(),
+                        correlation.getLift(), correlation.getCoOccurrences()));
+            }
+            prompt.append("\n");
+        }
+        
         // Add analysis request
         prompt.append("""
             ## Analysis Request
@@ -119,7 +289,7 @@ public class GenAIAnalysisService {
             
             1. **Root Cause Analysis**: Identify the underlying causes of these error patterns
             2. **Business Impact Assessment**: Evaluate the impact on user experience and system reliability
-            3. **Correlation Analysis**: Identify relationships between different error patterns
+            3. **Correlation Analysis**: Explain the correlated signals above and any other relationships between error patterns
             4. **Healing Recommendations**: Provide specific, actionable healing strategies
             5. **Prevention Strategies**: Suggest long-term improvements to prevent recurrence
             6. **Automation Opportunities**: Identify which healing actions can be automated
@@ -281,64 +451,141 @@ public class GenAIAnalysisService {
     }
     
     /**
-     * Call JAMVANT via Ollama API for real AI analysis
+     * Call JAMVANT via Ollama API for real AI analysis. The request is sent asynchronously over
+     * the pooled client; the returned future completes when the model has finished. Cancelling
+     * the model call aborts the request.
      */
-    private String callRealLLM(String prompt) {
-        try {
-            logger.info("Calling JAMVANT via Ollama API: {}", ollamaApiUrl);
-            
-            // Prepare JAMVANT request with proper formatting
-            Map<String, Object> request = Map.of(
-                "model", jamvantModelVersion,
-                "messages", List.of(Map.of(
-                    "role", "user",
-                    "content", "Hey! JAMVANT, " + prompt + " Provide analysis in JSON format."
-                )),
-                "stream", false
-            );
-            
-            // Set headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("User-Agent", "JAMVANT-SH-SBUMM-POC/1.0");
-            
-            // Create HTTP entity
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
-            
-            // Call Ollama API with timeout handling
-            ResponseEntity<String> response = restTemplate.exchange(
-                ollamaApiUrl,
-                HttpMethod.POST,
-                entity,
-                String.class
-            );
-            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                // Parse Ollama response to extract JAMVANT message content
-                JsonNode responseNode = objectMapper.readTree(response.getBody());
-                String jamvantResponse = responseNode.path("message").path("content").asText();
-                
-                if (jamvantResponse != null && !jamvantResponse.trim().isEmpty()) {
-                    // Clean up JAMVANT response - extract JSON if it's mixed with text
-                    String cleanedResponse = extractJsonFromResponse(jamvantResponse);
+    private CompletableFuture<String> callRealLLM(String prompt, ModelCall modelCall) {
+        logger.info("Calling JAMVANT via Ollama API: {}", ollamaApiUrl);
+        
+        // Prepare JAMVANT request with proper formatting
+        Map<String, Object> request = Map.of(
+            "model", jamvantModelVersion,
+            "messages", List.of(Map.of(
+                "role", "user",
+                "content", "Hey! JAMVANT, " + prompt + " Provide analysis in JSON format."
+            )),
+            "stream", false
+        );
+        
+        CompletableFuture<String> call = ollamaClient.postJson(ollamaApiUrl, request);
+        modelCall.cancelled.thenRun(() -> call.cancel(true));
+        return call
+                .thenApply(this::extractMessageContent)
+                .exceptionally(throwable -> {
+                    Throwable cause = unwrap(throwable);
+                    if (modelCall.cancelled.isDone()) {
+                        throw new CompletionException(cause); // Nobody is waiting for a fallback
+                    }
+                    logger.error("Error calling JAMVANT via Ollama API: {}", cause.getMessage(), cause);
+                    logger.warn("Falling back to mock response due to JAMVANT integration error");
                     
-                    logger.info("JAMVANT analysis completed successfully via Ollama API");
-                    logger.debug("JAMVANT response length: {} characters", cleanedResponse.length());
-                    return cleanedResponse;
-                } else {
-                    throw new RuntimeException("Empty response from JAMVANT");
-                }
-            } else {
-                throw new RuntimeException("Ollama API returned status: " + response.getStatusCode());
+                    // Graceful fallback to mock response
+                    modelCall.fallback = true;
+                    return generateMockLLMResponse(Collections.emptyList(), Collections.emptyMap());
+                });
+    }
+    
+    /**
+     * Call JAMVANT via Ollama API in streaming mode. Tokens from the NDJSON chunks are passed to
+     * the listener and the recommendation parser as they arrive; the returned future completes
+     * with the full (JSON-extracted) content once the model is done.
+     */
+    private CompletableFuture<String> streamRealLLM(String prompt, StreamingRecommendationParser recommendationParser,
+                                                    AnalysisListener listener, ModelCall modelCall) {
+        logger.info("Streaming JAMVANT analysis via Ollama API: {}", ollamaApiUrl);
+        
+        Map<String, Object> request = Map.of(
+            "model", jamvantModelVersion,
+            "messages", List.of(Map.of(
+                "role", "user",
+                "content", "Hey! JAMVANT, " + prompt + " Provide analysis in JSON format."
+            )),
+            "stream", true
+        );
+        
+        // Chunks are delivered one at a time, so the builder needs no locking
+        StringBuilder content = new StringBuilder();
+        CompletableFuture<Void> call = ollamaClient.postJsonStreaming(ollamaApiUrl, request, line -> {
+            String token = extractStreamedToken(line);
+            if (!token.isEmpty()) {
+                content.append(token);
+                listener.onToken(token);
+                recommendationParser.feed(token);
             }
-            
-        } catch (Exception e) {
-            logger.error("Error calling JAMVANT via Ollama API: {}", e.getMessage(), e);
-            logger.warn("Falling back to mock response due to JAMVANT integration error");
-            
-            // Graceful fallback to mock response
-            return generateMockLLMResponse(Collections.emptyList(), Collections.emptyMap());
+        });
+        modelCall.cancelled.thenRun(() -> call.cancel(true));
+        return call
+                .thenApply(done -> {
+                    if (content.toString().trim().isEmpty()) {
+                        throw new IllegalStateException("Empty response from JAMVANT");
+                    }
+                    logger.info("JAMVANT streamed analysis completed with {} recommendations so far",
+                            recommendationParser.getEmitted());
+                    return extractJsonFromResponse(content.toString());
+                })
+                .exceptionally(throwable -> {
+                    Throwable cause = unwrap(throwable);
+                    if (modelCall.cancelled.isDone()) {
+                        throw new CompletionException(cause); // Nobody is waiting for a fallback
+                    }
+                    logger.error("Error streaming from JAMVANT via Ollama API: {}", cause.getMessage(), cause);
+                    logger.warn("Falling back to mock response due to JAMVANT integration error");
+                    
+                    modelCall.fallback = true;
+                    String mockResponse = generateMockLLMResponse(Collections.emptyList(), Collections.emptyMap());
+                    // Recommendations already handed out stand; only an empty stream is filled from the mock
+                    if (recommendationParser.getEmitted() == 0) {
+                        recommendationParser.feed(mockResponse);
+                    }
+                    return mockResponse;
+                });
+    }
+    
+    /**
+     * Token carried by one line of an Ollama streaming chat response
+     */
+    private String extractStreamedToken(String line) {
+        JsonNode chunk;
+        try {
+            chunk = objectMapper.readTree(line);
+        } catch (IOException e) {
+            logger.warn("Skipping malformed JAMVANT stream chunk: {}", e.getMessage());
+            return "";
+        }
+        if (chunk.has("error")) {
+            throw new IllegalStateException("JAMVANT stream error: " + chunk.path("error").asText());
+        }
+        return chunk.path("message").path("content").asText("");
+    }
+    
+    /**
+     * Extract the JAMVANT message content from an Ollama chat response
+     */
+    private String extractMessageContent(String responseBody) {
+        JsonNode responseNode;
+        try {
+            responseNode = objectMapper.readTree(responseBody);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        String jamvantResponse = responseNode.path("message").path("content").asText();
+        
+        if (jamvantResponse == null || jamvantResponse.trim().isEmpty()) {
+            throw new IllegalStateException("Empty response from JAMVANT");
         }
+        
+        // Clean up JAMVANT response - extract JSON if it's mixed with text
+        String cleanedResponse = extractJsonFromResponse(jamvantResponse);
+        
+        logger.info("JAMVANT analysis completed successfully via Ollama API");
+        logger.debug("JAMVANT response length: {} characters", cleanedResponse.length());
+        return cleanedResponse;
+    }
+    
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ?
+                throwable.getCause() : throwable;
     }
     
     /**
@@ -385,7 +632,8 @@ public class GenAIAnalysisService {
      * Parse AI response into structured result
      */
     private AIAnalysisResult parseAIResponse(String llmResponse, 
-                                           List<ErrorPatternDetector.ErrorInsight> originalInsights) {
+                                           List<ErrorPatternDetector.ErrorInsight> originalInsights,
+                                           List<HealingRecommendation> streamedRecommendations) {
         try {
             // Parse JSON response
             Map<String, Object> responseMap = objectMapper.readValue(llmResponse, Map.class);
@@ -400,19 +648,13 @@ public class GenAIAnalysisService {
             result.setAutomationOpportunities((List<String>) responseMap.get("automationOpportunities"));
             result.setConfidence(((Number) responseMap.get("confidence")).doubleValue());
             
-            // Parse recommendations
-            List<Map<String, Object>> recList = (List<Map<String, Object>>) responseMap.get("healingRecommendations");
-            List<HealingRecommendation> recommendations = new ArrayList<>();
-            
-            for (Map<String, Object> recMap : recList) {
-                HealingRecommendation rec = new HealingRecommendation();
-                rec.setAction((String) recMap.get("action"));
-                rec.setPriority((String) recMap.get("priority"));
-                rec.setAutomated((Boolean) recMap.get("automated"));
-                rec.setImplementation((String) recMap.get("implementation"));
-                rec.setExpectedOutcome((String) recMap.get("expectedOutcome"));
-                rec.setRecommendationId(UUID.randomUUID().toString());
-                recommendations.add(rec);
+            // Parse recommendations, reusing the ones already handed out while streaming
+            List<HealingRecommendation> recommendations = new ArrayList<>(streamedRecommendations);
+            if (recommendations.isEmpty()) {
+                List<Map<String, Object>> recList = (List<Map<String, Object>>) responseMap.get("healingRecommendations");
+                for (Map<String, Object> recMap : recList) {
+                    recommendations.add(toRecommendation(recMap));
+                }
             }
             
             result.setRecommendations(recommendations);
@@ -426,6 +668,29 @@ public class GenAIAnalysisService {
         }
     }
     
+    /**
+     * Parse one streamed recommendation object; null if it is not valid JSON
+     */
+    private HealingRecommendation parseRecommendation(String json) {
+        try {
+            return toRecommendation(objectMapper.readValue(json, Map.class));
+        } catch (Exception e) {
+            logger.warn("Skipping unparseable streamed recommendation: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private HealingRecommendation toRecommendation(Map<String, Object> recMap) {
+        HealingRecommendation rec = new HealingRecommendation();
+        rec.setAction((String) recMap.get("action"));
+        rec.setPriority((String) recMap.get("priority"));
+        rec.setAutomated((Boolean) recMap.get("automated"));
+        rec.setImplementation((String) recMap.get("implementation"));
+        rec.setExpectedOutcome((String) recMap.get("expectedOutcome"));
+        rec.setRecommendationId(UUID.randomUUID().toString());
+        return rec;
+    }
+    
     private AIAnalysisResult createDisabledResult() {
         AIAnalysisResult result = new AIAnalysisResult();
         result.setAnalysisId("disabled");
@@ -448,6 +713,28 @@ public class GenAIAnalysisService {
         return result;
     }
     
+    /**
+     * Progress callbacks for a running analysis. Called on the analysis and HTTP client threads,
+     * so implementations must not block.
+     */
+    public interface AnalysisListener {
+        AnalysisListener NONE = new AnalysisListener() { };
+        
+        default void onPromptBuilt(String prompt) { }
+        default void onToken(String token) { }
+        default void onRecommendation(HealingRecommendation recommendation) { }
+    }
+    
+    /**
+     * State shared between one analysis and its model call
+     */
+    private static class ModelCall {
+        // Completed when the analysis is cancelled, to abort the request
+        private final CompletableFuture<Void> cancelled = new CompletableFuture<>();
+        // Set when the model failed and the mock response stood in for it
+        private volatile boolean fallback;
+    }
+    
     // Inner classes for structured results
     public static class AIAnalysisResult {
         private String analysisId;
@@ -455,11 +742,14 @@ public class GenAIAnalysisService {
         private String rootCauseAnalysis;
         private String businessImpact;
         private List<String> correlations;
+        private List<CorrelationMiner.Correlation> signalCorrelations;
         private List<HealingRecommendation> recommendations;
         private List<String> preventionStrategies;
         private List<String> automationOpportunities;
         private double confidence;
         private List<ErrorPatternDetector.ErrorInsight> originalInsights;
+        // Generated from the mock response because the model was unavailable
+        private boolean fallback;
         
         // Getters and setters
         public String getAnalysisId() { return analysisId; }
@@ -472,6 +762,8 @@ public class GenAIAnalysisService {
         public void setBusinessImpact(String businessImpact) { this.businessImpact = businessImpact; }
         public List<String> getCorrelations() { return correlations; }
         public void setCorrelations(List<String> correlations) { this.correlations = correlations; }
+        public List<CorrelationMiner.Correlation> getSignalCorrelations() { return signalCorrelations; }
+        public void setSignalCorrelations(List<CorrelationMiner.Correlation> signalCorrelations) { this.signalCorrelations = signalCorrelations; }
         public List<HealingRecommendation> getRecommendations() { return recommendations; }
         public void setRecommendations(List<HealingRecommendation> recommendations) { this.recommendations = recommendations; }
         public List<String> getPreventionStrategies() { return preventionStrategies; }
@@ -482,6 +774,38 @@ public class GenAIAnalysisService {
         public void setConfidence(double confidence) { this.confidence = confidence; }
         public List<ErrorPatternDetector.ErrorInsight> getOriginalInsights() { return originalInsights; }
         public void setOriginalInsights(List<ErrorPatternDetector.ErrorInsight> originalInsights) { this.originalInsights = originalInsights; }
+        public boolean isFallback() { return fallback; }
+        public void setFallback(boolean fallback) { this.fallback = fallback; }
+        
+        /**
+         * A copy for another caller of the same analysis: its own lists and recommendations,
+         * under the given id and insights
+         */
+        public AIAnalysisResult copyFor(String analysisId, List<ErrorPatternDetector.ErrorInsight> insights) {
+            AIAnalysisResult copy = new AIAnalysisResult();
+            copy.analysisId = analysisId;
+            copy.timestamp = timestamp;
+            copy.rootCauseAnalysis = rootCauseAnalysis;
+            copy.businessImpact = businessImpact;
+            copy.correlations = copyOf(correlations);
+            copy.signalCorrelations = copyOf(signalCorrelations);
+            if (recommendations != null) {
+                copy.recommendations = new ArrayList<>(recommendations.size());
+                for (HealingRecommendation recommendation : recommendations) {
+                    copy.recommendations.add(recommendation.copy());
+                }
+            }
+            copy.preventionStrategies = copyOf(preventionStrategies);
+            copy.automationOpportunities = copyOf(automationOpportunities);
+            copy.confidence = confidence;
+            copy.originalInsights = insights;
+            copy.fallback = fallback;
+            return copy;
+        }
+        
+        private static <T> List<T> copyOf(List<T> list) {
+            return list == null ? null : new ArrayList<>(list);
+        }
     }
     
     public static class HealingRecommendation {
@@ -505,5 +829,19 @@ public class GenAIAnalysisService {
         public void setImplementation(String implementation) { this.implementation = implementation; }
         public String getExpectedOutcome() { return expectedOutcome; }
         public void setExpectedOutcome(String expectedOutcome) { this.expectedOutcome = expectedOutcome; }
+        
+        /**
+         * The same recommendation under a new id, for another copy of its analysis
+         */
+        HealingRecommendation copy() {
+            HealingRecommendation copy = new HealingRecommendation();
+            copy.recommendationId = UUID.randomUUID().toString();
+            copy.action = action;
+            copy.priority = priority;
+            copy.automated = automated;
+            copy.implementation = implementation;
+            copy.expectedOutcome = expectedOutcome;
+            return copy;
+        }
     }
 }
\ No newline at end of file
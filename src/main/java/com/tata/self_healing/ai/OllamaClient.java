@@ -0,0 +1,282 @@
+package com.tata.self_healing.ai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous HTTP transport for JAMVANT/Ollama calls. Requests go through the shared pooled
+ * HttpClient and are limited per host: beyond the concurrency limit they wait in a bounded
+ * queue (without holding a thread) and are started as earlier calls complete.
+ */
+@Component
+public class OllamaClient {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OllamaClient.class);
+    private static final String USER_AGENT = "JAMVANT-SH-SBUMM-POC/1.0";
+    
+    @Autowired
+    private HttpClient jamvantHttpClient;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // Covers connecting and waiting for response headers
+    @Value("${jamvant.request.timeout:30000}")
+    private int requestTimeoutMs;
+    
+    // Upper bound on a whole streamed response, body included
+    @Value("${jamvant.stream.timeout:120000}")
+    private long streamTimeoutMs;
+    
+    // In-flight requests per host; Ollama serves a limited number of generations in parallel
+    @Value("${jamvant.http.max-concurrent-per-host:4}")
+    private int maxConcurrentPerHost;
+    
+    @Value("${jamvant.http.max-pending-per-host:64}")
+    private int maxPendingPerHost;
+    
+    private final Map<String, HostLimiter> limiters = new ConcurrentHashMap<>();
+    
+    /**
+     * POST a JSON body and complete with the response body. Never blocks the caller; completes
+     * exceptionally on non-2xx status, timeout, or when the host's queue is full. Cancelling the
+     * returned future aborts the request.
+     */
+    public CompletableFuture<String> postJson(String url, Object body) {
+        URI uri = URI.create(url);
+        HttpRequest request;
+        try {
+            request = buildRequest(uri, body);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        return limiterFor(uri).submit(() -> {
+            CompletableFuture<HttpResponse<String>> response =
+                    jamvantHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+            CompletableFuture<String> responseBody = response.thenApply(completed -> {
+                if (completed.statusCode() / 100 != 2) {
+                    throw new IllegalStateException("Ollama API returned status: " + completed.statusCode());
+                }
+                return completed.body();
+            });
+            responseBody.whenComplete((value, error) -> {
+                if (responseBody.isCancelled()) {
+                    response.cancel(true);
+                }
+            });
+            return responseBody;
+        });
+    }
+    
+    /**
+     * POST a JSON body and hand each line of the chunked response (e.g. Ollama's NDJSON stream)
+     * to onLine as it arrives, on the client's threads. Completes once the response has ended;
+     * fails, cancelling the stream, when onLine throws or the stream outlasts the stream timeout.
+     * Cancelling the returned future cancels the stream too.
+     */
+    public CompletableFuture<Void> postJsonStreaming(String url, Object body, Consumer<String> onLine) {
+        URI uri = URI.create(url);
+        HttpRequest request;
+        try {
+            request = buildRequest(uri, body);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        return limiterFor(uri).submit(() -> {
+            // Completed by the response, or earlier by a failing line or the timeout; the host permit is held until then
+            CompletableFuture<Void> stream = new CompletableFuture<>();
+            LineSubscriber subscriber = new LineSubscriber(onLine, stream);
+            // Error bodies are discarded rather than fed to the line consumer
+            HttpResponse.BodyHandler<Void> lines = info -> info.statusCode() / 100 == 2 ?
+                    HttpResponse.BodySubscribers.fromLineSubscriber(subscriber) :
+                    HttpResponse.BodySubscribers.replacing(null);
+            
+            CompletableFuture<HttpResponse<Void>> response = jamvantHttpClient.sendAsync(request, lines);
+            response.whenComplete((completed, error) -> {
+                if (error != null) {
+                    stream.completeExceptionally(error);
+                } else if (completed.statusCode() / 100 != 2) {
+                    stream.completeExceptionally(
+                            new IllegalStateException("Ollama API returned status: " + completed.statusCode()));
+                } else {
+                    stream.complete(null);
+                }
+            });
+            stream.orTimeout(streamTimeoutMs, TimeUnit.MILLISECONDS).whenComplete((done, error) -> {
+                if (error != null) {
+                    subscriber.cancel();
+                    response.cancel(true);
+                }
+            });
+            return stream;
+        });
+    }
+    
+    private HttpRequest buildRequest(URI uri, Object body) throws JsonProcessingException {
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Content-Type", "application/json")
+                .header("User-Agent", USER_AGENT)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+    
+    private HostLimiter limiterFor(URI uri) {
+        String host = uri.getHost() + ":" + uri.getPort();
+        return limiters.computeIfAbsent(host, key -> new HostLimiter(key, maxConcurrentPerHost, maxPendingPerHost));
+    }
+    
+    /**
+     * Delivers non-empty response lines as they arrive. A line that fails to process cancels the
+     * rest of the body and fails the stream.
+     */
+    private static class LineSubscriber implements Flow.Subscriber<String> {
+        private final Consumer<String> onLine;
+        private final CompletableFuture<Void> stream;
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled;
+        
+        LineSubscriber(Consumer<String> onLine, CompletableFuture<Void> stream) {
+            this.onLine = onLine;
+            this.stream = stream;
+        }
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+        
+        @Override
+        public void onNext(String line) {
+            if (cancelled || line.isEmpty()) {
+                return;
+            }
+            try {
+                onLine.accept(line);
+            } catch (RuntimeException e) {
+                cancel();
+                stream.completeExceptionally(e);
+            }
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            stream.completeExceptionally(throwable);
+        }
+        
+        @Override
+        public void onComplete() {
+            // The stream completes with the response
+        }
+        
+        void cancel() {
+            cancelled = true;
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+    
+    /**
+     * Non-blocking per-host concurrency limit: calls start while permits are available and
+     * otherwise queue until a running call completes. Cancellation is passed on to the call.
+     */
+    private static class HostLimiter {
+        private final String host;
+        private final Semaphore permits;
+        private final int maxPending;
+        private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        
+        HostLimiter(String host, int maxConcurrent, int maxPending) {
+            this.host = host;
+            this.permits = new Semaphore(Math.max(1, maxConcurrent));
+            this.maxPending = Math.max(0, maxPending);
+        }
+        
+        <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+            if (pendingCount.incrementAndGet() > maxPending + permits.availablePermits()) {
+                pendingCount.decrementAndGet();
+                logger.warn("Rejecting LLM request to {}: {} requests already queued", host, maxPending);
+                return CompletableFuture.failedFuture(
+                        new RejectedExecutionException("Too many pending LLM requests for " + host));
+            }
+            
+            CompletableFuture<T> result = new CompletableFuture<>();
+            pending.add(() -> {
+                if (result.isDone()) {
+                    // Cancelled while queued: never started
+                    permits.release();
+                    return;
+                }
+                CompletableFuture<T> started;
+                try {
+                    started = call.get();
+                } catch (RuntimeException e) {
+                    started = CompletableFuture.failedFuture(e);
+                }
+                // Cancelling the caller's future aborts the call
+                CompletableFuture<T> running = started;
+                result.whenComplete((value, error) -> {
+                    if (result.isCancelled()) {
+                        running.cancel(true);
+                    }
+                });
+                started.whenComplete((value, error) -> {
+                    permits.release();
+                    drain();
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            });
+            drain();
+            return result;
+        }
+        
+        private void drain() {
+            while (!pending.isEmpty() && permits.tryAcquire()) {
+                Runnable next = pending.poll();
+                if (next == null) {
+                    permits.release();
+                } else {
+                    pendingCount.decrementAndGet();
+                    next.run();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.tata.self_healing.ai;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Incremental scanner for the analysis JSON as the model writes it. Text is fed in arbitrary
+ * fragments (e.g. streamed tokens); only the structure is tracked: strings, nesting and object
+ * keys. Each element of the top-level "healingRecommendations" array is handed to the callback
+ * as JSON text as soon as its closing brace arrives. Text before the first '{' is ignored.
+ * Not thread-safe: feed from one thread at a time.
+ */
+public class StreamingRecommendationParser {
+
+    private static final String RECOMMENDATIONS_KEY = "healingRecommendations";
+
+    private final Consumer<String> onRecommendation;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private final StringBuilder key = new StringBuilder();
+    private final StringBuilder capture = new StringBuilder();
+    private boolean started;
+    private boolean inString;
+    private boolean escaped;
+    private boolean readingKey;
+    private int recommendationsDepth = -1;
+    private int emitted;
+
+    public StreamingRecommendationParser(Consumer<String> onRecommendation) {
+        this.onRecommendation = onRecommendation;
+    }
+
+    /**
+     * Scan the next fragment of the response
+     */
+    public void feed(CharSequence fragment) {
+        for (int i = 0; i < fragment.length(); i++) {
+            accept(fragment.charAt(i));
+        }
+    }
+
+    /**
+     * Number of recommendations handed to the callback so far
+     */
+    public int getEmitted() {
+        return emitted;
+    }
+
+    private void accept(char c) {
+        if (!started) {
+            if (c != '{') {
+                return;
+            }
+            started = true;
+        }
+        if (capture.length() > 0 || (c == '{' && insideRecommendations())) {
+            capture.append(c);
+        }
+
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+                if (readingKey) {
+                    frames.peek().key = key.toString();
+                    readingKey = false;
+                }
+            } else if (readingKey) {
+                key.append(c);
+            }
+            return;
+        }
+
+        Frame top = frames.peek();
+        switch (c) {
+            case '"':
+                inString = true;
+                readingKey = top != null && top.object && top.expectingKey;
+                key.setLength(0);
+                break;
+            case ':':
+                if (top != null && top.object) {
+                    top.expectingKey = false;
+                }
+                break;
+            case ',':
+                if (top != null && top.object) {
+                    top.expectingKey = true;
+                }
+                break;
+            case '{':
+                frames.push(new Frame(true));
+                break;
+            case '[':
+                // The recommendations array is the value of that key in the top-level object
+                if (recommendationsDepth < 0 && top != null && frames.size() == 1
+                        && RECOMMENDATIONS_KEY.equals(top.key)) {
+                    recommendationsDepth = frames.size() + 1;
+                }
+                frames.push(new Frame(false));
+                break;
+            case '}':
+            case ']':
+                frames.poll();
+                if (c == ']' && frames.size() + 1 == recommendationsDepth) {
+                    recommendationsDepth = 0; // Done; later arrays are not recommendations
+                }
+                if (c == '}' && capture.length() > 0 && insideRecommendations()) {
+                    emitted++;
+                    String recommendation = capture.toString();
+                    capture.setLength(0);
+                    onRecommendation.accept(recommendation);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private boolean insideRecommendations() {
+        return recommendationsDepth > 0 && frames.size() == recommendationsDepth;
+    }
+
+    private static class Frame {
+        private final boolean object;
+        private boolean expectingKey;
+        private String key;
+
+        Frame(boolean object) {
+            this.object = object;
+            this.expectingKey = object;
+        }
+    }
+}
@@ -3,8 +3,9 @@ package com.tata.self_healing.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
 
 /**
  * Configuration for JAMVANT integration via Ollama API
@@ -12,23 +13,21 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 public class JamvantConfiguration {
     
-    @Value("${jamvant.request.timeout:30000}")
-    private int requestTimeoutMs;
+    @Value("${jamvant.http.connect-timeout:5000}")
+    private int connectTimeoutMs;
     
     /**
-     * RestTemplate bean configured for JAMVANT/Ollama API calls
+     * Shared JDK HttpClient for JAMVANT/Ollama API calls. Connections are pooled per host and
+     * kept alive between calls; requests are sent asynchronously, so no thread waits on a
+     * response while the model generates. How long idle connections stay pooled is the JVM-wide
+     * jdk.httpclient.keepalive.timeout flag (seconds), set on the command line.
      */
     @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
-        
-        // Configure timeout settings for JAMVANT calls using SimpleClientHttpRequestFactory
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(5000); // 5 seconds connection timeout
-        factory.setReadTimeout(requestTimeoutMs); // Configurable read timeout (default 30s)
-        
-        restTemplate.setRequestFactory(factory);
-        
-        return restTemplate;
+    public HttpClient jamvantHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1) // Ollama serves HTTP/1.1; pooled keep-alive connections
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.tata.self_healing.controller;
 
+import com.tata.self_healing.ai.AnalysisExecutors;
 import com.tata.self_healing.ai.AutomatedHealingEngine;
 import com.tata.self_healing.ai.GenAIAnalysisService;
 import com.tata.self_healing.dto.ApiResponse;
@@ -8,14 +9,19 @@ import com.tata.self_healing.monitoring.MetricsCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Controller for AI-powered self-healing capabilities
@@ -39,6 +45,24 @@ public class AIController {
     @Autowired
     private MetricsCollector metricsCollector;
     
+    @Autowired
+    private AnalysisExecutors analysisExecutors;
+    
+    // How long an /analyze/stream connection may stay open
+    @Value("${self-healing.ai.stream.timeout-millis:120000}")
+    private long streamTimeoutMs;
+    
+    // Events a watcher may fall behind before it is disconnected
+    @Value("${self-healing.ai.stream.max-pending-events:1024}")
+    private int streamMaxPendingEvents;
+    
+    // Token text kept for replay to watchers that join late
+    @Value("${self-healing.ai.stream.max-replayed-token-chars:65536}")
+    private int streamMaxReplayedTokenChars;
+    
+    // The streamed analysis currently running, if any
+    private final AtomicReference<AnalysisBroadcast> liveAnalysis = new AtomicReference<>();
+    
     /**
      * Trigger comprehensive AI analysis of current error patterns
      */
@@ -77,6 +101,79 @@ public class AIController {
         }
     }
     
+    /**
+     * Report the progress of an AI analysis as Server-Sent Events: "prompt" once the prompt is
+     * built, "token" for each streamed model token, "recommendation" as each one is parsed and
+     * "healing-dispatched" when POST /heal starts healing a recommendation meanwhile (streaming
+     * never triggers healing itself). Ends with "result" (or "error"). Watchers that connect while
+     * an analysis is running join it and first receive the events sent so far; the analysis is
+     * cancelled once every watcher has gone. The emitter holds no request thread while waiting,
+     * and sends run on the sse executor.
+     */
+    @GetMapping(value = "/analyze/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAIAnalysis() {
+        
+        logger.info("GET /api/v1/ai/analyze/stream - Streaming AI analysis");
+        
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        while (true) {
+            AnalysisBroadcast broadcast = liveAnalysis.get();
+            boolean created = broadcast == null;
+            if (created) {
+                broadcast = newBroadcast();
+                if (!liveAnalysis.compareAndSet(null, broadcast)) {
+                    continue;
+                }
+            }
+            // The first watcher is attached before the analysis starts, so it cannot miss any event
+            if (broadcast.attach(emitter)) {
+                if (created) {
+                    startBroadcast(broadcast);
+                } else {
+                    logger.info("Joined AI analysis in progress");
+                }
+                return emitter;
+            }
+            // Finished (or abandoned) in the meantime
+            liveAnalysis.compareAndSet(broadcast, null);
+        }
+    }
+    
+    private AnalysisBroadcast newBroadcast() {
+        return new AnalysisBroadcast(analysisExecutors.sse(), closed -> liveAnalysis.compareAndSet(closed, null),
+                streamMaxPendingEvents, streamMaxReplayedTokenChars);
+    }
+    
+    /**
+     * Tell watchers of the live streamed analysis, if any, that healing started for the recommendations
+     */
+    private void announceHealing(List<GenAIAnalysisService.HealingRecommendation> recommendations) {
+        AnalysisBroadcast watched = liveAnalysis.get();
+        if (watched == null) {
+            return;
+        }
+        for (GenAIAnalysisService.HealingRecommendation recommendation : recommendations) {
+            Map<String, Object> event = new HashMap<>();
+            event.put("recommendationId", recommendation.getRecommendationId());
+            event.put("action", recommendation.getAction());
+            watched.publish("healing-dispatched", event);
+        }
+    }
+    
+    private void startBroadcast(AnalysisBroadcast broadcast) {
+        try {
+            List<ErrorPatternDetector.ErrorInsight> insights = errorPatternDetector.analyzePatterns();
+            Map<String, Object> systemContext = buildSystemContext();
+            
+            broadcast.start(genAIAnalysisService.analyzeErrorPatterns(insights, systemContext, broadcast));
+            
+        } catch (Exception e) {
+            logger.error("Error triggering streamed AI analysis", e);
+            broadcast.finish("error", ApiResponse.error("AI_ANALYSIS_ERROR", 
+                    "Failed to trigger AI analysis: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Execute automated healing based on AI recommendations
      */
@@ -91,13 +188,30 @@ public class AIController {
             List<ErrorPatternDetector.ErrorInsight> insights = errorPatternDetector.analyzePatterns();
             Map<String, Object> systemContext = buildSystemContext();
             
-            return genAIAnalysisService.analyzeErrorPatterns(insights, systemContext)
+            // Healing for each recommendation starts as soon as the model has written it
+            List<CompletableFuture<List<AutomatedHealingEngine.HealingExecutionResult>>> dispatched = 
+                    new CopyOnWriteArrayList<>();
+            GenAIAnalysisService.AnalysisListener dispatcher = new GenAIAnalysisService.AnalysisListener() {
+                @Override
+                public void onRecommendation(GenAIAnalysisService.HealingRecommendation recommendation) {
+                    dispatched.add(healingEngine.executeHealingActions(List.of(recommendation)));
+                    announceHealing(List.of(recommendation));
+                }
+            };
+            
+            return genAIAnalysisService.analyzeErrorPatterns(insights, systemContext, dispatcher)
                     .thenCompose(analysisResult -> {
-                        logger.info("AI analysis completed, executing {} recommendations", 
-                                analysisResult.getRecommendations().size());
+                        logger.info("AI analysis completed, {} of {} recommendations already dispatched", 
+                                dispatched.size(), analysisResult.getRecommendations().size());
                         
-                        // Execute healing actions
-                        return healingEngine.executeHealingActions(analysisResult.getRecommendations());
+                        if (dispatched.isEmpty()) {
+                            announceHealing(analysisResult.getRecommendations());
+                            return healingEngine.executeHealingActions(analysisResult.getRecommendations());
+                        }
+                        return CompletableFuture.allOf(dispatched.toArray(new CompletableFuture[0]))
+                                .thenApply(done -> dispatched.stream()
+                                        .flatMap(future -> future.join().stream())
+                                        .toList());
                     })
                     .thenApply(healingResults -> {
                         logger.info("Automated healing completed with {} results", healingResults.size());
@@ -197,6 +311,7 @@ public class AIController {
             // Create test error insight
             ErrorPatternDetector.ErrorInsight testInsight = new ErrorPatternDetector.ErrorInsight();
             testInsight.setType(errorType);
+            testInsight.setPatternId("TEST:" + errorType + ":" + errorMessage);
             testInsight.setMessage(errorMessage);
             testInsight.setSeverity(severity);
             testInsight.setOccurrenceCount(5);
@@ -0,0 +1,314 @@
+package com.tata.self_healing.controller;
+
+import com.tata.self_healing.ai.GenAIAnalysisService;
+import com.tata.self_healing.dto.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * One running analysis shared by its SSE watchers. Publishing never blocks: each event is
+ * queued per watcher under the lock, and the blocking sends run on the sender executor, one
+ * drain at a time per watcher so each sees the events in order. A watcher that falls more
+ * than maxPendingEvents behind is disconnected rather than holding back the others (it may
+ * reconnect and be replayed).
+ * Events are recorded so late watchers are replayed what was sent so far; consecutive tokens
+ * are folded into one replayed event, and at most maxReplayedTokenChars of them are kept.
+ */
+class AnalysisBroadcast implements GenAIAnalysisService.AnalysisListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisBroadcast.class);
+
+    private static final String TOKEN = "token";
+
+    private final Executor sender;
+    private final Consumer<AnalysisBroadcast> onClosed;
+    private final int maxPendingEvents;
+    private final int maxReplayedTokenChars;
+
+    private final List<Event> history = new ArrayList<>(); // Guarded by this
+    private final List<Watcher> watchers = new ArrayList<>(); // Guarded by this
+    private int replayedTokenChars; // Guarded by this
+    private CompletableFuture<GenAIAnalysisService.AIAnalysisResult> analysis; // Guarded by this
+    private boolean finished; // Guarded by this
+
+    /**
+     * onClosed runs once when the broadcast finishes or is abandoned, so no new watcher joins it
+     */
+    AnalysisBroadcast(Executor sender, Consumer<AnalysisBroadcast> onClosed, int maxPendingEvents, int maxReplayedTokenChars) {
+        this.sender = sender;
+        this.onClosed = onClosed;
+        this.maxPendingEvents = Math.max(1, maxPendingEvents);
+        this.maxReplayedTokenChars = Math.max(0, maxReplayedTokenChars);
+    }
+
+    /**
+     * Add a watcher and replay the events so far; false once the analysis has finished
+     */
+    boolean attach(SseEmitter emitter) {
+        Watcher watcher = new Watcher(emitter);
+        synchronized (this) {
+            if (finished) {
+                return false;
+            }
+            watchers.add(watcher);
+            for (Event event : history) {
+                watcher.pending.add(event.replay());
+            }
+            watcher.sending = true;
+        }
+        emitter.onCompletion(() -> leave(watcher));
+        emitter.onTimeout(() -> leave(watcher));
+        emitter.onError(throwable -> leave(watcher));
+        schedule(List.of(watcher));
+        return true;
+    }
+
+    void start(CompletableFuture<GenAIAnalysisService.AIAnalysisResult> running) {
+        synchronized (this) {
+            if (finished) {
+                running.cancel(true); // Every watcher left before the analysis was started
+                return;
+            }
+            analysis = running;
+        }
+        running.whenComplete((result, throwable) -> {
+            if (running.isCancelled()) {
+                return;
+            }
+            if (throwable != null) {
+                logger.error("Error during streamed AI analysis", throwable);
+                finish("error", ApiResponse.error("AI_ANALYSIS_ERROR",
+                        "Failed to complete AI analysis: " + throwable.getMessage()));
+            } else {
+                logger.info("Streamed AI analysis completed with confidence: {}", result.getConfidence());
+                finish("result", ApiResponse.success(result));
+            }
+        });
+    }
+
+    @Override
+    public void onPromptBuilt(String prompt) {
+        publish("prompt", Map.of("promptLength", prompt.length()));
+    }
+
+    @Override
+    public void onToken(String token) {
+        publish(TOKEN, token);
+    }
+
+    @Override
+    public void onRecommendation(GenAIAnalysisService.HealingRecommendation recommendation) {
+        publish("recommendation", recommendation);
+    }
+
+    /**
+     * Send the final event, then complete every watcher once its queue is drained
+     */
+    void finish(String name, Object data) {
+        List<Watcher> ready;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            ready = enqueue(new Event(name, data));
+            finished = true;
+            for (Watcher watcher : watchers) {
+                watcher.completeWhenDrained = true;
+                if (!watcher.sending) {
+                    watcher.sending = true;
+                    ready.add(watcher);
+                }
+            }
+            watchers.clear();
+        }
+        onClosed.accept(this);
+        schedule(ready);
+    }
+
+    /**
+     * Queue an event for every watcher; does not wait for any send
+     */
+    void publish(String name, Object data) {
+        List<Watcher> ready;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            record(name, data);
+            ready = enqueue(new Event(name, data));
+        }
+        schedule(ready);
+    }
+
+    synchronized int watcherCount() {
+        return watchers.size();
+    }
+
+    // Guarded by this
+    private void record(String name, Object data) {
+        if (!TOKEN.equals(name)) {
+            history.add(new Event(name, data));
+            return;
+        }
+        String token = (String) data;
+        if (replayedTokenChars + token.length() > maxReplayedTokenChars) {
+            return; // Late watchers still get every later non-token event
+        }
+        replayedTokenChars += token.length();
+        Event last = history.isEmpty() ? null : history.get(history.size() - 1);
+        if (last != null && last.tokens != null) {
+            last.tokens.append(token);
+        } else {
+            history.add(Event.tokens(token));
+        }
+    }
+
+    /**
+     * Append the event to each watcher's queue; returns the watchers that need a drain started.
+     * A watcher whose queue is full gets nothing more and is completed once its drain runs.
+     */
+    private List<Watcher> enqueue(Event event) {
+        List<Watcher> ready = new ArrayList<>();
+        for (Watcher watcher : watchers) {
+            if (watcher.completeWhenDrained) {
+                continue;
+            }
+            if (watcher.pending.size() >= maxPendingEvents) {
+                logger.info("SSE watcher fell {} events behind, disconnecting it", maxPendingEvents);
+                watcher.pending.clear();
+                watcher.completeWhenDrained = true;
+            } else {
+                watcher.pending.add(event);
+            }
+            if (!watcher.sending) {
+                watcher.sending = true;
+                ready.add(watcher);
+            }
+        }
+        return ready;
+    }
+
+    private void schedule(List<Watcher> ready) {
+        for (Watcher watcher : ready) {
+            try {
+                sender.execute(() -> drain(watcher));
+            } catch (RejectedExecutionException e) {
+                logger.warn("SSE sender saturated, disconnecting a watcher");
+                synchronized (this) {
+                    watcher.pending.clear();
+                    watcher.sending = false;
+                    watcher.completeWhenDrained = true;
+                }
+                leave(watcher);
+                watcher.emitter.complete();
+            }
+        }
+    }
+
+    /**
+     * Send the watcher's queued events in order; runs on the sender executor
+     */
+    private void drain(Watcher watcher) {
+        while (true) {
+            Event event;
+            boolean complete = false;
+            synchronized (this) {
+                event = watcher.pending.poll();
+                if (event == null) {
+                    watcher.sending = false;
+                    complete = watcher.completeWhenDrained;
+                }
+            }
+            if (event == null) {
+                if (complete) {
+                    leave(watcher);
+                    watcher.emitter.complete();
+                }
+                return;
+            }
+            try {
+                watcher.emitter.send(SseEmitter.event().name(event.name).data(event.data));
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("SSE client disconnected: {}", e.getMessage());
+                synchronized (this) {
+                    watcher.pending.clear();
+                    watcher.sending = false;
+                    watcher.completeWhenDrained = true;
+                }
+                leave(watcher);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drop a watcher; when it was the last one, the analysis is cancelled
+     */
+    private void leave(Watcher watcher) {
+        CompletableFuture<GenAIAnalysisService.AIAnalysisResult> abandoned;
+        synchronized (this) {
+            if (!watchers.remove(watcher) || !watchers.isEmpty() || finished) {
+                return;
+            }
+            finished = true;
+            abandoned = analysis;
+        }
+        onClosed.accept(this);
+        if (abandoned != null) {
+            logger.info("All watchers left, cancelling streamed AI analysis");
+            abandoned.cancel(true);
+        }
+    }
+
+    private static class Watcher {
+        private final SseEmitter emitter;
+        private final ArrayDeque<Event> pending = new ArrayDeque<>(); // Guarded by the broadcast
+        private boolean sending; // Guarded by the broadcast; a drain is scheduled or running
+        private boolean completeWhenDrained; // Guarded by the broadcast
+
+        Watcher(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    /**
+     * A named SSE payload; in the history, a run of tokens is one event with a growing buffer
+     */
+    private static class Event {
+        private final String name;
+        private final Object data;
+        private final StringBuilder tokens;
+
+        Event(String name, Object data) {
+            this.name = name;
+            this.data = data;
+            this.tokens = null;
+        }
+
+        private Event(StringBuilder tokens) {
+            this.name = TOKEN;
+            this.data = null;
+            this.tokens = tokens;
+        }
+
+        static Event tokens(String first) {
+            return new Event(new StringBuilder(first));
+        }
+
+        // Guarded by the broadcast (the token buffer keeps growing)
+        Event replay() {
+            return tokens != null ? new Event(TOKEN, tokens.toString()) : this;
+        }
+    }
+}
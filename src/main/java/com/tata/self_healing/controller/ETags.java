@@ -0,0 +1,61 @@
+package com.tata.self_healing.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Version-based ETags and conditional request matching shared by the controllers
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    /**
+     * Whether an If-None-Match (weak comparison) or If-Match (strong comparison) header lists the ETag.
+     * Strong comparison never matches weak W/ tags; "*" matches any current representation.
+     * Tags are read as quoted strings, so a comma inside one does not split it; malformed entries are skipped.
+     */
+    static boolean matches(String header, String eTag, boolean strong) {
+        if (header == null) {
+            return false;
+        }
+        int length = header.length();
+        int position = 0;
+        while (position < length) {
+            char c = header.charAt(position);
+            if (c == ',' || c == ' ' || c == '\t') {
+                position++;
+                continue;
+            }
+            if (c == '*') {
+                return true;
+            }
+            boolean weak = header.startsWith("W/", position);
+            int start = weak ? position + 2 : position;
+            if (start >= length || header.charAt(start) != '"') {
+                // Not an entity tag: skip to the next list element
+                int comma = header.indexOf(',', position);
+                position = comma < 0 ? length : comma + 1;
+                continue;
+            }
+            int end = header.indexOf('"', start + 1);
+            if (end < 0) {
+                return false;
+            }
+            if (!(weak && strong) && end + 1 - start == eTag.length() && header.startsWith(eTag, start)) {
+                return true;
+            }
+            position = end + 1;
+        }
+        return false;
+    }
+}
@@ -1,11 +1,13 @@
 package com.tata.self_healing.controller;
 
 import com.tata.self_healing.dto.ApiResponse;
+import com.tata.self_healing.monitoring.CorrelationMiner;
 import com.tata.self_healing.monitoring.ErrorPatternDetector;
 import com.tata.self_healing.monitoring.MetricsCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -30,19 +32,30 @@ public class MonitoringController {
     @Autowired
     private MetricsCollector metricsCollector;
     
+    @Autowired
+    private CorrelationMiner correlationMiner;
+    
     /**
-     * Get error patterns and insights for AI analysis
+     * Get error patterns and insights for AI analysis. The ETag is the insight snapshot version,
+     * so polling dashboards get 304 Not Modified until the insights change.
      */
     @GetMapping("/error-patterns")
-    public ResponseEntity<ApiResponse<List<ErrorPatternDetector.ErrorInsight>>> getErrorPatterns() {
+    public ResponseEntity<ApiResponse<List<ErrorPatternDetector.ErrorInsight>>> getErrorPatterns(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.info("GET /api/v1/monitoring/error-patterns - Retrieving error patterns");
         
         try {
-            List<ErrorPatternDetector.ErrorInsight> insights = errorPatternDetector.analyzePatterns();
+            ErrorPatternDetector.InsightSnapshot snapshot = errorPatternDetector.getInsightSnapshot();
+            String eTag = ETags.of(snapshot.getVersion());
+            if (ETags.matches(ifNoneMatch, eTag, false)) {
+                return ETags.notModified(eTag);
+            }
+            
+            List<ErrorPatternDetector.ErrorInsight> insights = snapshot.getInsights();
             
             logger.info("Successfully retrieved {} error insights", insights.size());
             
-            return ResponseEntity.ok(ApiResponse.success(insights));
+            return ResponseEntity.ok().eTag(eTag).body(ApiResponse.success(insights));
         } catch (Exception e) {
             logger.error("Error retrieving error patterns", e);
             return ResponseEntity.internalServerError().body(
@@ -70,6 +83,27 @@ public class MonitoringController {
         }
     }
     
+    /**
+     * Get the strongest correlations between error patterns and route signals
+     */
+    @GetMapping("/correlations")
+    public ResponseEntity<ApiResponse<List<CorrelationMiner.Correlation>>> getCorrelations(
+            @RequestParam(defaultValue = "10") int limit) {
+        logger.info("GET /api/v1/monitoring/correlations - Retrieving signal correlations");
+        
+        try {
+            List<CorrelationMiner.Correlation> correlations = correlationMiner.getStrongestCorrelations(Math.max(1, limit));
+            
+            logger.info("Successfully retrieved {} correlations", correlations.size());
+            
+            return ResponseEntity.ok(ApiResponse.success(correlations));
+        } catch (Exception e) {
+            logger.error("Error retrieving correlations", e);
+            return ResponseEntity.internalServerError().body(
+                    ApiResponse.error("MONITORING_ERROR", "Failed to retrieve correlations: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Get system health metrics
      */
@@ -157,4 +191,4 @@ public class MonitoringController {
                     ApiResponse.error("MONITORING_ERROR", "Failed to record test error: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+}
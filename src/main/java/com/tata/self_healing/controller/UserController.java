@@ -1,17 +1,28 @@
 package com.tata.self_healing.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.tata.self_healing.dto.ApiResponse;
+import com.tata.self_healing.dto.BatchItemResult;
 import com.tata.self_healing.model.User;
 import com.tata.self_healing.service.UserService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.LongPredicate;
 
 @RestController
 @RequestMapping("/api/v1/users")
@@ -19,27 +30,134 @@ import java.util.List;
 public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 10000;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
-    public ResponseEntity<ApiResponse<List<User>>> getAllUsers() {
-        logger.info("GET /api/v1/users - Retrieving all users");
+    public ResponseEntity<ApiResponse<List<User>>> getAllUsers(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.info("GET /api/v1/users - Retrieving users (limit: {}, after: {})", limit, after);
+
+        // Read the dataset version before the data so the ETag can only be older than the body
+        String eTag = ETags.of(userService.getDatasetVersion());
+        if (ETags.matches(ifNoneMatch, eTag, false)) {
+            return ETags.notModified(eTag);
+        }
+
+        if (limit == null && after == null) {
+            List<User> users = userService.getAllUsers();
+            logger.info("Successfully retrieved {} users", users.size());
+            return ResponseEntity.ok().eTag(eTag).body(ApiResponse.success(users));
+        }
+
+        int pageSize = limit == null ? MAX_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<User> users = userService.getUsersPage(after, pageSize);
+        logger.info("Successfully retrieved page of {} users", users.size());
+
+        // A full page means there may be more; the last email is the cursor for the next request
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(eTag);
+        if (users.size() == pageSize) {
+            builder.header(NEXT_CURSOR_HEADER, users.get(users.size() - 1).getEmail());
+        }
+        return builder.body(ApiResponse.success(users));
+    }
+
+    /**
+     * Stream users as newline-delimited JSON, written as they are read from storage
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        logger.info("GET /api/v1/users (ndjson) - Streaming users (limit: {}, after: {})", limit, after);
+
+        // Compact, and leave the response stream open and buffered between records
+        ObjectWriter lineWriter = objectMapper.writerFor(User.class)
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 
-        List<User> users = userService.getAllUsers();
-        logger.info("Successfully retrieved {} users", users.size());
+        StreamingResponseBody body = outputStream -> {
+            int count = userService.streamUsers(after, limit == null ? 0 : limit, user -> {
+                try {
+                    lineWriter.writeValue(outputStream, user);
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+            logger.info("Successfully streamed {} users", count);
+        };
 
-        return ResponseEntity.ok(ApiResponse.success(users));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Search users by age range and/or case-insensitive name prefix
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<User>>> searchUsers(
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge,
+            @RequestParam(required = false) String namePrefix,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.info("GET /api/v1/users/search - Searching users (minAge: {}, maxAge: {}, namePrefix: {})",
+                minAge, maxAge, namePrefix);
+
+        if (minAge == null && maxAge == null && (namePrefix == null || namePrefix.isEmpty())) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("VALIDATION_ERROR",
+                    "At least one of minAge, maxAge or namePrefix is required"));
+        }
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("VALIDATION_ERROR",
+                    "minAge must not be greater than maxAge"));
+        }
+
+        String eTag = ETags.of(userService.getDatasetVersion());
+        if (ETags.matches(ifNoneMatch, eTag, false)) {
+            return ETags.notModified(eTag);
+        }
+
+        int resultLimit = limit == null ? MAX_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<User> users = userService.searchUsers(minAge, maxAge, namePrefix, resultLimit);
+        logger.info("Search matched {} users", users.size());
+
+        return ResponseEntity.ok().eTag(eTag).body(ApiResponse.success(users));
     }
 
     @GetMapping("/{email}")
-    public ResponseEntity<ApiResponse<User>> getUserByEmail(@PathVariable String email) {
+    public ResponseEntity<ApiResponse<User>> getUserByEmail(
+            @PathVariable String email,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.info("GET /api/v1/users/{} - Retrieving user by email", email);
 
+        // Answer polls from the in-memory version index without reading or serializing the user
+        Long currentVersion = userService.findUserVersion(email);
+        if (currentVersion != null && ETags.matches(ifNoneMatch, ETags.of(currentVersion), false)) {
+            return ETags.notModified(ETags.of(currentVersion));
+        }
+
         User user = userService.getUserByEmail(email);
+        String eTag = ETags.of(user.getVersion());
+        if (ETags.matches(ifNoneMatch, eTag, false)) {
+            return ETags.notModified(eTag);
+        }
         logger.info("Successfully retrieved user: {}", email);
 
-        return ResponseEntity.ok(ApiResponse.success(user));
+        return ResponseEntity.ok().eTag(eTag).body(ApiResponse.success(user));
     }
 
     @PostMapping
@@ -56,23 +174,93 @@ public class UserController {
     @PutMapping("/{email}")
     public ResponseEntity<ApiResponse<User>> updateUser(
             @PathVariable String email,
-            @Valid @RequestBody User user) {
+            @Valid @RequestBody User user,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("PUT /api/v1/users/{} - Updating user", email);
 
-        User updatedUser = userService.updateUser(email, user);
+        User updatedUser = userService.updateUser(email, user, versionPrecondition(ifMatch));
         logger.info("Successfully updated user: {}", email);
 
-        return ResponseEntity.ok(ApiResponse.success(updatedUser));
+        return ResponseEntity.ok().eTag(ETags.of(updatedUser.getVersion())).body(ApiResponse.success(updatedUser));
     }
 
     @DeleteMapping("/{email}")
-    public ResponseEntity<ApiResponse<Void>> deleteUser(@PathVariable String email) {
+    public ResponseEntity<ApiResponse<Void>> deleteUser(
+            @PathVariable String email,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("DELETE /api/v1/users/{} - Deleting user", email);
 
-        userService.deleteUser(email);
+        userService.deleteUser(email, versionPrecondition(ifMatch));
         logger.info("Successfully deleted user: {}", email);
 
         return ResponseEntity.status(HttpStatus.NO_CONTENT)
                 .body(ApiResponse.success());
     }
-}
+
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<BatchItemResult>>> createUsers(@RequestBody List<User> users) {
+        logger.info("POST /api/v1/users/batch - Creating {} users", users.size());
+
+        ResponseEntity<ApiResponse<List<BatchItemResult>>> rejection = checkBatch(users);
+        if (rejection != null) {
+            return rejection;
+        }
+
+        List<BatchItemResult> results = userService.createUsers(users);
+        logger.info("Successfully processed user create batch");
+
+        return ResponseEntity.ok(ApiResponse.success(results));
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<ApiResponse<List<BatchItemResult>>> updateUsers(@RequestBody List<User> users) {
+        logger.info("PUT /api/v1/users/batch - Updating {} users", users.size());
+
+        ResponseEntity<ApiResponse<List<BatchItemResult>>> rejection = checkBatch(users);
+        if (rejection != null) {
+            return rejection;
+        }
+
+        List<BatchItemResult> results = userService.updateUsers(users);
+        logger.info("Successfully processed user update batch");
+
+        return ResponseEntity.ok(ApiResponse.success(results));
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<ApiResponse<List<BatchItemResult>>> deleteUsers(@RequestBody List<String> emails) {
+        logger.info("DELETE /api/v1/users/batch - Deleting {} users", emails.size());
+
+        ResponseEntity<ApiResponse<List<BatchItemResult>>> rejection = checkBatch(emails);
+        if (rejection != null) {
+            return rejection;
+        }
+
+        List<BatchItemResult> results = userService.deleteUsers(emails);
+        logger.info("Successfully processed user delete batch");
+
+        return ResponseEntity.ok(ApiResponse.success(results));
+    }
+
+    /**
+     * Turn an If-Match header into a check on the current version; null when the header is absent
+     */
+    private static LongPredicate versionPrecondition(String ifMatch) {
+        return ifMatch == null ? null : version -> ETags.matches(ifMatch, ETags.of(version), true);
+    }
+
+    /**
+     * Reject batches that are oversized or contain null items before touching storage
+     */
+    private ResponseEntity<ApiResponse<List<BatchItemResult>>> checkBatch(List<?> items) {
+        if (items.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("BATCH_TOO_LARGE",
+                    "Batch size " + items.size() + " exceeds the maximum of " + MAX_BATCH_SIZE));
+        }
+        if (items.contains(null)) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("VALIDATION_ERROR",
+                    "Batch items must not be null"));
+        }
+        return null;
+    }
+}
\ No newline at end of file
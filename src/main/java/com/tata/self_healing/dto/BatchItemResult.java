@@ -0,0 +1,29 @@
+package com.tata.self_healing.dto;
+
+import lombok.Getter;
+
+/**
+ * Outcome of a single item in a batch user request
+ */
+@Getter
+public class BatchItemResult {
+    private final int index;
+    private final String email;
+    private final String status;
+    private final ErrorDetails error;
+
+    private BatchItemResult(int index, String email, String status, ErrorDetails error) {
+        this.index = index;
+        this.email = email;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static BatchItemResult success(int index, String email, String status) {
+        return new BatchItemResult(index, email, status, null);
+    }
+
+    public static BatchItemResult failure(int index, String email, String code, String message) {
+        return new BatchItemResult(index, email, "FAILED", new ErrorDetails(code, message));
+    }
+}
@@ -13,8 +13,6 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,7 +33,7 @@ public class GlobalExceptionHandler {
 
         // Record error for pattern analysis
         errorPatternDetector.recordError("USER_NOT_FOUND", ex.getMessage(), 
-                getStackTrace(ex), correlationId);
+                ex, correlationId);
         metricsCollector.incrementErrorByType("USER_NOT_FOUND");
 
         ApiResponse<Void> response = ApiResponse.error("USER_NOT_FOUND", ex.getMessage());
@@ -49,13 +47,27 @@ public class GlobalExceptionHandler {
 
         // Record error for pattern analysis
         errorPatternDetector.recordError("DUPLICATE_EMAIL", ex.getMessage(), 
-                getStackTrace(ex), correlationId);
+                ex, correlationId);
         metricsCollector.incrementErrorByType("DUPLICATE_EMAIL");
 
         ApiResponse<Void> response = ApiResponse.error("DUPLICATE_EMAIL", ex.getMessage());
         return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ApiResponse<Void>> handlePreconditionFailedException(PreconditionFailedException ex) {
+        String correlationId = MDC.get("correlationId");
+        logger.error("Precondition failed: {} [correlationId={}]", ex.getMessage(), correlationId);
+
+        // Record error for pattern analysis
+        errorPatternDetector.recordError("PRECONDITION_FAILED", ex.getMessage(), 
+                ex, correlationId);
+        metricsCollector.incrementErrorByType("PRECONDITION_FAILED");
+
+        ApiResponse<Void> response = ApiResponse.error("PRECONDITION_FAILED", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(response);
+    }
+
     @ExceptionHandler(FileOperationException.class)
     public ResponseEntity<ApiResponse<Void>> handleFileOperationException(FileOperationException ex) {
         String correlationId = MDC.get("correlationId");
@@ -63,7 +75,7 @@ public class GlobalExceptionHandler {
 
         // Record error for pattern analysis
         errorPatternDetector.recordError("FILE_OPERATION_ERROR", ex.getMessage(), 
-                getStackTrace(ex), correlationId);
+                ex, correlationId);
         metricsCollector.incrementFileOperationErrorCount();
         metricsCollector.incrementErrorByType("FILE_OPERATION_ERROR");
 
@@ -85,7 +97,7 @@ public class GlobalExceptionHandler {
         // Record error for pattern analysis
         String errorMessage = "Validation failed: " + validationErrors.toString();
         errorPatternDetector.recordError("VALIDATION_ERROR", errorMessage, 
-                getStackTrace(ex), correlationId);
+                ex, correlationId);
         metricsCollector.incrementValidationErrorCount();
         metricsCollector.incrementErrorByType("VALIDATION_ERROR");
 
@@ -101,21 +113,11 @@ public class GlobalExceptionHandler {
 
         // Record error for pattern analysis
         errorPatternDetector.recordError("INTERNAL_ERROR", ex.getMessage(), 
-                getStackTrace(ex), correlationId);
+                ex, correlationId);
         metricsCollector.incrementErrorByType("INTERNAL_ERROR");
 
         ApiResponse<Void> response = ApiResponse.error("INTERNAL_ERROR",
                 "An unexpected error occurred. Please try again.");
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
-    
-    /**
-     * Helper method to get stack trace as string
-     */
-    private String getStackTrace(Exception ex) {
-        StringWriter sw = new StringWriter();
-        PrintWriter pw = new PrintWriter(sw);
-        ex.printStackTrace(pw);
-        return sw.toString();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.tata.self_healing.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -29,6 +29,9 @@ public class User {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime updatedAt;
 
+    // Assigned by the repository on every write; 0 for users stored before versioning
+    private long version;
+
     // Default constructor
     public User() {
         this.createdAt = LocalDateTime.now();
@@ -44,6 +47,16 @@ public class User {
         this.updatedAt = LocalDateTime.now();
     }
 
+    // Copy constructor (keeps original timestamps)
+    public User(User other) {
+        this.name = other.name;
+        this.age = other.age;
+        this.email = other.email;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.version = other.version;
+    }
+
     // Override setters to update timestamp
     public void setName(String name) {
         this.name = name;
@@ -0,0 +1,57 @@
+package com.tata.self_healing.monitoring;
+
+/**
+ * Pluggable anomaly detection for error patterns. A detector creates one State per
+ * pattern; the state is fed every occurrence and asked whether the pattern's current
+ * rate is anomalous. Implementations must keep per-event updates O(1).
+ */
+public interface AnomalyDetector {
+
+    /**
+     * Name used to select the detector (self-healing.monitoring.anomaly.detector)
+     */
+    String getName();
+
+    /**
+     * Fresh per-pattern state. The window is the pattern's own occurrence counter, fed by the
+     * pattern itself; detectors that only need windowed counts read it rather than keep another.
+     */
+    State newState(SlidingWindowCounter window);
+
+    /**
+     * Length of the recent window whose count the detector judges
+     */
+    long getWindowMillis();
+
+    /**
+     * Score at which a pattern becomes anomalous; severity is graded in multiples of it
+     */
+    double getAnomalousScore();
+
+    interface State {
+
+        /**
+         * Fold one occurrence at the given time into the state
+         */
+        void record(long timestampMillis);
+
+        /**
+         * Fold count occurrences at the given time into the state (e.g. when replaying a checkpoint)
+         */
+        default void record(long timestampMillis, long count) {
+            for (long i = 0; i < count; i++) {
+                record(timestampMillis);
+            }
+        }
+
+        /**
+         * Whether the pattern's recent rate is anomalous as of the given time
+         */
+        boolean isAnomalous(long nowMillis);
+
+        /**
+         * How far the recent rate is from normal (detector-specific, e.g. a z-score)
+         */
+        double score(long nowMillis);
+    }
+}
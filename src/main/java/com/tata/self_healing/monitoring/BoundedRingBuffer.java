@@ -0,0 +1,59 @@
+package com.tata.self_healing.monitoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-capacity, lock-free ring buffer that keeps the most recent items.
+ * Writers claim a slot with a single atomic increment and overwrite the oldest entry,
+ * so adding never allocates and never blocks.
+ */
+public class BoundedRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    public BoundedRingBuffer(int capacity) {
+        this.slots = new AtomicReferenceArray<>(Math.max(1, capacity));
+    }
+
+    public void add(T item) {
+        long sequence = writeSequence.getAndIncrement();
+        slots.set((int) (sequence % slots.length()), item);
+    }
+
+    /**
+     * Retained items, oldest first. Concurrent writers may replace a slot while it is read,
+     * in which case the newer item is returned in its place.
+     */
+    public List<T> snapshot() {
+        long end = writeSequence.get();
+        long start = Math.max(0, end - slots.length());
+        List<T> items = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            T item = slots.get((int) (sequence % slots.length()));
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Most recently added item, or null when empty
+     */
+    public T latest() {
+        long end = writeSequence.get();
+        return end == 0 ? null : slots.get((int) ((end - 1) % slots.length()));
+    }
+
+    public int size() {
+        return (int) Math.min(writeSequence.get(), slots.length());
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,152 @@
+package com.tata.self_healing.monitoring;
+
+import java.util.Arrays;
+
+/**
+ * Base for statistical anomaly states. Occurrences are counted into fixed-width time
+ * buckets. Each closed bucket is handed to the baseline model once, and the observed
+ * count over the last few buckets (the evaluation window) is compared with what the
+ * baseline expects for a window of that length. Nothing is reported until the baseline
+ * has seen warmupBuckets closed buckets. A quiet period of any length is folded in at once,
+ * so one update stays O(1) however long the pattern was idle.
+ */
+public abstract class BucketedAnomalyState implements AnomalyDetector.State {
+
+    protected final long bucketMillis;
+    private final long warmupBuckets;
+    private final long minCount;
+    private final double sensitivity;
+
+    // Closed buckets inside the evaluation window, plus the open bucket
+    private final long[] recentBuckets;
+    private int recentPosition;
+    private long recentSum;
+    private long currentEpoch = -1;
+    private long currentCount;
+    private long closedBuckets;
+
+    protected BucketedAnomalyState(long bucketMillis, int evaluationBuckets, long warmupBuckets,
+                                   long minCount, double sensitivity) {
+        this.bucketMillis = Math.max(1, bucketMillis);
+        this.recentBuckets = new long[Math.max(0, evaluationBuckets - 1)];
+        this.warmupBuckets = Math.max(0, warmupBuckets);
+        this.minCount = minCount;
+        this.sensitivity = sensitivity;
+    }
+
+    @Override
+    public synchronized void record(long timestampMillis) {
+        record(timestampMillis, 1);
+    }
+
+    @Override
+    public synchronized void record(long timestampMillis, long count) {
+        advanceTo(timestampMillis / bucketMillis);
+        currentCount += count;
+    }
+
+    @Override
+    public synchronized boolean isAnomalous(long nowMillis) {
+        advanceTo(nowMillis / bucketMillis);
+        long observed = recentSum + currentCount;
+        return observed >= minCount && isWarmedUp() && deviation(observed, nowMillis) > sensitivity;
+    }
+
+    @Override
+    public synchronized double score(long nowMillis) {
+        advanceTo(nowMillis / bucketMillis);
+        return isWarmedUp() ? deviation(recentSum + currentCount, nowMillis) : 0.0;
+    }
+
+    private boolean isWarmedUp() {
+        return closedBuckets >= warmupBuckets;
+    }
+
+    /**
+     * Number of buckets in the evaluation window (including the open one)
+     */
+    protected int evaluationBuckets() {
+        return recentBuckets.length + 1;
+    }
+
+    /**
+     * Standard deviations by which the observed window count exceeds the baseline's expectation.
+     * Counts vary at least as much as a Poisson process (variance = mean), so a perfectly steady
+     * baseline does not make a small excess look infinite; only an expectation of zero does.
+     */
+    protected double zScore(long observed, double expected, double variance) {
+        double excess = observed - expected;
+        if (excess <= 0) {
+            return 0.0;
+        }
+        double spread = Math.max(variance, expected);
+        return spread > 0 ? excess / Math.sqrt(spread) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Fold one closed bucket's count into the baseline
+     */
+    protected abstract void onBucketClosed(long count, long epoch);
+
+    /**
+     * Fold idle consecutive empty buckets, the last of which is lastEpoch, into the baseline.
+     * Must leave the same baseline as idle calls of onBucketClosed(0, ...), without one step per bucket.
+     */
+    protected abstract void onIdleBuckets(long idle, long lastEpoch);
+
+    /**
+     * Variance of an exponentially weighted (mean, variance) pair after k zero counts are folded in,
+     * where decay = (1 - alpha)^k; the mean becomes mean * decay
+     */
+    protected static double varianceAfterZeros(double mean, double variance, double decay) {
+        return decay * (variance + mean * mean * (1 - decay));
+    }
+
+    /**
+     * Deviation of the observed evaluation-window count from the baseline
+     */
+    protected abstract double deviation(long observed, long nowMillis);
+
+    private void advanceTo(long epoch) {
+        if (currentEpoch < 0) {
+            currentEpoch = epoch;
+            return;
+        }
+        if (epoch <= currentEpoch) {
+            return; // Late events are counted in the open bucket
+        }
+
+        closeBucket(currentCount, currentEpoch);
+        long idle = epoch - currentEpoch - 1;
+        if (idle > 0) {
+            closeIdleBuckets(idle, epoch - 1);
+        }
+        currentEpoch = epoch;
+        currentCount = 0;
+    }
+
+    private void closeBucket(long count, long epoch) {
+        closedBuckets++;
+        if (recentBuckets.length > 0) {
+            recentSum += count - recentBuckets[recentPosition];
+            recentBuckets[recentPosition] = count;
+            recentPosition = (recentPosition + 1) % recentBuckets.length;
+        }
+        onBucketClosed(count, epoch);
+    }
+
+    private void closeIdleBuckets(long idle, long lastEpoch) {
+        closedBuckets += idle;
+        if (idle >= recentBuckets.length) {
+            Arrays.fill(recentBuckets, 0);
+            recentSum = 0;
+        } else {
+            for (long i = 0; i < idle; i++) {
+                recentSum -= recentBuckets[recentPosition];
+                recentBuckets[recentPosition] = 0;
+                recentPosition = (recentPosition + 1) % recentBuckets.length;
+            }
+        }
+        onIdleBuckets(idle, lastEpoch);
+    }
+}
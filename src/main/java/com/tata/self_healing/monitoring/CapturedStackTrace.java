@@ -0,0 +1,131 @@
+package com.tata.self_healing.monitoring;
+
+import java.util.Arrays;
+
+/**
+ * Bounded stack trace captured from an exception without rendering it.
+ * Only the top frames are kept, together with a fingerprint of the exception type and
+ * those frames; the printStackTrace-style text is built on first use and cached.
+ */
+public class CapturedStackTrace {
+
+    static final int MAX_FRAMES = 32;
+
+    private final String exceptionClass;
+    private final String message;
+    private final StackTraceElement[] frames;
+    private final int omittedFrames;
+    private final String rootCause;
+    private final long fingerprint;
+    private volatile String text;
+
+    private CapturedStackTrace(String exceptionClass, String message, StackTraceElement[] frames,
+                               int omittedFrames, String rootCause, long fingerprint, String text) {
+        this.exceptionClass = exceptionClass;
+        this.message = message;
+        this.frames = frames;
+        this.omittedFrames = omittedFrames;
+        this.rootCause = rootCause;
+        this.fingerprint = fingerprint;
+        this.text = text;
+    }
+
+    /**
+     * Capture the exception's top frames; nothing is rendered
+     */
+    public static CapturedStackTrace capture(Throwable throwable) {
+        StackTraceElement[] stack = throwable.getStackTrace();
+        StackTraceElement[] frames = stack.length > MAX_FRAMES ? Arrays.copyOf(stack, MAX_FRAMES) : stack;
+
+        Throwable root = throwable;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        String rootCause = root != throwable ? root.getClass().getName() + ": " + root.getMessage() : null;
+
+        long fingerprint = ErrorFingerprinter.mix(ErrorFingerprinter.FNV_OFFSET, throwable.getClass().getName());
+        for (StackTraceElement frame : frames) {
+            fingerprint = ErrorFingerprinter.mix(fingerprint, frame.getClassName());
+            fingerprint = ErrorFingerprinter.mix(fingerprint, frame.getMethodName());
+            fingerprint = fingerprint * 31 + frame.getLineNumber();
+        }
+
+        return new CapturedStackTrace(throwable.getClass().getName(), throwable.getMessage(), frames,
+                stack.length - frames.length, rootCause, fingerprint, null);
+    }
+
+    /**
+     * Wrap an already rendered trace (e.g. from a test or external source)
+     */
+    public static CapturedStackTrace ofText(String text) {
+        String rendered = text != null ? text : "";
+        long fingerprint = ErrorFingerprinter.mix(ErrorFingerprinter.FNV_OFFSET, rendered);
+        return new CapturedStackTrace(null, null, null, 0, null, fingerprint, rendered);
+    }
+
+    /**
+     * Same trace with its frames replaced by an identical, shared array. Message and root cause
+     * stay those of this occurrence.
+     */
+    CapturedStackTrace withFrames(StackTraceElement[] sharedFrames) {
+        return new CapturedStackTrace(exceptionClass, message, sharedFrames, omittedFrames, rootCause, fingerprint, null);
+    }
+
+    /**
+     * Normalized Class.method of the top frame, used in pattern fingerprints
+     */
+    public String topFrame() {
+        if (frames == null) {
+            return ErrorFingerprinter.topFrame(text);
+        }
+        if (frames.length == 0) {
+            return "";
+        }
+        return ErrorFingerprinter.normalizeFrame(frames[0].getClassName() + "." + frames[0].getMethodName());
+    }
+
+    /**
+     * printStackTrace-style text, rendered on first call
+     */
+    public String render() {
+        String rendered = text;
+        if (rendered == null) {
+            StringBuilder builder = new StringBuilder(64 + frames.length * 80);
+            builder.append(exceptionClass);
+            if (message != null) {
+                builder.append(": ").append(message);
+            }
+            builder.append('\n');
+            for (StackTraceElement frame : frames) {
+                builder.append("\tat ").append(frame).append('\n');
+            }
+            if (omittedFrames > 0) {
+                builder.append("\t... ").append(omittedFrames).append(" more\n");
+            }
+            if (rootCause != null) {
+                builder.append("Caused by: ").append(rootCause).append('\n');
+            }
+            rendered = builder.toString();
+            text = rendered;
+        }
+        return rendered;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    // Null for traces wrapped from text
+    StackTraceElement[] getFrames() {
+        return frames;
+    }
+
+    public int getFrameCount() {
+        return frames != null ? frames.length : 0;
+    }
+
+    @Override
+    public String toString() {
+        return render();
+    }
+}
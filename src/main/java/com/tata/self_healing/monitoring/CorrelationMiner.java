@@ -0,0 +1,286 @@
+package com.tata.self_healing.monitoring;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental co-occurrence miner over time buckets. Signals are tracked error patterns
+ * ("pattern:TYPE:fingerprint") and route health ("slow:ROUTE", "5xx:ROUTE"). For each closed
+ * bucket the set of active signals is recorded; per-signal and pairwise bucket counts are kept
+ * over a sliding history, updated when a bucket enters and when it leaves the history, so a
+ * query only scores the pairs that have actually co-occurred.
+ * Signals are fed by the error ingestion thread, so request threads never take this lock. A signal
+ * is forgotten once it has left the history; when maxSignals are all still active, a new signal
+ * replaces the one recorded least recently.
+ */
+@Component
+public class CorrelationMiner {
+
+    public static final String PATTERN_PREFIX = "pattern:";
+    private static final String SLOW_PREFIX = "slow:";
+    private static final String SERVER_ERROR_PREFIX = "5xx:";
+    private static final int[] NO_SIGNALS = new int[0];
+
+    @Value("${self-healing.monitoring.window.bucket-seconds:10}")
+    private int bucketSeconds;
+
+    // Buckets of history the counts cover (360 x 10s = one hour)
+    @Value("${self-healing.monitoring.correlation.history-buckets:360}")
+    private int historyBuckets;
+
+    // Cap on distinct signals; patterns are already limited to the top K, quiet signals expire
+    @Value("${self-healing.monitoring.correlation.max-signals:256}")
+    private int maxSignals;
+
+    // Minimum buckets in which both signals were active before a pair is reported
+    @Value("${self-healing.monitoring.correlation.min-support:3}")
+    private int minSupport;
+
+    @Value("${self-healing.monitoring.correlation.slow-request-millis:1000}")
+    private long slowRequestMillis;
+
+    // In access order: the first entry is the signal recorded least recently
+    private final Map<String, Integer> signalIds = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, String> signalNames = new HashMap<>();
+    private int nextSignalId;
+
+    // Buckets (within the history) in which each signal, and each pair of signals, was active
+    private final Map<Integer, Integer> signalBuckets = new HashMap<>();
+    private final Map<Long, Integer> pairBuckets = new HashMap<>();
+
+    private int[][] history;
+    private int historyPosition;
+    private int closedBuckets;
+    private long currentEpoch = -1;
+    private final Set<Integer> currentSignals = new LinkedHashSet<>();
+
+    @PostConstruct
+    void initialize() {
+        history = new int[Math.max(1, historyBuckets)][];
+    }
+
+    /**
+     * Mark a tracked error pattern as active at the given time
+     */
+    public void recordPattern(String patternKey, long timestampMillis) {
+        record(PATTERN_PREFIX + patternKey, timestampMillis);
+    }
+
+    /**
+     * Whether a completed request is a signal at all (slow and/or failing); cheap and lock-free,
+     * so request threads can skip publishing the rest
+     */
+    public boolean isSignal(int status, long durationMillis) {
+        return durationMillis >= slowRequestMillis || status >= 500;
+    }
+
+    /**
+     * Mark a route as slow and/or failing if the completed request was
+     */
+    public void recordRequest(String route, int status, long durationMillis, long timestampMillis) {
+        if (route == null) {
+            return;
+        }
+        if (durationMillis >= slowRequestMillis) {
+            record(SLOW_PREFIX + route, timestampMillis);
+        }
+        if (status >= 500) {
+            record(SERVER_ERROR_PREFIX + route, timestampMillis);
+        }
+    }
+
+    /**
+     * Drop a pattern that is no longer tracked, along with all of its pair counts
+     */
+    public synchronized void forgetPattern(String patternKey) {
+        Integer id = signalIds.remove(PATTERN_PREFIX + patternKey);
+        if (id != null) {
+            forget(id);
+        }
+    }
+
+    /**
+     * Positively correlated signal pairs over the history, strongest first
+     */
+    public List<Correlation> getStrongestCorrelations(int limit) {
+        return getStrongestCorrelations(limit, System.currentTimeMillis());
+    }
+
+    synchronized List<Correlation> getStrongestCorrelations(int limit, long nowMillis) {
+        advanceTo(nowMillis / bucketMillis());
+        List<Correlation> correlations = new ArrayList<>();
+        long total = closedBuckets;
+
+        for (Map.Entry<Long, Integer> entry : pairBuckets.entrySet()) {
+            int both = entry.getValue();
+            if (both < minSupport) {
+                continue;
+            }
+            int first = (int) (entry.getKey() >>> 32);
+            int second = (int) (long) entry.getKey();
+            long firstCount = signalBuckets.getOrDefault(first, 0);
+            long secondCount = signalBuckets.getOrDefault(second, 0);
+            if (firstCount == 0 || secondCount == 0) {
+                continue;
+            }
+
+            // Lift: how much more often the pair co-occurs than if the signals were independent.
+            // Phi: Pearson correlation of the two per-bucket activity indicators.
+            double lift = (double) both * total / (firstCount * secondCount);
+            double spread = Math.sqrt((double) firstCount * (total - firstCount) * secondCount * (total - secondCount));
+            double phi = spread > 0 ? (total * both - firstCount * secondCount) / spread : 0.0;
+            if (phi <= 0) {
+                continue;
+            }
+            correlations.add(new Correlation(signalNames.get(first), signalNames.get(second), both, lift, phi));
+        }
+
+        correlations.sort(Comparator.comparingDouble(Correlation::getCorrelation)
+                .thenComparingDouble(Correlation::getLift).reversed());
+        return correlations.size() > limit ? new ArrayList<>(correlations.subList(0, limit)) : correlations;
+    }
+
+    /**
+     * Length of history the correlations are computed over
+     */
+    public long getHistorySeconds() {
+        return (long) historyBuckets * bucketSeconds;
+    }
+
+    private synchronized void record(String signal, long timestampMillis) {
+        advanceTo(timestampMillis / bucketMillis());
+        Integer id = signalIds.get(signal);
+        if (id == null) {
+            if (signalIds.size() >= Math.max(1, maxSignals)) {
+                Iterator<Integer> leastRecent = signalIds.values().iterator();
+                int replaced = leastRecent.next();
+                leastRecent.remove();
+                forget(replaced);
+            }
+            id = nextSignalId++;
+            signalIds.put(signal, id);
+            signalNames.put(id, signal);
+        }
+        currentSignals.add(id);
+    }
+
+    private void advanceTo(long epoch) {
+        if (currentEpoch < 0) {
+            currentEpoch = epoch;
+            return;
+        }
+        if (epoch <= currentEpoch) {
+            return; // Late signals count towards the open bucket
+        }
+
+        closeBucket(currentSignals.stream().mapToInt(Integer::intValue).toArray());
+        currentSignals.clear();
+        // Buckets with no activity still count towards the total
+        long idle = Math.min(epoch - currentEpoch - 1, history.length);
+        for (long i = 0; i < idle; i++) {
+            closeBucket(NO_SIGNALS);
+        }
+        currentEpoch = epoch;
+    }
+
+    private void closeBucket(int[] active) {
+        int[] evicted = history[historyPosition];
+        if (evicted != null) {
+            updateCounts(evicted, -1);
+        }
+        updateCounts(active, 1);
+        history[historyPosition] = active;
+        historyPosition = (historyPosition + 1) % history.length;
+        closedBuckets = Math.min(closedBuckets + 1, history.length);
+
+        if (evicted != null) {
+            // Signals last active in the evicted bucket have left the history (their pairs already have)
+            for (int id : evicted) {
+                String name = signalNames.get(id);
+                if (name != null && !signalBuckets.containsKey(id)) {
+                    signalIds.remove(name);
+                    signalNames.remove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop tracking a signal whose name was already removed, along with all of its pair counts
+     */
+    private void forget(int id) {
+        signalNames.remove(id);
+        signalBuckets.remove(id);
+        currentSignals.remove(id);
+        pairBuckets.keySet().removeIf(pair -> (int) (pair >>> 32) == id || (int) (long) pair == id);
+        // Ids are never reused, so stale ids left in the history are simply skipped on eviction
+    }
+
+    private void updateCounts(int[] active, int delta) {
+        for (int i = 0; i < active.length; i++) {
+            if (!signalNames.containsKey(active[i])) {
+                continue; // Forgotten signal
+            }
+            adjust(signalBuckets, active[i], delta);
+            for (int j = i + 1; j < active.length; j++) {
+                if (signalNames.containsKey(active[j])) {
+                    adjust(pairBuckets, pairKey(active[i], active[j]), delta);
+                }
+            }
+        }
+    }
+
+    private static <K> void adjust(Map<K, Integer> counts, K key, int delta) {
+        if (delta > 0) {
+            counts.merge(key, delta, Integer::sum);
+        } else {
+            // Entries that drop to zero are removed so queries only see live pairs
+            counts.computeIfPresent(key, (k, count) -> count + delta > 0 ? count + delta : null);
+        }
+    }
+
+    private long bucketMillis() {
+        return Math.max(1, bucketSeconds) * 1000L;
+    }
+
+    private static long pairKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    /**
+     * Co-occurrence of two signals over the history
+     */
+    public static class Correlation {
+        private final String signalA;
+        private final String signalB;
+        private final int coOccurrences;
+        private final double lift;
+        private final double correlation;
+
+        public Correlation(String signalA, String signalB, int coOccurrences, double lift, double correlation) {
+            this.signalA = signalA;
+            this.signalB = signalB;
+            this.coOccurrences = coOccurrences;
+            this.lift = lift;
+            this.correlation = correlation;
+        }
+
+        // Getters
+        public String getSignalA() { return signalA; }
+        public String getSignalB() { return signalB; }
+        public int getCoOccurrences() { return coOccurrences; }
+        public double getLift() { return lift; }
+        public double getCorrelation() { return correlation; }
+    }
+}
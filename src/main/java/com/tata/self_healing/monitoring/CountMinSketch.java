@@ -0,0 +1,107 @@
+package com.tata.self_healing.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min Sketch over 64-bit keys: fixed memory (depth x width counters) regardless
+ * of how many distinct keys are seen. Estimates never undercount; with probability
+ * at least 1 - e^-depth they overcount by at most (e / width) x total.
+ */
+public class CountMinSketch {
+
+    private static final long[] ROW_SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0x27D4EB2F165667C5L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x85EBCA77C2B2AE63L, 0x94D049BB133111EBL
+    };
+
+    private final int depth;
+    private final int width;
+    private final AtomicLongArray counters;
+    private final AtomicLong total = new AtomicLong();
+
+    public CountMinSketch(int depth, int width) {
+        this.depth = Math.max(1, Math.min(depth, ROW_SEEDS.length));
+        this.width = Math.max(1, width);
+        this.counters = new AtomicLongArray(this.depth * this.width);
+    }
+
+    /**
+     * Add to the key's count and return its new estimate
+     */
+    public long add(long key, long count) {
+        total.addAndGet(count);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(index(row, key), count));
+        }
+        return estimate;
+    }
+
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, key)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Total of all counts added
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * Maximum overcount of any estimate at the current total, holding with probability getConfidence()
+     */
+    public long getErrorBound() {
+        return (long) Math.ceil(Math.E / width * total.get());
+    }
+
+    public double getConfidence() {
+        return 1.0 - Math.exp(-depth);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Copy of the counters, row by row, for checkpointing
+     */
+    long[] counters() {
+        long[] copy = new long[counters.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counters.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Load checkpointed counters from a sketch of the same dimensions
+     */
+    void restore(long restoredTotal, long[] restoredCounters) {
+        if (restoredCounters.length != counters.length()) {
+            throw new IllegalArgumentException("Sketch dimensions do not match the checkpoint");
+        }
+        for (int i = 0; i < restoredCounters.length; i++) {
+            counters.set(i, restoredCounters[i]);
+        }
+        total.set(restoredTotal);
+    }
+
+    private int index(int row, long key) {
+        // splitmix64 finalizer with a per-row seed gives independent hashes per row
+        long hash = key ^ ROW_SEEDS[row];
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        return row * width + (int) ((hash & Long.MAX_VALUE) % width);
+    }
+}
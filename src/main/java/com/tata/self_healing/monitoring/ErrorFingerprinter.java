@@ -0,0 +1,95 @@
+package com.tata.self_healing.monitoring;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Turns raw error messages and stack traces into stable pattern fingerprints.
+ * Variable tokens (quoted values, emails, UUIDs, numbers) are masked so that
+ * "User not found with email: a@x.com" and "...: b@x.com" share one template,
+ * and the template is combined with a normalized top-of-stack frame.
+ */
+public final class ErrorFingerprinter {
+
+    private static final Pattern QUOTED = Pattern.compile("'[^']*'|\"[^\"]*\"");
+    private static final Pattern EMAIL = Pattern.compile("[\\w.+-]+@[\\w-]+(\\.[\\w-]+)*");
+    private static final Pattern UUID = Pattern.compile(
+            "\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+    private static final Pattern HEX = Pattern.compile("\\b0x[0-9a-fA-F]+\\b");
+    // Whole numbers only: never the integer part of a decimal glued to a unit ("1.5s" stays as is)
+    private static final Pattern NUMBER = Pattern.compile("(?<![\\w<.])-?\\d+(\\.\\d+)?(?![\\w>]|\\.\\d)");
+
+    // Module or class-loader prefix such as "java.base/" or "app//"
+    private static final Pattern MODULE_PREFIX = Pattern.compile("^[\\w.@-]*/+");
+
+    // Generated class-name suffixes that differ between runs: $$SpringCGLIB$$0, $Lambda$123/0x..., $1
+    private static final Pattern SYNTHETIC_SUFFIX = Pattern.compile("\\$\\$[\\w$]*(/0x[0-9a-fA-F]+)?|\\$Lambda[^.]*|\\$\\d+");
+
+    static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ErrorFingerprinter() {
+    }
+
+    /**
+     * Message with variable tokens replaced by placeholders
+     */
+    public static String template(String message) {
+        if (message == null) {
+            return "null";
+        }
+        String template = QUOTED.matcher(message).replaceAll("<str>");
+        template = EMAIL.matcher(template).replaceAll("<email>");
+        template = UUID.matcher(template).replaceAll("<uuid>");
+        template = HEX.matcher(template).replaceAll("<hex>");
+        return NUMBER.matcher(template).replaceAll("<num>");
+    }
+
+    /**
+     * First "at" frame of a rendered stack trace as Class.method, without file, line or synthetic suffixes
+     */
+    public static String topFrame(String stackTrace) {
+        if (stackTrace == null) {
+            return "";
+        }
+        int at = stackTrace.indexOf("\tat ");
+        if (at < 0) {
+            return "";
+        }
+        int start = at + 4;
+        int end = stackTrace.indexOf('(', start);
+        int lineEnd = stackTrace.indexOf('\n', start);
+        if (end < 0 || (lineEnd >= 0 && lineEnd < end)) {
+            end = lineEnd >= 0 ? lineEnd : stackTrace.length();
+        }
+        return normalizeFrame(stackTrace.substring(start, end).trim());
+    }
+
+    /**
+     * Class.method with generated suffixes removed so proxies and lambdas don't split patterns
+     */
+    public static String normalizeFrame(String frame) {
+        frame = MODULE_PREFIX.matcher(frame).replaceFirst("");
+        return SYNTHETIC_SUFFIX.matcher(frame).replaceAll("");
+    }
+
+    /**
+     * 64-bit fingerprint of error type, message template and frame signature
+     */
+    public static long fingerprint(String errorType, String template, String frame) {
+        long hash = FNV_OFFSET;
+        hash = mix(hash, errorType);
+        hash = mix(hash, template);
+        return mix(hash, frame);
+    }
+
+    static long mix(long hash, String value) {
+        for (byte b : (value != null ? value : "").getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        // Field separator so ("ab", "c") and ("a", "bc") differ
+        hash ^= 0xff;
+        return hash * FNV_PRIME;
+    }
+}
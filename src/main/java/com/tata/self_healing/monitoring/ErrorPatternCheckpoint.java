@@ -0,0 +1,280 @@
+package com.tata.self_healing.monitoring;
+
+import com.tata.self_healing.exception.FileOperationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Binary checkpoint of error pattern detection state: the fingerprint sketch, the heavy-hitter
+ * set and, per tracked pattern, its identity, exact total, windowed bucket counts and latest
+ * occurrence. Written to a temporary file and moved into place; read back through a mapping.
+ * Messages can carry user data such as emails, so the latest occurrence is stored redacted: its
+ * message as a template and its stack trace with the exception lines templated.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header    magic:int version:int checkpointMillis:long bucketMillis:long
+ *   sketch    depth:int width:int total:long counters:(depth x width) long
+ *   topK      count:int count x [key:long estimate:long seen:long]
+ *   patterns  count:int count x [fingerprint:long errorType:str template:str topFrame:str total:long
+ *                                buckets:int buckets x count:long hasLatest:byte
+ *                                [message:str stackTrace:str correlationId:str timestamp:long]]
+ * </pre>
+ * Strings are an int byte length (-1 for null) followed by UTF-8 bytes. Window buckets are
+ * oldest first, the last one being the bucket containing checkpointMillis.
+ */
+public class ErrorPatternCheckpoint {
+    private static final Logger logger = LoggerFactory.getLogger(ErrorPatternCheckpoint.class);
+
+    private static final int MAGIC = 0x45505443; // "EPTC"
+    private static final int VERSION = 1;
+
+    private final long checkpointMillis;
+    private final long bucketMillis;
+    private final int sketchDepth;
+    private final int sketchWidth;
+    private final long sketchTotal;
+    private final long[] sketchCounters;
+    private final List<SpaceSavingTopK.Entry> heavyHitters;
+    private final List<PatternState> patterns;
+
+    public ErrorPatternCheckpoint(long checkpointMillis, long bucketMillis, int sketchDepth, int sketchWidth,
+                                  long sketchTotal, long[] sketchCounters, List<SpaceSavingTopK.Entry> heavyHitters,
+                                  List<PatternState> patterns) {
+        this.checkpointMillis = checkpointMillis;
+        this.bucketMillis = bucketMillis;
+        this.sketchDepth = sketchDepth;
+        this.sketchWidth = sketchWidth;
+        this.sketchTotal = sketchTotal;
+        this.sketchCounters = sketchCounters;
+        this.heavyHitters = heavyHitters;
+        this.patterns = patterns;
+    }
+
+    /**
+     * Write the checkpoint, replacing the target atomically
+     */
+    public void write(Path target) {
+        Path tempPath = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(checkpointMillis);
+                out.writeLong(bucketMillis);
+
+                out.writeInt(sketchDepth);
+                out.writeInt(sketchWidth);
+                out.writeLong(sketchTotal);
+                for (long counter : sketchCounters) {
+                    out.writeLong(counter);
+                }
+
+                out.writeInt(heavyHitters.size());
+                for (SpaceSavingTopK.Entry entry : heavyHitters) {
+                    out.writeLong(entry.getKey());
+                    out.writeLong(entry.getEstimate());
+                    out.writeLong(entry.getSeen());
+                }
+
+                out.writeInt(patterns.size());
+                for (PatternState pattern : patterns) {
+                    writePattern(out, pattern);
+                }
+            }
+            Files.move(tempPath, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Wrote error pattern checkpoint with {} patterns", patterns.size());
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException cleanupException) {
+                logger.warn("Failed to clean up temporary checkpoint file", cleanupException);
+            }
+            logger.error("Error writing error pattern checkpoint", e);
+            throw new FileOperationException("Error writing error pattern checkpoint", e);
+        }
+    }
+
+    /**
+     * Map and decode a checkpoint file
+     */
+    public static ErrorPatternCheckpoint read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new FileOperationException("Unrecognized error pattern checkpoint format", null);
+            }
+            long checkpointMillis = buffer.getLong();
+            long bucketMillis = buffer.getLong();
+
+            int depth = buffer.getInt();
+            int width = buffer.getInt();
+            long total = buffer.getLong();
+            if ((long) depth * width * Long.BYTES > buffer.remaining()) {
+                throw new FileOperationException("Truncated error pattern checkpoint", null);
+            }
+            long[] counters = new long[depth * width];
+            buffer.asLongBuffer().get(counters);
+            buffer.position(buffer.position() + counters.length * Long.BYTES);
+
+            int heavyHitterCount = buffer.getInt();
+            List<SpaceSavingTopK.Entry> heavyHitters = new ArrayList<>(heavyHitterCount);
+            for (int i = 0; i < heavyHitterCount; i++) {
+                heavyHitters.add(new SpaceSavingTopK.Entry(buffer.getLong(), buffer.getLong(), buffer.getLong()));
+            }
+
+            int patternCount = buffer.getInt();
+            List<PatternState> patterns = new ArrayList<>(patternCount);
+            for (int i = 0; i < patternCount; i++) {
+                patterns.add(readPattern(buffer));
+            }
+
+            return new ErrorPatternCheckpoint(checkpointMillis, bucketMillis, depth, width, total, counters,
+                    heavyHitters, patterns);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            logger.error("Error reading error pattern checkpoint", e);
+            throw new FileOperationException("Error reading error pattern checkpoint", e);
+        }
+    }
+
+    private static void writePattern(DataOutputStream out, PatternState pattern) throws IOException {
+        out.writeLong(pattern.fingerprint);
+        writeString(out, pattern.errorType);
+        writeString(out, pattern.template);
+        writeString(out, pattern.topFrame);
+        out.writeLong(pattern.totalOccurrences);
+        out.writeInt(pattern.bucketCounts.length);
+        for (long count : pattern.bucketCounts) {
+            out.writeLong(count);
+        }
+
+        ErrorPatternDetector.ErrorOccurrence latest = pattern.latestOccurrence;
+        out.writeBoolean(latest != null);
+        if (latest != null) {
+            writeString(out, latest.getErrorMessage() != null ? ErrorFingerprinter.template(latest.getErrorMessage()) : null);
+            writeString(out, redactStackTrace(latest.getStackTrace()));
+            writeString(out, latest.getCorrelationId());
+            out.writeLong(latest.getTimestampMillis());
+        }
+    }
+
+    private static PatternState readPattern(ByteBuffer buffer) {
+        long fingerprint = buffer.getLong();
+        String errorType = readString(buffer);
+        String template = readString(buffer);
+        String topFrame = readString(buffer);
+        long total = buffer.getLong();
+        long[] bucketCounts = new long[buffer.getInt()];
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = buffer.getLong();
+        }
+
+        ErrorPatternDetector.ErrorOccurrence latest = null;
+        if (buffer.get() != 0) {
+            String message = readString(buffer);
+            String stackTrace = readString(buffer);
+            String correlationId = readString(buffer);
+            latest = new ErrorPatternDetector.ErrorOccurrence(errorType, message,
+                    CapturedStackTrace.ofText(stackTrace), correlationId, buffer.getLong());
+        }
+        return new PatternState(fingerprint, errorType, template, topFrame, total, bucketCounts, latest);
+    }
+
+    /**
+     * Stack trace with variable tokens masked on its exception and "Caused by" lines; frames are kept
+     */
+    static String redactStackTrace(String stackTrace) {
+        if (stackTrace == null) {
+            return null;
+        }
+        return Arrays.stream(stackTrace.split("\n", -1))
+                .map(line -> line.startsWith("\t") ? line : ErrorFingerprinter.template(line))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Getters
+    public long getCheckpointMillis() { return checkpointMillis; }
+    public long getBucketMillis() { return bucketMillis; }
+    public int getSketchDepth() { return sketchDepth; }
+    public int getSketchWidth() { return sketchWidth; }
+    public long getSketchTotal() { return sketchTotal; }
+    public long[] getSketchCounters() { return sketchCounters; }
+    public List<SpaceSavingTopK.Entry> getHeavyHitters() { return heavyHitters; }
+    public List<PatternState> getPatterns() { return patterns; }
+
+    /**
+     * Persisted state of one tracked pattern
+     */
+    public static class PatternState {
+        private final long fingerprint;
+        private final String errorType;
+        private final String template;
+        private final String topFrame;
+        private final long totalOccurrences;
+        private final long[] bucketCounts;
+        private final ErrorPatternDetector.ErrorOccurrence latestOccurrence;
+
+        public PatternState(long fingerprint, String errorType, String template, String topFrame,
+                            long totalOccurrences, long[] bucketCounts,
+                            ErrorPatternDetector.ErrorOccurrence latestOccurrence) {
+            this.fingerprint = fingerprint;
+            this.errorType = errorType;
+            this.template = template;
+            this.topFrame = topFrame;
+            this.totalOccurrences = totalOccurrences;
+            this.bucketCounts = bucketCounts;
+            this.latestOccurrence = latestOccurrence;
+        }
+
+        // Getters
+        public long getFingerprint() { return fingerprint; }
+        public String getErrorType() { return errorType; }
+        public String getTemplate() { return template; }
+        public String getTopFrame() { return topFrame; }
+        public long getTotalOccurrences() { return totalOccurrences; }
+        public long[] getBucketCounts() { return bucketCounts; }
+        public ErrorPatternDetector.ErrorOccurrence getLatestOccurrence() { return latestOccurrence; }
+    }
+}
@@ -1,16 +1,29 @@
 package com.tata.self_healing.monitoring;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tata.self_healing.exception.FileOperationException;
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Detects error patterns and anomalies for self-healing analysis
@@ -20,14 +33,93 @@ public class ErrorPatternDetector {
     
     private static final Logger logger = LoggerFactory.getLogger(ErrorPatternDetector.class);
     
-    // Error pattern tracking
-    private final Map<String, ErrorPattern> errorPatterns = new ConcurrentHashMap<>();
-    private final Map<String, AtomicInteger> recentErrors = new ConcurrentHashMap<>();
+    // Error pattern tracking, keyed by fingerprint; only top-K heavy hitters get a pattern
+    private final Map<Long, ErrorPattern> errorPatterns = new ConcurrentHashMap<>();
     
-    // Thresholds for pattern detection
-    private static final int ERROR_THRESHOLD_COUNT = 5;
-    private static final int ERROR_THRESHOLD_MINUTES = 10;
+    // Threshold for request error rate insights
     private static final double ERROR_RATE_THRESHOLD = 0.1; // 10% error rate
+
+    // Most recent occurrences retained per pattern; totals are counted exactly regardless
+    @Value("${self-healing.monitoring.occurrence-buffer-size:100}")
+    private int occurrenceBufferSize;
+
+    // Sliding window used for per-pattern counts: bucket-count buckets of bucket-seconds each
+    @Value("${self-healing.monitoring.window.bucket-count:60}")
+    private int windowBucketCount;
+
+    @Value("${self-healing.monitoring.window.bucket-seconds:10}")
+    private int windowBucketSeconds;
+
+    // Errors are published to a bounded queue and folded into pattern state by one consumer thread
+    @Value("${self-healing.monitoring.ingestion.async:true}")
+    private boolean asyncIngestion;
+
+    @Value("${self-healing.monitoring.ingestion.queue-capacity:8192}")
+    private int ingestionQueueCapacity;
+
+    private MpscRingBuffer<ErrorOccurrence> ingestionQueue;
+    // Slow and failing requests reach the correlation miner through the same consumer thread
+    private MpscRingBuffer<RouteSignal> routeSignalQueue;
+    private Thread ingestionThread;
+    private volatile boolean ingesting;
+    // Set while the ingestion thread is (about to be) parked on an empty queue
+    private volatile boolean ingestionParked;
+    private Counter droppedErrors;
+    private Counter droppedRouteSignals;
+
+    // Identical stack traces share one frame array; the least recently seen traces are evicted.
+    // Only used under the heavyHitters lock, i.e. by the ingestion thread when ingestion is async
+    private static final int MAX_DISTINCT_STACK_TRACES = 1024;
+    private final StackTraceInterner stackTraces = new StackTraceInterner(MAX_DISTINCT_STACK_TRACES);
+
+    // Fixed-size frequency tier in front of the pattern map: every fingerprint is counted in the
+    // sketch, but full ErrorPattern state is only kept for the top-K fingerprints
+    @Value("${self-healing.monitoring.top-k:100}")
+    private int topK;
+
+    @Value("${self-healing.monitoring.sketch.depth:4}")
+    private int sketchDepth;
+
+    @Value("${self-healing.monitoring.sketch.width:2048}")
+    private int sketchWidth;
+
+    private CountMinSketch fingerprintSketch;
+    private SpaceSavingTopK heavyHitters;
+    private final AtomicLong untrackedErrors = new AtomicLong();
+    
+    // Statistical model deciding when a pattern's rate is anomalous (threshold | ewma | zscore | seasonal)
+    @Value("${self-healing.monitoring.anomaly.detector:ewma}")
+    private String anomalyDetectorName;
+    
+    @Autowired
+    private List<AnomalyDetector> anomalyDetectors;
+    
+    private AnomalyDetector anomalyDetector;
+    
+    // Incremental analysis: only patterns touched since the last analysis (plus those still anomalous,
+    // which can cool down without new occurrences) are re-evaluated. Route error rates are cheap to
+    // compute but change with every request, so they are refreshed at most once per interval.
+    private static final long RATE_REFRESH_MILLIS = 1000;
+    private final Set<Long> dirtyPatterns = ConcurrentHashMap.newKeySet();
+    private final Object analysisLock = new Object();
+    private final Map<Long, ErrorInsight> patternInsights = new LinkedHashMap<>(); // Guarded by analysisLock
+    private List<ErrorInsight> rateInsights = List.of(); // Guarded by analysisLock
+    private long rateInsightsRefreshedAt; // Guarded by analysisLock
+    // Seeded from the clock so versions are not reused across restarts
+    private final AtomicLong insightVersion = new AtomicLong(System.currentTimeMillis());
+    private volatile InsightSnapshot insightSnapshot = new InsightSnapshot(insightVersion.get(), List.of(), 0);
+    
+    // Pattern state is checkpointed periodically and on shutdown, and restored on startup
+    @Value("${self-healing.monitoring.checkpoint.enabled:false}")
+    private boolean checkpointEnabled;
+    
+    @Value("${self-healing.monitoring.checkpoint.path:./data/error-patterns.bin}")
+    private String checkpointPath;
+    
+    @Value("${self-healing.monitoring.checkpoint.interval-seconds:30}")
+    private int checkpointIntervalSeconds;
+    
+    private ScheduledExecutorService checkpointScheduler;
     
     @Autowired
     private MetricsCollector metricsCollector;
@@ -35,48 +127,390 @@ public class ErrorPatternDetector {
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private ErrorRateTracker errorRateTracker;
+    
+    @Autowired
+    private CorrelationMiner correlationMiner;
+    
+    @PostConstruct
+    void initialize() {
+        fingerprintSketch = new CountMinSketch(sketchDepth, sketchWidth);
+        heavyHitters = new SpaceSavingTopK(topK);
+        anomalyDetector = selectAnomalyDetector();
+        if (checkpointEnabled) {
+            restoreCheckpoint();
+            startCheckpointing();
+        }
+        startIngestion();
+    }
+    
+    private AnomalyDetector selectAnomalyDetector() {
+        AnomalyDetector fallback = null;
+        for (AnomalyDetector detector : anomalyDetectors) {
+            if (detector.getName().equalsIgnoreCase(anomalyDetectorName)) {
+                logger.info("Using {} anomaly detector for error patterns", detector.getName());
+                return detector;
+            }
+            if (detector instanceof ThresholdAnomalyDetector) {
+                fallback = detector;
+            }
+        }
+        logger.warn("Unknown anomaly detector '{}', falling back to threshold", anomalyDetectorName);
+        return fallback;
+    }
+    
+    private void startIngestion() {
+        if (!asyncIngestion) {
+            return;
+        }
+        ingestionQueue = new MpscRingBuffer<>(ingestionQueueCapacity);
+        droppedErrors = metricsCollector.counter("self_healing.error_ingestion.dropped",
+                "Errors dropped because the ingestion queue was full");
+        metricsCollector.registerGauge("self_healing.error_ingestion.queue_depth",
+                "Errors waiting to be folded into pattern state", ingestionQueue, MpscRingBuffer::size);
+        routeSignalQueue = new MpscRingBuffer<>(ingestionQueueCapacity);
+        droppedRouteSignals = metricsCollector.counter("self_healing.route_signals.dropped",
+                "Slow or failing requests not correlated because the ingestion queue was full");
+
+        ingesting = true;
+        ingestionThread = new Thread(this::runIngestionLoop, "error-ingestion");
+        ingestionThread.setDaemon(true);
+        ingestionThread.start();
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        stopIngestion();
+        if (checkpointScheduler != null) {
+            checkpointScheduler.shutdown();
+            try {
+                checkpointScheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Final checkpoint once everything queued has been folded in
+            writeCheckpoint();
+        }
+    }
+    
+    private void stopIngestion() {
+        if (ingestionThread == null) {
+            return;
+        }
+        ingesting = false;
+        LockSupport.unpark(ingestionThread);
+        try {
+            ingestionThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void startCheckpointing() {
+        checkpointScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "error-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointScheduler.scheduleWithFixedDelay(this::writeCheckpoint,
+                checkpointIntervalSeconds, checkpointIntervalSeconds, TimeUnit.SECONDS);
+    }
+    
     /**
-     * Record an error occurrence for pattern analysis
+     * Write sketch, heavy hitters and per-pattern counts to the checkpoint file
+     */
+    void writeCheckpoint() {
+        try {
+            long now = System.currentTimeMillis();
+            long[] sketchCounters;
+            long sketchTotal;
+            List<SpaceSavingTopK.Entry> tracked;
+            synchronized (heavyHitters) {
+                sketchCounters = fingerprintSketch.counters();
+                sketchTotal = fingerprintSketch.getTotal();
+                tracked = heavyHitters.snapshot();
+            }
+            
+            List<ErrorPatternCheckpoint.PatternState> patterns = new ArrayList<>(errorPatterns.size());
+            for (ErrorPattern pattern : errorPatterns.values()) {
+                patterns.add(new ErrorPatternCheckpoint.PatternState(pattern.getFingerprint(), pattern.getErrorType(),
+                        pattern.getErrorMessage(), pattern.getTopFrame(), pattern.getTotalOccurrences(),
+                        pattern.getWindow().toArray(now), pattern.getLatestOccurrence()));
+            }
+            
+            new ErrorPatternCheckpoint(now, windowBucketSeconds * 1000L, fingerprintSketch.getDepth(),
+                    fingerprintSketch.getWidth(), sketchTotal, sketchCounters, tracked, patterns)
+                    .write(Paths.get(checkpointPath));
+        } catch (FileOperationException e) {
+            logger.warn("Skipping error pattern checkpoint: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Reload the last checkpoint, if any. Windowed counts are replayed at their original times,
+     * so patterns that were anomalous before a restart are anomalous again immediately.
+     */
+    private void restoreCheckpoint() {
+        Path path = Paths.get(checkpointPath);
+        if (!Files.exists(path)) {
+            return;
+        }
+        ErrorPatternCheckpoint checkpoint;
+        try {
+            checkpoint = ErrorPatternCheckpoint.read(path);
+        } catch (FileOperationException e) {
+            logger.warn("Ignoring unreadable error pattern checkpoint: {}", e.getMessage());
+            return;
+        }
+        
+        heavyHitters.restore(checkpoint.getHeavyHitters());
+        boolean sketchRestored = checkpoint.getSketchDepth() == fingerprintSketch.getDepth()
+                && checkpoint.getSketchWidth() == fingerprintSketch.getWidth();
+        if (sketchRestored) {
+            fingerprintSketch.restore(checkpoint.getSketchTotal(), checkpoint.getSketchCounters());
+        }
+        
+        long now = System.currentTimeMillis();
+        for (ErrorPatternCheckpoint.PatternState state : checkpoint.getPatterns()) {
+            if (!heavyHitters.contains(state.getFingerprint())) {
+                continue; // Fell out of a smaller top-K
+            }
+            if (!sketchRestored) {
+                // Resized sketch: seed it with the exact totals of tracked patterns
+                fingerprintSketch.add(state.getFingerprint(), state.getTotalOccurrences());
+            }
+            ErrorPattern pattern = newPattern(state.getErrorType(), state.getTemplate(), state.getTopFrame(),
+                    state.getFingerprint());
+            pattern.restore(state.getTotalOccurrences(), state.getBucketCounts(), checkpoint.getBucketMillis(),
+                    checkpoint.getCheckpointMillis(), state.getLatestOccurrence());
+            checkForAnomalies(pattern, now);
+            errorPatterns.put(state.getFingerprint(), pattern);
+            dirtyPatterns.add(state.getFingerprint());
+        }
+        
+        logger.info("Restored {} error patterns from checkpoint taken {} ms ago",
+                errorPatterns.size(), now - checkpoint.getCheckpointMillis());
+    }
+    
+    /**
+     * Record an error occurrence for pattern analysis with an already rendered stack trace
      */
     public void recordError(String errorType, String errorMessage, String stackTrace, String correlationId) {
+        recordError(errorType, errorMessage, CapturedStackTrace.ofText(stackTrace), correlationId);
+    }
+    
+    /**
+     * Record an exception for pattern analysis. Only its top frames are captured; the trace
+     * is rendered to text later, and only if something asks for it.
+     */
+    public void recordError(String errorType, String errorMessage, Throwable exception, String correlationId) {
+        recordError(errorType, errorMessage, CapturedStackTrace.capture(exception), correlationId);
+    }
+    
+    /**
+     * With async ingestion this only publishes to the queue (waking the ingestion thread if it is
+     * idle); when the queue is full the error is dropped and counted.
+     */
+    private void recordError(String errorType, String errorMessage, CapturedStackTrace stackTrace, String correlationId) {
         ErrorOccurrence occurrence = new ErrorOccurrence(
-                errorType, errorMessage, stackTrace, correlationId, LocalDateTime.now()
+                errorType, errorMessage, stackTrace, correlationId, System.currentTimeMillis()
         );
         
-        // Update error patterns
-        String patternKey = generatePatternKey(errorType, errorMessage);
-        ErrorPattern pattern = errorPatterns.computeIfAbsent(patternKey, 
-                k -> new ErrorPattern(errorType, errorMessage));
+        if (ingestionQueue == null) {
+            ingest(occurrence);
+        } else if (!ingestionQueue.offer(occurrence)) {
+            droppedErrors.increment();
+        } else if (ingestionParked) {
+            LockSupport.unpark(ingestionThread);
+        }
+    }
+    
+    /**
+     * Record a completed request for signal correlation. Only slow or failing requests are signals;
+     * with async ingestion they are published like errors and dropped (and counted) when the queue is full.
+     */
+    public void recordRequest(String route, int status, long durationMillis) {
+        if (route == null || !correlationMiner.isSignal(status, durationMillis)) {
+            return;
+        }
+        RouteSignal signal = new RouteSignal(route, status, durationMillis, System.currentTimeMillis());
+        
+        if (routeSignalQueue == null) {
+            ingestRouteSignal(signal);
+        } else if (!routeSignalQueue.offer(signal)) {
+            droppedRouteSignals.increment();
+        } else if (ingestionParked) {
+            LockSupport.unpark(ingestionThread);
+        }
+    }
+    
+    private void runIngestionLoop() {
+        while (ingesting) {
+            int drained = ingestionQueue.drain(this::safeIngest, 1024)
+                    + routeSignalQueue.drain(this::ingestRouteSignal, 1024);
+            if (drained == 0) {
+                // Idle: sleep until a producer or shutdown unparks us. The flag is raised before the
+                // queues are checked again, so anything published in between is either seen here or
+                // its producer sees the flag and unparks.
+                ingestionParked = true;
+                if (ingesting && ingestionQueue.isEmpty() && routeSignalQueue.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                ingestionParked = false;
+            }
+        }
+        // Fold in whatever was published before shutdown
+        ingestionQueue.drain(this::safeIngest, Integer.MAX_VALUE);
+        routeSignalQueue.drain(this::ingestRouteSignal, Integer.MAX_VALUE);
+    }
+    
+    private void ingestRouteSignal(RouteSignal signal) {
+        correlationMiner.recordRequest(signal.route, signal.status, signal.durationMillis, signal.timestampMillis);
+    }
+    
+    private void safeIngest(ErrorOccurrence occurrence) {
+        try {
+            ingest(occurrence);
+        } catch (RuntimeException e) {
+            logger.error("Failed to ingest error occurrence: type={}", occurrence.getErrorType(), e);
+        }
+    }
+    
+    /**
+     * Fold one occurrence into pattern state; runs on the ingestion thread (or the caller when async is off)
+     */
+    private void ingest(ErrorOccurrence occurrence) {
+        String errorType = occurrence.getErrorType();
+        String errorMessage = occurrence.getErrorMessage();
+        String correlationId = occurrence.getCorrelationId();
+        
+        // Group by message template and top frame rather than the raw message
+        String template = ErrorFingerprinter.template(errorMessage);
+        String topFrame = occurrence.getCapturedStackTrace().topFrame();
+        long fingerprint = ErrorFingerprinter.fingerprint(errorType, template, topFrame);
+        String patternKey = generatePatternKey(errorType, fingerprint);
+        long now = occurrence.getTimestampMillis();
         
-        pattern.addOccurrence(occurrence);
+        // Update windowed error counts by type
+        errorRateTracker.recordError(errorType, now);
         
-        // Check for anomalies
-        checkForAnomalies(pattern);
+        ErrorPattern pattern;
+        synchronized (heavyHitters) {
+            long estimate = fingerprintSketch.add(fingerprint, 1);
+            if (!heavyHitters.offer(fingerprint, estimate, this::evictPattern)) {
+                // Not frequent enough to displace a tracked pattern: counted in the sketch only
+                untrackedErrors.incrementAndGet();
+                logger.debug("Error counted without pattern: type={}, pattern={}, estimate={}",
+                        errorType, patternKey, estimate);
+                return;
+            }
+            pattern = errorPatterns.computeIfAbsent(fingerprint, 
+                    k -> newPattern(errorType, template, topFrame, fingerprint));
+            // Only retained occurrences are worth sharing frames for
+            occurrence = occurrence.withCapturedStackTrace(stackTraces.intern(occurrence.getCapturedStackTrace()));
+        }
+        
+        pattern.addOccurrence(occurrence, now);
+        dirtyPatterns.add(fingerprint);
+        correlationMiner.recordPattern(patternKey, now);
         
-        // Update recent error counts
-        updateRecentErrorCounts(errorType);
+        // Check for anomalies
+        checkForAnomalies(pattern, now);
         
         logger.info("Error recorded for pattern analysis: type={}, pattern={}, correlationId={}", 
                 errorType, patternKey, correlationId);
     }
     
+    private void evictPattern(long fingerprint) {
+        ErrorPattern evicted = errorPatterns.remove(fingerprint);
+        if (evicted != null) {
+            correlationMiner.forgetPattern(generatePatternKey(evicted.getErrorType(), fingerprint));
+        }
+        dirtyPatterns.add(fingerprint);
+    }
+    
     /**
-     * Analyze current error patterns and return insights
+     * Analyze current error patterns and return insights. The list is shared between callers
+     * and must not be modified.
      */
     public List<ErrorInsight> analyzePatterns() {
-        List<ErrorInsight> insights = new ArrayList<>();
-        
-        for (ErrorPattern pattern : errorPatterns.values()) {
-            if (pattern.isAnomalous()) {
-                ErrorInsight insight = generateInsight(pattern);
-                insights.add(insight);
+        return getInsightSnapshot().getInsights();
+    }
+    
+    /**
+     * Bring the insight snapshot up to date and return it. Work is proportional to the patterns
+     * changed since the last call; when nothing changed the same snapshot (and version) is returned.
+     */
+    public InsightSnapshot getInsightSnapshot() {
+        long now = System.currentTimeMillis();
+        synchronized (analysisLock) {
+            boolean changed = false;
+            
+            // Re-evaluate anomalous patterns so those that have gone quiet drop out once their window cools down
+            Iterator<Map.Entry<Long, ErrorInsight>> anomalous = patternInsights.entrySet().iterator();
+            while (anomalous.hasNext()) {
+                ErrorPattern pattern = errorPatterns.get(anomalous.next().getKey());
+                if (pattern == null || !checkForAnomalies(pattern, now)) {
+                    anomalous.remove();
+                    changed = true;
+                }
+            }
+            
+            // Patterns with new occurrences (or evicted) since the last analysis
+            Iterator<Long> dirty = dirtyPatterns.iterator();
+            while (dirty.hasNext()) {
+                long fingerprint = dirty.next();
+                dirty.remove();
+                changed |= refreshPatternInsight(fingerprint, now);
+            }
+            
+            // Check for high error rates
+            if (now - rateInsightsRefreshedAt >= RATE_REFRESH_MILLIS) {
+                List<ErrorInsight> rates = new ArrayList<>();
+                checkErrorRates(rates);
+                rateInsightsRefreshedAt = now;
+                if (!sameInsights(rates, rateInsights)) {
+                    rateInsights = rates;
+                    changed = true;
+                }
             }
+            
+            if (changed) {
+                List<ErrorInsight> insights = new ArrayList<>(patternInsights.size() + rateInsights.size());
+                insights.addAll(patternInsights.values());
+                insights.addAll(rateInsights);
+                insightSnapshot = new InsightSnapshot(insightVersion.incrementAndGet(), insights, patternInsights.size());
+            }
+            return insightSnapshot;
         }
-        
-        // Check for high error rates
-        checkErrorRates(insights);
-        
-        return insights;
+    }
+    
+    /**
+     * Regenerate or drop one pattern's insight; returns whether the published insights changed
+     */
+    private boolean refreshPatternInsight(long fingerprint, long now) {
+        ErrorPattern pattern = errorPatterns.get(fingerprint);
+        if (pattern != null && checkForAnomalies(pattern, now)) {
+            patternInsights.put(fingerprint, generateInsight(pattern, now));
+            return true;
+        }
+        return patternInsights.remove(fingerprint) != null;
+    }
+    
+    private static boolean sameInsights(List<ErrorInsight> a, List<ErrorInsight> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            ErrorInsight x = a.get(i);
+            ErrorInsight y = b.get(i);
+            if (!x.getType().equals(y.getType()) || !x.getSeverity().equals(y.getSeverity())
+                    || !x.getMessage().equals(y.getMessage()) || x.getOccurrenceCount() != y.getOccurrenceCount()) {
+                return false;
+            }
+        }
+        return true;
     }
     
     /**
@@ -86,77 +520,105 @@ public class ErrorPatternDetector {
         ErrorStatistics stats = new ErrorStatistics();
         
         stats.setTotalPatterns(errorPatterns.size());
-        stats.setAnomalousPatterns((int) errorPatterns.values().stream()
-                .filter(ErrorPattern::isAnomalous).count());
+        stats.setAnomalousPatterns(getInsightSnapshot().getAnomalousPatternCount());
+        stats.setTotalErrors(fingerprintSketch.getTotal());
+        
+        // Pattern counts are exact from the moment a fingerprint entered the top K; before that,
+        // and for untracked fingerprints, counts come from the sketch with this bound
+        stats.setTrackedPatternCapacity(heavyHitters.getCapacity());
+        stats.setUntrackedErrors(untrackedErrors.get());
+        stats.setCountErrorBound(fingerprintSketch.getErrorBound());
+        stats.setCountErrorConfidence(fingerprintSketch.getConfidence());
         
-        // Calculate error rates by type
-        Map<String, Integer> errorsByType = new HashMap<>();
-        for (String errorType : recentErrors.keySet()) {
-            errorsByType.put(errorType, recentErrors.get(errorType).get());
+        // Windowed error counts by type and the overall request-relative error rate
+        stats.setErrorsByType(errorRateTracker.getErrorsByType());
+        stats.setErrorRate(errorRateTracker.getOverallErrorRate().getErrorRate());
+        if (ingestionQueue != null) {
+            stats.setIngestionQueueDepth(ingestionQueue.size());
+            stats.setDroppedErrors((long) droppedErrors.count());
         }
-        stats.setErrorsByType(errorsByType);
         
         return stats;
     }
     
-    private void checkForAnomalies(ErrorPattern pattern) {
-        LocalDateTime cutoff = LocalDateTime.now().minus(ERROR_THRESHOLD_MINUTES, ChronoUnit.MINUTES);
-        long recentOccurrences = pattern.getOccurrences().stream()
-                .filter(occ -> occ.getTimestamp().isAfter(cutoff))
-                .count();
-        
-        if (recentOccurrences >= ERROR_THRESHOLD_COUNT) {
-            pattern.setAnomalous(true);
-            logger.warn("Anomalous error pattern detected: {} with {} occurrences in last {} minutes", 
-                    pattern.getErrorType(), recentOccurrences, ERROR_THRESHOLD_MINUTES);
-        }
-    }
-    
-    private void updateRecentErrorCounts(String errorType) {
-        recentErrors.computeIfAbsent(errorType, k -> new AtomicInteger(0)).incrementAndGet();
+    /**
+     * Update the pattern's anomalous flag from the configured anomaly detector; returns the new flag
+     */
+    private boolean checkForAnomalies(ErrorPattern pattern, long now) {
+        boolean anomalous = pattern.getAnomalyState().isAnomalous(now);
+        boolean wasAnomalous = pattern.isAnomalous();
+        pattern.setAnomalous(anomalous);
         
-        // Clean up old counts periodically (simplified approach)
-        if (recentErrors.size() > 100) {
-            recentErrors.clear();
+        if (anomalous != wasAnomalous) {
+            // Report over the window the detector actually judges
+            long windowMillis = anomalyDetector.getWindowMillis();
+            long recentOccurrences = pattern.getRecentOccurrences(now, windowMillis);
+            long windowSeconds = TimeUnit.MILLISECONDS.toSeconds(windowMillis);
+            double score = pattern.getAnomalyState().score(now);
+            if (anomalous) {
+                logger.warn("Anomalous error pattern detected: {} with {} occurrences in last {} seconds ({} score {})", 
+                        pattern.getErrorType(), recentOccurrences, windowSeconds, anomalyDetector.getName(), score);
+            } else {
+                logger.info("Error pattern cooled down: {} with {} occurrences in last {} seconds ({} score {})",
+                        pattern.getErrorType(), recentOccurrences, windowSeconds, anomalyDetector.getName(), score);
+            }
         }
+        return anomalous;
     }
     
     private void checkErrorRates(List<ErrorInsight> insights) {
-        // This would typically compare against total request count
-        // For now, we'll use a simplified approach
-        int totalErrors = recentErrors.values().stream()
-                .mapToInt(AtomicInteger::get)
-                .sum();
-        
-        if (totalErrors > ERROR_THRESHOLD_COUNT * 2) {
+        // True ratios of failed to total requests over the window, overall and per route
+        for (ErrorRateTracker.RouteErrorRate rate : errorRateTracker.findHighErrorRates(ERROR_RATE_THRESHOLD)) {
+            String scope = ErrorRateTracker.ALL_ROUTES.equals(rate.getRoute()) ? "all routes" : rate.getRoute();
             ErrorInsight highErrorRate = new ErrorInsight();
             highErrorRate.setType("HIGH_ERROR_RATE");
-            highErrorRate.setSeverity("HIGH");
-            highErrorRate.setMessage("High error rate detected: " + totalErrors + " errors recently");
+            highErrorRate.setPatternId("HIGH_ERROR_RATE:" + rate.getRoute());
+            highErrorRate.setSeverity(rate.getServerErrors() > 0 ? "HIGH" : "MEDIUM");
+            highErrorRate.setMessage(String.format(
+                    "High error rate on %s: %.1f%% (%d of %d requests, %d 4xx, %d 5xx) in last %d seconds",
+                    scope, rate.getErrorRate() * 100, rate.getErrors(), rate.getRequests(),
+                    rate.getClientErrors(), rate.getServerErrors(), errorRateTracker.getWindowSeconds()));
+            highErrorRate.setOccurrenceCount((int) Math.min(rate.getErrors(), Integer.MAX_VALUE));
             highErrorRate.setRecommendation("Investigate system health and consider scaling or restarting services");
             insights.add(highErrorRate);
         }
     }
     
-    private ErrorInsight generateInsight(ErrorPattern pattern) {
+    private ErrorInsight generateInsight(ErrorPattern pattern, long now) {
         ErrorInsight insight = new ErrorInsight();
         insight.setType(pattern.getErrorType());
-        insight.setSeverity(determineSeverity(pattern));
+        insight.setPatternId(generatePatternKey(pattern.getErrorType(), pattern.getFingerprint()));
+        insight.setSeverity(determineSeverity(pattern, now));
         insight.setMessage("Repeated error pattern detected: " + pattern.getErrorMessage());
-        insight.setOccurrenceCount(pattern.getOccurrences().size());
+        insight.setOccurrenceCount((int) Math.min(pattern.getTotalOccurrences(), Integer.MAX_VALUE));
         insight.setRecommendation(generateRecommendation(pattern));
         
+        // The sample trace is rendered here, not when the error was recorded
+        ErrorOccurrence latest = pattern.getLatestOccurrence();
+        if (latest != null) {
+            insight.setSampleStackTrace(latest.getStackTrace());
+        }
+        
         return insight;
     }
     
-    private String determineSeverity(ErrorPattern pattern) {
-        int occurrences = pattern.getOccurrences().size();
-        if (occurrences >= ERROR_THRESHOLD_COUNT * 3) return "CRITICAL";
-        if (occurrences >= ERROR_THRESHOLD_COUNT * 2) return "HIGH";
-        if (occurrences >= ERROR_THRESHOLD_COUNT) return "MEDIUM";
+    /**
+     * Grade the detector's current score in multiples of the score at which it flags a pattern
+     */
+    private String determineSeverity(ErrorPattern pattern, long now) {
+        double level = pattern.getAnomalyState().score(now) / anomalyDetector.getAnomalousScore();
+        if (level >= 3) return "CRITICAL";
+        if (level >= 2) return "HIGH";
+        if (level >= 1) return "MEDIUM";
         return "LOW";
     }
     
+    private ErrorPattern newPattern(String errorType, String template, String topFrame, long fingerprint) {
+        SlidingWindowCounter window = new SlidingWindowCounter(windowBucketCount, windowBucketSeconds * 1000L);
+        return new ErrorPattern(errorType, template, topFrame, fingerprint, occurrenceBufferSize,
+                window, anomalyDetector.newState(window));
+    }
+    
     private String generateRecommendation(ErrorPattern pattern) {
         String errorType = pattern.getErrorType();
         
@@ -174,68 +636,157 @@ public class ErrorPatternDetector {
         }
     }
     
-    private String generatePatternKey(String errorType, String errorMessage) {
-        return errorType + ":" + (errorMessage != null ? errorMessage.hashCode() : "null");
+    private String generatePatternKey(String errorType, long fingerprint) {
+        return errorType + ":" + Long.toHexString(fingerprint);
     }
     
     // Inner classes for data structures
     public static class ErrorOccurrence {
         private final String errorType;
         private final String errorMessage;
-        private final String stackTrace;
+        private final CapturedStackTrace stackTrace;
         private final String correlationId;
-        private final LocalDateTime timestamp;
+        private final long timestampMillis;
         
         public ErrorOccurrence(String errorType, String errorMessage, String stackTrace, 
                              String correlationId, LocalDateTime timestamp) {
+            this(errorType, errorMessage, CapturedStackTrace.ofText(stackTrace), correlationId,
+                    timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        
+        public ErrorOccurrence(String errorType, String errorMessage, CapturedStackTrace stackTrace, 
+                             String correlationId, long timestampMillis) {
             this.errorType = errorType;
             this.errorMessage = errorMessage;
             this.stackTrace = stackTrace;
             this.correlationId = correlationId;
-            this.timestamp = timestamp;
+            this.timestampMillis = timestampMillis;
+        }
+        
+        /**
+         * The same occurrence carrying an equivalent (interned) trace
+         */
+        ErrorOccurrence withCapturedStackTrace(CapturedStackTrace interned) {
+            return interned == stackTrace ? this
+                    : new ErrorOccurrence(errorType, errorMessage, interned, correlationId, timestampMillis);
         }
         
         // Getters
         public String getErrorType() { return errorType; }
         public String getErrorMessage() { return errorMessage; }
-        public String getStackTrace() { return stackTrace; }
+        public String getStackTrace() { return stackTrace.render(); }
+        public CapturedStackTrace getCapturedStackTrace() { return stackTrace; }
         public String getCorrelationId() { return correlationId; }
-        public LocalDateTime getTimestamp() { return timestamp; }
+        public long getTimestampMillis() { return timestampMillis; }
+        public LocalDateTime getTimestamp() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneId.systemDefault());
+        }
     }
     
     public static class ErrorPattern {
         private final String errorType;
+        // Message template with variable tokens masked, shared by every occurrence
         private final String errorMessage;
-        private final List<ErrorOccurrence> occurrences = new ArrayList<>();
-        private boolean anomalous = false;
+        private final String topFrame;
+        private final long fingerprint;
+        // Only the most recent occurrences are kept; the exact total is counted separately
+        private final BoundedRingBuffer<ErrorOccurrence> occurrences;
+        private final AtomicLong totalOccurrences = new AtomicLong();
+        private final SlidingWindowCounter window;
+        private final AnomalyDetector.State anomalyState;
+        private volatile boolean anomalous = false;
         
-        public ErrorPattern(String errorType, String errorMessage) {
+        public ErrorPattern(String errorType, String errorMessage, String topFrame, long fingerprint,
+                            int occurrenceCapacity, SlidingWindowCounter window, AnomalyDetector.State anomalyState) {
             this.errorType = errorType;
             this.errorMessage = errorMessage;
+            this.topFrame = topFrame;
+            this.fingerprint = fingerprint;
+            this.occurrences = new BoundedRingBuffer<>(occurrenceCapacity);
+            this.window = window;
+            this.anomalyState = anomalyState;
         }
         
-        public void addOccurrence(ErrorOccurrence occurrence) {
+        public void addOccurrence(ErrorOccurrence occurrence, long nowMillis) {
             occurrences.add(occurrence);
+            totalOccurrences.incrementAndGet();
+            window.increment(nowMillis);
+            anomalyState.record(nowMillis);
+        }
+        
+        /**
+         * Reload checkpointed counts: the exact total, and per-bucket window counts (oldest first,
+         * the last bucket containing checkpointMillis), which are replayed into the window and the
+         * anomaly state
+         */
+        void restore(long total, long[] bucketCounts, long bucketMillis, long checkpointMillis,
+                     ErrorOccurrence latestOccurrence) {
+            totalOccurrences.set(total);
+            for (int i = 0; i < bucketCounts.length; i++) {
+                if (bucketCounts[i] > 0) {
+                    long timestamp = checkpointMillis - (bucketCounts.length - 1 - i) * bucketMillis;
+                    window.add(timestamp, bucketCounts[i]);
+                    anomalyState.record(timestamp, bucketCounts[i]);
+                }
+            }
+            if (latestOccurrence != null) {
+                occurrences.add(latestOccurrence);
+            }
+        }
+        
+        /**
+         * Occurrences within the given duration before now, at bucket granularity
+         */
+        public long getRecentOccurrences(long nowMillis, long durationMillis) {
+            return window.sum(nowMillis, window.bucketsFor(durationMillis));
         }
         
         // Getters and setters
         public String getErrorType() { return errorType; }
         public String getErrorMessage() { return errorMessage; }
-        public List<ErrorOccurrence> getOccurrences() { return occurrences; }
+        public String getTopFrame() { return topFrame; }
+        public long getFingerprint() { return fingerprint; }
+        public List<ErrorOccurrence> getOccurrences() { return occurrences.snapshot(); }
+        public ErrorOccurrence getLatestOccurrence() { return occurrences.latest(); }
+        public long getTotalOccurrences() { return totalOccurrences.get(); }
+        public SlidingWindowCounter getWindow() { return window; }
+        public AnomalyDetector.State getAnomalyState() { return anomalyState; }
         public boolean isAnomalous() { return anomalous; }
         public void setAnomalous(boolean anomalous) { this.anomalous = anomalous; }
     }
     
+    /**
+     * A slow or failing request waiting for the ingestion thread
+     */
+    private static class RouteSignal {
+        private final String route;
+        private final int status;
+        private final long durationMillis;
+        private final long timestampMillis;
+        
+        RouteSignal(String route, int status, long durationMillis, long timestampMillis) {
+            this.route = route;
+            this.status = status;
+            this.durationMillis = durationMillis;
+            this.timestampMillis = timestampMillis;
+        }
+    }
+    
     public static class ErrorInsight {
         private String type;
+        // Which pattern (or route, for error rates) the insight is about; stable while the message changes
+        private String patternId;
         private String severity;
         private String message;
         private int occurrenceCount;
         private String recommendation;
+        private String sampleStackTrace;
         
         // Getters and setters
         public String getType() { return type; }
         public void setType(String type) { this.type = type; }
+        public String getPatternId() { return patternId; }
+        public void setPatternId(String patternId) { this.patternId = patternId; }
         public String getSeverity() { return severity; }
         public void setSeverity(String severity) { this.severity = severity; }
         public String getMessage() { return message; }
@@ -244,11 +795,44 @@ public class ErrorPatternDetector {
         public void setOccurrenceCount(int occurrenceCount) { this.occurrenceCount = occurrenceCount; }
         public String getRecommendation() { return recommendation; }
         public void setRecommendation(String recommendation) { this.recommendation = recommendation; }
+        public String getSampleStackTrace() { return sampleStackTrace; }
+        public void setSampleStackTrace(String sampleStackTrace) { this.sampleStackTrace = sampleStackTrace; }
+    }
+    
+    /**
+     * Immutable, versioned set of insights shared by all readers until the next change
+     */
+    public static class InsightSnapshot {
+        private final long version;
+        private final long generatedAtMillis;
+        private final List<ErrorInsight> insights;
+        private final int anomalousPatternCount;
+        
+        InsightSnapshot(long version, List<ErrorInsight> insights, int anomalousPatternCount) {
+            this.version = version;
+            this.generatedAtMillis = System.currentTimeMillis();
+            this.insights = Collections.unmodifiableList(insights);
+            this.anomalousPatternCount = anomalousPatternCount;
+        }
+        
+        // Getters
+        public long getVersion() { return version; }
+        public long getGeneratedAtMillis() { return generatedAtMillis; }
+        public List<ErrorInsight> getInsights() { return insights; }
+        public int getAnomalousPatternCount() { return anomalousPatternCount; }
     }
     
     public static class ErrorStatistics {
         private int totalPatterns;
         private int anomalousPatterns;
+        private long totalErrors;
+        private double errorRate;
+        private int ingestionQueueDepth;
+        private long droppedErrors;
+        private int trackedPatternCapacity;
+        private long untrackedErrors;
+        private long countErrorBound;
+        private double countErrorConfidence;
         private Map<String, Integer> errorsByType;
         
         // Getters and setters
@@ -256,6 +840,22 @@ public class ErrorPatternDetector {
         public void setTotalPatterns(int totalPatterns) { this.totalPatterns = totalPatterns; }
         public int getAnomalousPatterns() { return anomalousPatterns; }
         public void setAnomalousPatterns(int anomalousPatterns) { this.anomalousPatterns = anomalousPatterns; }
+        public long getTotalErrors() { return totalErrors; }
+        public void setTotalErrors(long totalErrors) { this.totalErrors = totalErrors; }
+        public double getErrorRate() { return errorRate; }
+        public void setErrorRate(double errorRate) { this.errorRate = errorRate; }
+        public int getIngestionQueueDepth() { return ingestionQueueDepth; }
+        public void setIngestionQueueDepth(int ingestionQueueDepth) { this.ingestionQueueDepth = ingestionQueueDepth; }
+        public long getDroppedErrors() { return droppedErrors; }
+        public void setDroppedErrors(long droppedErrors) { this.droppedErrors = droppedErrors; }
+        public int getTrackedPatternCapacity() { return trackedPatternCapacity; }
+        public void setTrackedPatternCapacity(int trackedPatternCapacity) { this.trackedPatternCapacity = trackedPatternCapacity; }
+        public long getUntrackedErrors() { return untrackedErrors; }
+        public void setUntrackedErrors(long untrackedErrors) { this.untrackedErrors = untrackedErrors; }
+        public long getCountErrorBound() { return countErrorBound; }
+        public void setCountErrorBound(long countErrorBound) { this.countErrorBound = countErrorBound; }
+        public double getCountErrorConfidence() { return countErrorConfidence; }
+        public void setCountErrorConfidence(double countErrorConfidence) { this.countErrorConfidence = countErrorConfidence; }
         public Map<String, Integer> getErrorsByType() { return errorsByType; }
         public void setErrorsByType(Map<String, Integer> errorsByType) { this.errorsByType = errorsByType; }
     }
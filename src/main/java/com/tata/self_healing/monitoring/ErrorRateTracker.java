@@ -0,0 +1,188 @@
+package com.tata.self_healing.monitoring;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Windowed request and error counts per route and per status class, plus windowed
+ * counts per handled error type. Uses the same time buckets as pattern detection so
+ * error rates are true ratios over the same window.
+ */
+@Component
+public class ErrorRateTracker {
+
+    public static final String ALL_ROUTES = "ALL";
+    private static final String UNMATCHED_ROUTE = "UNMATCHED";
+    private static final String OVERFLOW_KEY = "OTHER";
+
+    // Cap on distinct routes and error types; anything beyond is folded into OTHER
+    private static final int MAX_TRACKED_KEYS = 256;
+
+    @Value("${self-healing.monitoring.window.bucket-count:60}")
+    private int windowBucketCount;
+
+    @Value("${self-healing.monitoring.window.bucket-seconds:10}")
+    private int windowBucketSeconds;
+
+    // Routes with fewer requests in the window are not rated, so one failed request is not a 100% error rate
+    @Value("${self-healing.monitoring.error-rate.min-requests:20}")
+    private int minRequests;
+
+    private final Map<String, RouteWindow> routes = new ConcurrentHashMap<>();
+    private final Map<String, SlidingWindowCounter> errorsByType = new ConcurrentHashMap<>();
+    private RouteWindow overall;
+
+    @PostConstruct
+    void initialize() {
+        overall = new RouteWindow();
+    }
+
+    /**
+     * Record a completed request for its route (e.g. "GET /api/v1/users/{email}") and response status
+     */
+    public void recordRequest(String route, int status) {
+        long now = System.currentTimeMillis();
+        overall.record(status, now);
+        boundedGet(routes, route != null ? route : UNMATCHED_ROUTE, key -> new RouteWindow()).record(status, now);
+    }
+
+    /**
+     * Record a handled error by its type at the time it occurred
+     */
+    public void recordError(String errorType, long timestampMillis) {
+        boundedGet(errorsByType, errorType, key -> newCounter()).increment(timestampMillis);
+    }
+
+    /**
+     * Handled errors per type within the window
+     */
+    public Map<String, Integer> getErrorsByType() {
+        long now = System.currentTimeMillis();
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, SlidingWindowCounter> entry : errorsByType.entrySet()) {
+            long count = entry.getValue().sum(now);
+            if (count > 0) {
+                counts.put(entry.getKey(), (int) Math.min(count, Integer.MAX_VALUE));
+            }
+        }
+        return counts;
+    }
+
+    public RouteErrorRate getOverallErrorRate() {
+        return overall.snapshot(ALL_ROUTES, System.currentTimeMillis());
+    }
+
+    /**
+     * Overall and per-route error rates strictly above the threshold, highest first.
+     * Only routes with at least the minimum number of requests in the window are considered.
+     */
+    public List<RouteErrorRate> findHighErrorRates(double threshold) {
+        long now = System.currentTimeMillis();
+        List<RouteErrorRate> rates = new ArrayList<>();
+
+        RouteErrorRate total = overall.snapshot(ALL_ROUTES, now);
+        if (exceeds(total, threshold)) {
+            rates.add(total);
+        }
+        for (Map.Entry<String, RouteWindow> entry : routes.entrySet()) {
+            RouteErrorRate rate = entry.getValue().snapshot(entry.getKey(), now);
+            if (exceeds(rate, threshold)) {
+                rates.add(rate);
+            }
+        }
+
+        rates.sort(Comparator.comparingDouble(RouteErrorRate::getErrorRate).reversed());
+        return rates;
+    }
+
+    public long getWindowSeconds() {
+        return (long) windowBucketCount * windowBucketSeconds;
+    }
+
+    private boolean exceeds(RouteErrorRate rate, double threshold) {
+        return rate.getRequests() >= minRequests && rate.getErrorRate() > threshold;
+    }
+
+    private SlidingWindowCounter newCounter() {
+        return new SlidingWindowCounter(windowBucketCount, windowBucketSeconds * 1000L);
+    }
+
+    private static <T> T boundedGet(Map<String, T> map, String key, Function<String, T> factory) {
+        T value = map.get(key);
+        if (value != null) {
+            return value;
+        }
+        String boundedKey = map.size() < MAX_TRACKED_KEYS ? key : OVERFLOW_KEY;
+        return map.computeIfAbsent(boundedKey, factory);
+    }
+
+    /**
+     * Request counters for one route: total, errors (status >= 400) and one per status class
+     */
+    private class RouteWindow {
+        private final SlidingWindowCounter requests = newCounter();
+        private final SlidingWindowCounter errors = newCounter();
+        private final SlidingWindowCounter[] statusClasses = new SlidingWindowCounter[6];
+
+        RouteWindow() {
+            for (int i = 1; i < statusClasses.length; i++) {
+                statusClasses[i] = newCounter();
+            }
+        }
+
+        void record(int status, long now) {
+            requests.increment(now);
+            int statusClass = status / 100;
+            if (statusClass >= 1 && statusClass < statusClasses.length) {
+                statusClasses[statusClass].increment(now);
+            }
+            if (status >= 400) {
+                errors.increment(now);
+            }
+        }
+
+        RouteErrorRate snapshot(String route, long now) {
+            return new RouteErrorRate(route, requests.sum(now), errors.sum(now),
+                    statusClasses[4].sum(now), statusClasses[5].sum(now));
+        }
+    }
+
+    /**
+     * Point-in-time error rate of one route (or ALL) over the window
+     */
+    public static class RouteErrorRate {
+        private final String route;
+        private final long requests;
+        private final long errors;
+        private final long clientErrors;
+        private final long serverErrors;
+
+        public RouteErrorRate(String route, long requests, long errors, long clientErrors, long serverErrors) {
+            this.route = route;
+            this.requests = requests;
+            this.errors = errors;
+            this.clientErrors = clientErrors;
+            this.serverErrors = serverErrors;
+        }
+
+        public double getErrorRate() {
+            return requests == 0 ? 0.0 : (double) errors / requests;
+        }
+
+        // Getters
+        public String getRoute() { return route; }
+        public long getRequests() { return requests; }
+        public long getErrors() { return errors; }
+        public long getClientErrors() { return clientErrors; }
+        public long getServerErrors() { return serverErrors; }
+    }
+}
@@ -0,0 +1,49 @@
+package com.tata.self_healing.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rate deviation against an exponentially weighted moving average (and variance)
+ * of the per-bucket count
+ */
+@Component
+public class EwmaAnomalyDetector extends StatisticalAnomalyDetector {
+
+    // Weight of the newest bucket; 0.05 remembers roughly the last 20 buckets
+    @Value("${self-healing.monitoring.anomaly.ewma.alpha:0.05}")
+    private double alpha;
+
+    @Override
+    public String getName() {
+        return "ewma";
+    }
+
+    @Override
+    public State newState(SlidingWindowCounter window) {
+        return new BucketedAnomalyState(bucketMillis(), evaluationBuckets(), warmupBuckets, minCount, sensitivity) {
+            private double mean;
+            private double variance;
+
+            @Override
+            protected void onBucketClosed(long count, long epoch) {
+                double delta = count - mean;
+                mean += alpha * delta;
+                variance = (1 - alpha) * (variance + alpha * delta * delta);
+            }
+
+            @Override
+            protected void onIdleBuckets(long idle, long lastEpoch) {
+                double decay = Math.pow(1 - alpha, idle);
+                variance = varianceAfterZeros(mean, variance, decay);
+                mean *= decay;
+            }
+
+            @Override
+            protected double deviation(long observed, long nowMillis) {
+                int buckets = evaluationBuckets();
+                return zScore(observed, mean * buckets, variance * buckets);
+            }
+        };
+    }
+}
@@ -1,6 +1,7 @@
 package com.tata.self_healing.monitoring;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Component;
 import java.time.Duration;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Custom metrics collector for self-healing system monitoring
@@ -94,6 +96,24 @@ public class MetricsCollector {
         }).incrementAndGet();
     }
     
+    /**
+     * Expose a live value (e.g. a queue depth) as a gauge
+     */
+    public <T> void registerGauge(String name, String description, T source, ToDoubleFunction<T> value) {
+        Gauge.builder(name, source, value)
+                .description(description)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Counter registered on first use, for metrics owned by other components
+     */
+    public Counter counter(String name, String description) {
+        return Counter.builder(name)
+                .description(description)
+                .register(meterRegistry);
+    }
+    
     public long getErrorCountByType(String errorType) {
         return errorCounts.getOrDefault(errorType, new AtomicLong(0)).get();
     }
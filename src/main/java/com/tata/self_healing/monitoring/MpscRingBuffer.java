@@ -0,0 +1,107 @@
+package com.tata.self_healing.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lock-free multi-producer single-consumer queue backed by a ring of slots.
+ * Each slot carries a sequence number: producers claim a slot with one CAS on the tail
+ * and publish by advancing the slot's sequence; the single consumer reads slots in
+ * order without any CAS. offer never blocks and fails when the ring is full.
+ */
+public class MpscRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Written only by the consumer; published for size()
+    private final AtomicLong head = new AtomicLong();
+
+    public MpscRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Publish an item from any thread; returns false when the ring is full
+     */
+    public boolean offer(T item) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) (position & mask);
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (available < 0) {
+                return false; // The consumer has not freed this slot yet: full
+            }
+            // Otherwise another producer claimed the position first; retry with the new tail
+        }
+
+        slots.set(index, item);
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Take the next item, or null when nothing is published. Consumer thread only.
+     */
+    public T poll() {
+        long position = head.get();
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        T item = slots.get(index);
+        slots.set(index, null);
+        // Free the slot for the producer that wraps around to it
+        sequences.set(index, position + slots.length());
+        head.set(position + 1);
+        return item;
+    }
+
+    /**
+     * Whether no published item is waiting. Consumer thread only.
+     */
+    public boolean isEmpty() {
+        long position = head.get();
+        return sequences.get((int) (position & mask)) != position + 1;
+    }
+
+    /**
+     * Hand up to max published items to the handler; returns how many were drained. Consumer thread only.
+     */
+    public int drain(Consumer<T> handler, int max) {
+        int drained = 0;
+        T item;
+        while (drained < max && (item = poll()) != null) {
+            handler.accept(item);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Approximate number of queued items (claimed slots may not be published yet)
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head.get(), slots.length()));
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
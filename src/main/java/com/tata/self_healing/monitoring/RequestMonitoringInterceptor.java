@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -23,6 +24,12 @@ public class RequestMonitoringInterceptor implements HandlerInterceptor {
     @Autowired
     private MetricsCollector metricsCollector;
     
+    @Autowired
+    private ErrorRateTracker errorRateTracker;
+    
+    @Autowired
+    private ErrorPatternDetector errorPatternDetector;
+    
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
         Instant startTime = Instant.now();
@@ -48,6 +55,9 @@ public class RequestMonitoringInterceptor implements HandlerInterceptor {
             metricsCollector.recordRequestTime(duration);
             
             String status = getStatusCategory(response.getStatus());
+            String route = getRoute(request);
+            errorRateTracker.recordRequest(route, response.getStatus());
+            errorPatternDetector.recordRequest(route, response.getStatus(), duration.toMillis());
             
             logger.info("Request completed: {} {} - Status: {} - Duration: {}ms", 
                     request.getMethod(), 
@@ -90,6 +100,14 @@ public class RequestMonitoringInterceptor implements HandlerInterceptor {
         return request.getRemoteAddr();
     }
     
+    /**
+     * Route template (e.g. "GET /api/v1/users/{email}") so path variables don't multiply routes
+     */
+    private String getRoute(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? request.getMethod() + " " + pattern : null;
+    }
+    
     private String getStatusCategory(int status) {
         if (status >= 200 && status < 300) return "2xx_success";
         if (status >= 300 && status < 400) return "3xx_redirect";
@@ -0,0 +1,70 @@
+package com.tata.self_healing.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Z-score of the recent count against the mean and variance of the last
+ * history-buckets closed buckets, kept as running sums
+ */
+@Component
+public class RollingZScoreAnomalyDetector extends StatisticalAnomalyDetector {
+
+    @Value("${self-healing.monitoring.anomaly.zscore.history-buckets:360}")
+    private int historyBuckets;
+
+    @Override
+    public String getName() {
+        return "zscore";
+    }
+
+    @Override
+    public State newState(SlidingWindowCounter window) {
+        return new BucketedAnomalyState(bucketMillis(), evaluationBuckets(), warmupBuckets, minCount, sensitivity) {
+            private final long[] history = new long[Math.max(2, historyBuckets)];
+            private int position;
+            private int filled;
+            private double sum;
+            private double sumOfSquares;
+
+            @Override
+            protected void onBucketClosed(long count, long epoch) {
+                long evicted = history[position];
+                sum += count - evicted;
+                sumOfSquares += (double) count * count - (double) evicted * evicted;
+                history[position] = count;
+                position = (position + 1) % history.length;
+                filled = Math.min(filled + 1, history.length);
+            }
+
+            @Override
+            protected void onIdleBuckets(long idle, long lastEpoch) {
+                if (idle < history.length) {
+                    for (long i = 0; i < idle; i++) {
+                        onBucketClosed(0, lastEpoch);
+                    }
+                    return;
+                }
+                // The whole history is zeros now; resetting the sums also drops accumulated rounding
+                Arrays.fill(history, 0);
+                position = 0;
+                filled = history.length;
+                sum = 0;
+                sumOfSquares = 0;
+            }
+
+            @Override
+            protected double deviation(long observed, long nowMillis) {
+                if (filled == 0) {
+                    return zScore(observed, 0, 0);
+                }
+                double mean = sum / filled;
+                double variance = Math.max(0, sumOfSquares / filled - mean * mean);
+                int buckets = evaluationBuckets();
+                return zScore(observed, mean * buckets, variance * buckets);
+            }
+        };
+    }
+}
@@ -0,0 +1,142 @@
+package com.tata.self_healing.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hour-of-day / day-of-week baseline: an EWMA of the hourly count for each of the
+ * 168 hours of the week, so a Monday-morning peak is compared with previous Monday
+ * mornings. Hours without history yet fall back to an all-hours baseline.
+ */
+@Component
+public class SeasonalBaselineAnomalyDetector extends StatisticalAnomalyDetector {
+
+    private static final int HOURS_PER_WEEK = 7 * 24;
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    // Weight of the newest week in each hour-of-week slot
+    @Value("${self-healing.monitoring.anomaly.seasonal.alpha:0.3}")
+    private double alpha;
+
+    @Override
+    public String getName() {
+        return "seasonal";
+    }
+
+    @Override
+    public State newState(SlidingWindowCounter window) {
+        return new BucketedAnomalyState(bucketMillis(), evaluationBuckets(), warmupBuckets, minCount, sensitivity) {
+            private final double[] slotMean = new double[HOURS_PER_WEEK];
+            private final double[] slotVariance = new double[HOURS_PER_WEEK];
+            private final int[] slotSamples = new int[HOURS_PER_WEEK];
+            private double overallMean;
+            private double overallVariance;
+            private int overallSamples;
+            private long currentHour = -1;
+            private long hourCount;
+
+            @Override
+            protected void onBucketClosed(long count, long epoch) {
+                long hour = epoch * bucketMillis / HOUR_MILLIS;
+                if (currentHour >= 0 && hour != currentHour) {
+                    foldHour(currentHour, hourCount);
+                    hourCount = 0;
+                }
+                currentHour = hour;
+                hourCount += count;
+            }
+
+            @Override
+            protected void onIdleBuckets(long idle, long lastEpoch) {
+                // Empty buckets add nothing to the hour's count: only the hours they complete need folding
+                long lastHour = lastEpoch * bucketMillis / HOUR_MILLIS;
+                if (currentHour < 0 || lastHour == currentHour) {
+                    currentHour = lastHour;
+                    return;
+                }
+                foldHour(currentHour, hourCount);
+                foldEmptyHours(currentHour + 1, lastHour);
+                currentHour = lastHour;
+                hourCount = 0;
+            }
+
+            /**
+             * Fold the empty hours in [fromHour, toHour). Each hour-of-week slot takes all of its
+             * empty hours in one step, so a gap of any length costs at most one pass over the week.
+             */
+            private void foldEmptyHours(long fromHour, long toHour) {
+                long hours = toHour - fromHour;
+                if (hours <= 0) {
+                    return;
+                }
+                long perSlot = hours / HOURS_PER_WEEK;
+                long remainder = hours % HOURS_PER_WEEK;
+                long first = Math.max(fromHour, toHour - HOURS_PER_WEEK);
+                for (long hour = first; hour < toHour; hour++) {
+                    // The earliest `remainder` hours of the week-long cycle occur once more than the rest
+                    long times = perSlot + ((hour - fromHour) % HOURS_PER_WEEK < remainder ? 1 : 0);
+                    int slot = slotOf(hour * HOUR_MILLIS);
+                    if (slotSamples[slot] == 0) {
+                        slotMean[slot] = 0;
+                        slotVariance[slot] = 0;
+                    } else {
+                        double decay = Math.pow(1 - alpha, times);
+                        slotVariance[slot] = varianceAfterZeros(slotMean[slot], slotVariance[slot], decay);
+                        slotMean[slot] *= decay;
+                    }
+                    slotSamples[slot] = (int) Math.min(Integer.MAX_VALUE, slotSamples[slot] + times);
+                }
+
+                if (overallSamples == 0) {
+                    overallMean = 0;
+                    overallVariance = 0;
+                } else {
+                    double decay = Math.pow(1 - alpha, hours);
+                    overallVariance = varianceAfterZeros(overallMean, overallVariance, decay);
+                    overallMean *= decay;
+                }
+                overallSamples = (int) Math.min(Integer.MAX_VALUE, overallSamples + hours);
+            }
+
+            private void foldHour(long hour, long count) {
+                int slot = slotOf(hour * HOUR_MILLIS);
+                double weight = slotSamples[slot] == 0 ? 1.0 : alpha;
+                double delta = count - slotMean[slot];
+                slotMean[slot] += weight * delta;
+                slotVariance[slot] = (1 - weight) * (slotVariance[slot] + weight * delta * delta);
+                slotSamples[slot]++;
+
+                double overallWeight = overallSamples == 0 ? 1.0 : alpha;
+                double overallDelta = count - overallMean;
+                overallMean += overallWeight * overallDelta;
+                overallVariance = (1 - overallWeight) * (overallVariance + overallWeight * overallDelta * overallDelta);
+                overallSamples++;
+            }
+
+            @Override
+            protected double deviation(long observed, long nowMillis) {
+                if (overallSamples == 0) {
+                    return 0.0; // No hour folded yet, so there is no baseline to compare with
+                }
+                int slot = slotOf(nowMillis);
+                boolean seasonal = slotSamples[slot] > 0;
+                double hourlyMean = seasonal ? slotMean[slot] : overallMean;
+                double hourlyVariance = seasonal ? slotVariance[slot] : overallVariance;
+
+                // Scale the hourly baseline down to the evaluation window
+                double fraction = (double) evaluationBuckets() * bucketMillis / HOUR_MILLIS;
+                return zScore(observed, hourlyMean * fraction, hourlyVariance * fraction);
+            }
+        };
+    }
+
+    private static int slotOf(long timestampMillis) {
+        ZonedDateTime time = Instant.ofEpochMilli(timestampMillis).atZone(ZoneId.systemDefault());
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+}
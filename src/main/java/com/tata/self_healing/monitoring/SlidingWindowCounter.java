@@ -0,0 +1,119 @@
+package com.tata.self_healing.monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Event counter over a sliding time window made of fixed-width buckets (e.g. 60 x 10s).
+ * Each bucket packs its epoch (bucket number since 1970, high 32 bits) and its count
+ * (low 32 bits) into one long, so an increment, including rotating a stale bucket,
+ * is a single compare-and-set. Increments are O(1), reads are O(buckets).
+ */
+public class SlidingWindowCounter {
+
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private final AtomicLongArray buckets;
+    private final long bucketMillis;
+
+    public SlidingWindowCounter(int bucketCount, long bucketMillis) {
+        this.buckets = new AtomicLongArray(Math.max(1, bucketCount));
+        this.bucketMillis = Math.max(1, bucketMillis);
+    }
+
+    public void increment(long nowMillis) {
+        add(nowMillis, 1);
+    }
+
+    public void add(long nowMillis, long delta) {
+        long epoch = epochOf(nowMillis);
+        int slot = slotOf(epoch);
+        while (true) {
+            long current = buckets.get(slot);
+            long bucketEpoch = current >>> 32;
+            long updated;
+            if (bucketEpoch == (epoch & COUNT_MASK)) {
+                updated = current + Math.min(delta, COUNT_MASK - (current & COUNT_MASK));
+            } else if (isNewer(epoch, bucketEpoch)) {
+                // Bucket still holds an older period: rotate it to the current one
+                updated = pack(epoch, Math.min(delta, COUNT_MASK));
+            } else {
+                return; // Late event for a period that has already been rotated out
+            }
+            if (buckets.compareAndSet(slot, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Events in the whole window ending at the given time
+     */
+    public long sum(long nowMillis) {
+        return sum(nowMillis, buckets.length());
+    }
+
+    /**
+     * Events in the most recent bucketsBack buckets (including the current, partial one)
+     */
+    public long sum(long nowMillis, int bucketsBack) {
+        long epoch = epochOf(nowMillis);
+        int span = Math.min(Math.max(1, bucketsBack), buckets.length());
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            long value = buckets.get(i);
+            long age = (epoch - (value >>> 32)) & COUNT_MASK;
+            if (value != 0 && age < span) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Per-bucket counts, oldest first, for the whole window ending at the given time
+     */
+    public long[] toArray(long nowMillis) {
+        long epoch = epochOf(nowMillis);
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < buckets.length(); i++) {
+            long value = buckets.get(i);
+            long age = (epoch - (value >>> 32)) & COUNT_MASK;
+            if (value != 0 && age < buckets.length()) {
+                counts[buckets.length() - 1 - (int) age] = value & COUNT_MASK;
+            }
+        }
+        return counts;
+    }
+
+    public int getBucketCount() {
+        return buckets.length();
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    /**
+     * Number of buckets covering the given duration, capped at the window size
+     */
+    public int bucketsFor(long durationMillis) {
+        return (int) Math.min(buckets.length(), Math.max(1, (durationMillis + bucketMillis - 1) / bucketMillis));
+    }
+
+    private long epochOf(long nowMillis) {
+        return nowMillis / bucketMillis;
+    }
+
+    private int slotOf(long epoch) {
+        return (int) (epoch % buckets.length());
+    }
+
+    private static boolean isNewer(long epoch, long bucketEpoch) {
+        // Epochs are compared modulo 2^32 so the packed form never overflows
+        return ((epoch - bucketEpoch) & COUNT_MASK) < (1L << 31);
+    }
+
+    private static long pack(long epoch, long count) {
+        return ((epoch & COUNT_MASK) << 32) | count;
+    }
+}
@@ -0,0 +1,121 @@
+package com.tata.self_healing.monitoring;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.LongConsumer;
+
+/**
+ * Space-Saving style top-K over 64-bit keys, fed with Count-Min Sketch estimates.
+ * At most K keys are tracked; a new key only displaces the smallest tracked key when its
+ * estimate is larger, so a flood of one-off keys cannot churn out established heavy hitters.
+ * For each tracked key the true count lies between the occurrences seen since it was
+ * admitted and its sketch estimate.
+ */
+public class SpaceSavingTopK {
+
+    private final int capacity;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> byCount = new TreeSet<>(
+            Comparator.comparingLong((Entry entry) -> entry.estimate).thenComparingLong(entry -> entry.key));
+
+    public SpaceSavingTopK(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Record one occurrence of the key with its current sketch estimate.
+     * Returns whether the key is tracked afterwards; a displaced key is passed to onEvict.
+     */
+    public synchronized boolean offer(long key, long estimate, LongConsumer onEvict) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            byCount.remove(entry);
+            entry.estimate = Math.max(entry.estimate, estimate);
+            entry.seen++;
+            byCount.add(entry);
+            return true;
+        }
+
+        if (entries.size() >= capacity) {
+            Entry smallest = byCount.first();
+            if (estimate <= smallest.estimate) {
+                return false;
+            }
+            byCount.pollFirst();
+            entries.remove(smallest.key);
+            onEvict.accept(smallest.key);
+        }
+
+        entry = new Entry(key, estimate);
+        entries.put(key, entry);
+        byCount.add(entry);
+        return true;
+    }
+
+    /**
+     * Replace the tracked keys with checkpointed entries; only the largest capacity entries are kept
+     */
+    synchronized void restore(List<Entry> restored) {
+        entries.clear();
+        byCount.clear();
+        for (Entry entry : restored) {
+            Entry copy = new Entry(entry.key, entry.estimate, entry.seen);
+            entries.put(copy.key, copy);
+            byCount.add(copy);
+            if (entries.size() > capacity) {
+                entries.remove(byCount.pollFirst().key);
+            }
+        }
+    }
+
+    public synchronized boolean contains(long key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Tracked keys, largest estimate first
+     */
+    public synchronized List<Entry> snapshot() {
+        List<Entry> snapshot = new ArrayList<>(entries.size());
+        for (Entry entry : byCount.descendingSet()) {
+            snapshot.add(new Entry(entry.key, entry.estimate, entry.seen));
+        }
+        return snapshot;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Tracked key with its count bounds: seen <= true count <= estimate
+     */
+    public static class Entry {
+        private final long key;
+        private long estimate;
+        private long seen;
+
+        Entry(long key, long estimate) {
+            this(key, estimate, 1);
+        }
+
+        Entry(long key, long estimate, long seen) {
+            this.key = key;
+            this.estimate = estimate;
+            this.seen = seen;
+        }
+
+        // Getters
+        public long getKey() { return key; }
+        public long getEstimate() { return estimate; }
+        public long getSeen() { return seen; }
+    }
+}
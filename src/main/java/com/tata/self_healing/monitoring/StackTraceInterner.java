@@ -0,0 +1,44 @@
+package com.tata.self_healing.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shares the frame arrays of identical stack traces, keyed by trace fingerprint. Only frames are
+ * shared: message and root cause can differ per occurrence (and carry user data), so each
+ * occurrence keeps its own. The least recently seen traces are evicted beyond the capacity.
+ * Not thread-safe: the detector interns on its ingestion path only, never on request threads.
+ */
+public class StackTraceInterner {
+
+    private final int capacity;
+    private final LinkedHashMap<Long, StackTraceElement[]> frames;
+
+    public StackTraceInterner(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        // Access order, so the eldest entry is the least recently seen trace
+        this.frames = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, StackTraceElement[]> eldest) {
+                return size() > StackTraceInterner.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * The trace with its frames replaced by the shared copy, if one exists; otherwise its frames
+     * become the shared copy. Traces wrapped from text are returned unchanged.
+     */
+    public CapturedStackTrace intern(CapturedStackTrace stackTrace) {
+        StackTraceElement[] captured = stackTrace.getFrames();
+        if (captured == null) {
+            return stackTrace;
+        }
+        StackTraceElement[] shared = frames.putIfAbsent(stackTrace.getFingerprint(), captured);
+        return shared != null && shared != captured ? stackTrace.withFrames(shared) : stackTrace;
+    }
+
+    public int size() {
+        return frames.size();
+    }
+}
@@ -0,0 +1,46 @@
+package com.tata.self_healing.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Shared settings for the bucketed statistical detectors
+ */
+public abstract class StatisticalAnomalyDetector implements AnomalyDetector {
+
+    @Value("${self-healing.monitoring.window.bucket-seconds:10}")
+    protected int bucketSeconds;
+
+    // Length of the recent window compared against the baseline
+    @Value("${self-healing.monitoring.anomaly.evaluation-seconds:60}")
+    protected int evaluationSeconds;
+
+    // Minimum occurrences in the evaluation window before anything is reported
+    @Value("${self-healing.monitoring.anomaly.min-count:5}")
+    protected long minCount;
+
+    // Standard deviations above the baseline that count as anomalous
+    @Value("${self-healing.monitoring.anomaly.sensitivity:3.0}")
+    protected double sensitivity;
+
+    // Closed buckets a baseline must have seen before it is trusted; a cold baseline has no spread
+    @Value("${self-healing.monitoring.anomaly.warmup-buckets:30}")
+    protected int warmupBuckets;
+
+    @Override
+    public long getWindowMillis() {
+        return evaluationBuckets() * bucketMillis();
+    }
+
+    @Override
+    public double getAnomalousScore() {
+        return sensitivity;
+    }
+
+    protected long bucketMillis() {
+        return bucketSeconds * 1000L;
+    }
+
+    protected int evaluationBuckets() {
+        return (int) Math.max(1, evaluationSeconds / Math.max(1, bucketSeconds));
+    }
+}
@@ -0,0 +1,60 @@
+package com.tata.self_healing.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed threshold: anomalous once a pattern has at least min-count occurrences
+ * within threshold-minutes
+ */
+@Component
+public class ThresholdAnomalyDetector implements AnomalyDetector {
+
+    @Value("${self-healing.monitoring.anomaly.min-count:5}")
+    private long minCount;
+
+    @Value("${self-healing.monitoring.anomaly.threshold-minutes:10}")
+    private int thresholdMinutes;
+
+    @Override
+    public String getName() {
+        return "threshold";
+    }
+
+    @Override
+    public long getWindowMillis() {
+        return TimeUnit.MINUTES.toMillis(thresholdMinutes);
+    }
+
+    @Override
+    public double getAnomalousScore() {
+        return 1.0;
+    }
+
+    @Override
+    public State newState(SlidingWindowCounter window) {
+        int buckets = window.bucketsFor(getWindowMillis());
+        // Counts come straight from the pattern's window, which the pattern feeds itself
+        return new State() {
+            @Override
+            public void record(long timestampMillis) {
+            }
+
+            @Override
+            public void record(long timestampMillis, long count) {
+            }
+
+            @Override
+            public boolean isAnomalous(long nowMillis) {
+                return window.sum(nowMillis, buckets) >= minCount;
+            }
+
+            @Override
+            public double score(long nowMillis) {
+                return (double) window.sum(nowMillis, buckets) / minCount;
+            }
+        };
+    }
+}
@@ -0,0 +1,315 @@
+package com.tata.self_healing.repository;
+
+import com.tata.self_healing.exception.FileOperationException;
+import com.tata.self_healing.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Read-only, memory-mapped binary snapshot of the user dataset.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header   magic:int version:int count:int reserved:int hashTableOffset:long offsetTableOffset:long maxVersion:long
+ *   records  count x [length:int email:str name:str age:int createdAt:long updatedAt:long version:long], in email order
+ *   hash     count x [emailHash:int ordinal:int], sorted by hash, for point lookups
+ *   offsets  count x [recordOffset:long], indexed by ordinal, for ordered scans and cursor seeks
+ * </pre>
+ * Strings are a short byte length (-1 for null) followed by UTF-8 bytes. Lookups binary-search the
+ * hash table and compare email bytes in place; only the matching record is decoded.
+ */
+public class BinaryUserSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(BinaryUserSnapshot.class);
+
+    private static final int MAGIC = 0x55534E50; // "USNP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int HASH_ENTRY_SIZE = 8;
+    private static final int OFFSET_ENTRY_SIZE = 8;
+    private static final int NULL_AGE = Integer.MIN_VALUE;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int hashTableOffset;
+    private final int offsetTableOffset;
+    private final long maxVersion;
+
+    private BinaryUserSnapshot(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new FileOperationException("Unrecognized binary user snapshot format", null);
+        }
+        this.count = buffer.getInt(8);
+        this.hashTableOffset = (int) buffer.getLong(16);
+        this.offsetTableOffset = (int) buffer.getLong(24);
+        this.maxVersion = buffer.getLong(32);
+    }
+
+    /**
+     * Map an existing snapshot file; nothing is parsed beyond the fixed header
+     */
+    public static BinaryUserSnapshot open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            BinaryUserSnapshot snapshot = new BinaryUserSnapshot(buffer);
+            logger.info("Mapped binary user snapshot {} with {} users", path, snapshot.count);
+            return snapshot;
+        } catch (IOException e) {
+            logger.error("Error mapping binary user snapshot", e);
+            throw new FileOperationException("Error mapping binary user snapshot", e);
+        }
+    }
+
+    /**
+     * Write users (which must arrive in ascending email order) to a new snapshot, replacing the target atomically.
+     * Records are streamed; only the per-record hash and offset are held in memory.
+     */
+    public static int write(Path target, Iterator<User> usersInEmailOrder) {
+        Path tempPath = target.resolveSibling(target.getFileName() + ".tmp");
+        int written = 0;
+        long maxVersion = 0;
+        int[] hashes = new int[1024];
+        long[] offsets = new long[1024];
+
+        try {
+            long position = HEADER_SIZE;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING)))) {
+                out.write(new byte[HEADER_SIZE]); // Filled in once the table offsets are known
+
+                while (usersInEmailOrder.hasNext()) {
+                    User user = usersInEmailOrder.next();
+                    if (written == hashes.length) {
+                        hashes = Arrays.copyOf(hashes, written * 2);
+                        offsets = Arrays.copyOf(offsets, written * 2);
+                    }
+                    hashes[written] = user.getEmail().hashCode();
+                    offsets[written] = position;
+                    maxVersion = Math.max(maxVersion, user.getVersion());
+                    position += writeRecord(out, user);
+                    written++;
+                }
+
+                // Hash table: (hash, ordinal) pairs packed into longs so one sort orders by hash
+                long hashTablePosition = position;
+                long[] hashEntries = new long[written];
+                for (int i = 0; i < written; i++) {
+                    hashEntries[i] = ((long) hashes[i] << 32) | i;
+                }
+                Arrays.sort(hashEntries);
+                for (long entry : hashEntries) {
+                    out.writeInt((int) (entry >> 32));
+                    out.writeInt((int) entry);
+                }
+                position += (long) written * HASH_ENTRY_SIZE;
+
+                long offsetTablePosition = position;
+                for (int i = 0; i < written; i++) {
+                    out.writeLong(offsets[i]);
+                }
+                position += (long) written * OFFSET_ENTRY_SIZE;
+
+                if (position > Integer.MAX_VALUE) {
+                    throw new FileOperationException("Binary user snapshot exceeds 2GB mapping limit", null);
+                }
+                out.flush();
+
+                try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    header.putInt(MAGIC).putInt(VERSION).putInt(written).putInt(0)
+                            .putLong(hashTablePosition).putLong(offsetTablePosition).putLong(maxVersion);
+                    header.flip();
+                    channel.write(header, 0);
+                    channel.force(true);
+                }
+            }
+
+            Files.move(tempPath, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Wrote binary user snapshot with {} users", written);
+            return written;
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException cleanupException) {
+                logger.warn("Failed to clean up temporary snapshot file", cleanupException);
+            }
+            logger.error("Error writing binary user snapshot", e);
+            throw new FileOperationException("Error writing binary user snapshot", e);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Highest user version in the snapshot, read from the header
+     */
+    public long getMaxVersion() {
+        return maxVersion;
+    }
+
+    /**
+     * Point lookup by email; decodes only the matching record
+     */
+    public User find(String email) {
+        int ordinal = ordinalOf(email);
+        return ordinal >= 0 ? userAt(ordinal) : null;
+    }
+
+    public boolean contains(String email) {
+        return ordinalOf(email) >= 0;
+    }
+
+    /**
+     * First ordinal whose email sorts after the cursor (records are stored in email order)
+     */
+    public int ordinalAfter(String after) {
+        if (after == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (emailAt(mid).compareTo(after) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public String emailAt(int ordinal) {
+        return readString(recordOffset(ordinal) + 4);
+    }
+
+    public User userAt(int ordinal) {
+        int position = recordOffset(ordinal) + 4;
+
+        String email = readString(position);
+        position += stringSize(position);
+        String name = readString(position);
+        position += stringSize(position);
+        int age = buffer.getInt(position);
+        long createdAt = buffer.getLong(position + 4);
+        long updatedAt = buffer.getLong(position + 12);
+
+        User user = new User(name, age == NULL_AGE ? null : age, email);
+        user.setCreatedAt(toDateTime(createdAt));
+        user.setUpdatedAt(toDateTime(updatedAt));
+        user.setVersion(buffer.getLong(position + 20));
+        return user;
+    }
+
+    private int ordinalOf(String email) {
+        byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+        int hash = email.hashCode();
+
+        // Lower bound of the hash in the sorted hash table
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getInt(hashTableOffset + mid * HASH_ENTRY_SIZE) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        // Walk entries sharing the hash, comparing email bytes in place
+        for (int i = low; i < count; i++) {
+            int entry = hashTableOffset + i * HASH_ENTRY_SIZE;
+            if (buffer.getInt(entry) != hash) {
+                break;
+            }
+            int ordinal = buffer.getInt(entry + 4);
+            if (emailMatches(recordOffset(ordinal) + 4, emailBytes)) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    private boolean emailMatches(int position, byte[] emailBytes) {
+        if (buffer.getShort(position) != emailBytes.length) {
+            return false;
+        }
+        int start = position + 2;
+        for (int i = 0; i < emailBytes.length; i++) {
+            if (buffer.get(start + i) != emailBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int recordOffset(int ordinal) {
+        return (int) buffer.getLong(offsetTableOffset + ordinal * OFFSET_ENTRY_SIZE);
+    }
+
+    private String readString(int position) {
+        short length = buffer.getShort(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int stringSize(int position) {
+        return 2 + Math.max(0, buffer.getShort(position));
+    }
+
+    private static int writeRecord(DataOutputStream out, User user) throws IOException {
+        byte[] email = user.getEmail().getBytes(StandardCharsets.UTF_8);
+        byte[] name = user.getName() != null ? user.getName().getBytes(StandardCharsets.UTF_8) : null;
+        if (email.length > Short.MAX_VALUE || (name != null && name.length > Short.MAX_VALUE)) {
+            throw new IOException("User field too long for binary snapshot: " + user.getEmail());
+        }
+        int length = 2 + email.length + 2 + (name != null ? name.length : 0) + 4 + 8 + 8 + 8;
+
+        out.writeInt(length);
+        out.writeShort(email.length);
+        out.write(email);
+        out.writeShort(name != null ? name.length : -1);
+        if (name != null) {
+            out.write(name);
+        }
+        out.writeInt(user.getAge() != null ? user.getAge() : NULL_AGE);
+        out.writeLong(toEpochSecond(user.getCreatedAt()));
+        out.writeLong(toEpochSecond(user.getUpdatedAt()));
+        out.writeLong(user.getVersion());
+        return 4 + length;
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time != null ? time.toEpochSecond(ZoneOffset.UTC) : NULL_TIME;
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return epochSecond != NULL_TIME ? LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC) : null;
+    }
+}
@@ -0,0 +1,126 @@
+package com.tata.self_healing.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Group-commit writer: request threads enqueue mutations and a single writer thread
+ * flushes everything queued so far as one durable write. Each caller's future completes
+ * only after the batch containing its mutation has been flushed.
+ */
+public class GroupCommitWriter<T> implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitWriter.class);
+
+    private final BlockingQueue<PendingCommit<T>> queue = new LinkedBlockingQueue<>();
+    private final Consumer<List<T>> flusher;
+    private final int maxBatchSize;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    public GroupCommitWriter(String name, int maxBatchSize, Consumer<List<T>> flusher) {
+        this.flusher = flusher;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.writerThread = new Thread(this::runWriterLoop, name);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queue a mutation; the returned future completes once it is on disk
+     */
+    public CompletableFuture<Void> submit(T mutation) {
+        return submitAll(List.of(mutation));
+    }
+
+    /**
+     * Queue several mutations as one unit; they are always flushed together in the same write
+     */
+    public CompletableFuture<Void> submitAll(List<T> mutations) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("Group commit writer is closed"));
+            return future;
+        }
+        queue.add(new PendingCommit<>(mutations, future));
+        return future;
+    }
+
+    private void runWriterLoop() {
+        List<PendingCommit<T>> batch = new ArrayList<>(maxBatchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingCommit<T> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Everything that queued up while the previous flush was running goes in this batch
+                queue.drainTo(batch, maxBatchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingCommit<T>> batch) {
+        List<T> mutations = new ArrayList<>(batch.size());
+        for (PendingCommit<T> pending : batch) {
+            mutations.addAll(pending.mutations);
+        }
+
+        try {
+            flusher.accept(mutations);
+            logger.debug("Group commit flushed {} mutations", mutations.size());
+            for (PendingCommit<T> pending : batch) {
+                pending.future.complete(null);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Group commit of {} mutations failed", mutations.size(), e);
+            for (PendingCommit<T> pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting mutations and wait for everything already queued to be flushed
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Fail anything that raced in after the writer loop exited
+        PendingCommit<T> straggler;
+        while ((straggler = queue.poll()) != null) {
+            straggler.future.completeExceptionally(new IllegalStateException("Group commit writer is closed"));
+        }
+    }
+
+    private static class PendingCommit<T> {
+        private final List<T> mutations;
+        private final CompletableFuture<Void> future;
+
+        PendingCommit(List<T> mutations, CompletableFuture<Void> future) {
+            this.mutations = mutations;
+            this.future = future;
+        }
+    }
+}
@@ -1,32 +1,121 @@
 package com.tata.self_healing.repository;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.tata.self_healing.exception.FileOperationException;
 import com.tata.self_healing.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.*;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 @Repository
 public class JsonFileUserRepository {
     private static final Logger logger = LoggerFactory.getLogger(JsonFileUserRepository.class);
     private static final String DATA_DIR = "./data";
-    private static final String USERS_FILE = DATA_DIR + "/users.json";
-    private static final String TEMP_FILE = DATA_DIR + "/users.json.tmp";
+
+    // Index marker for a user deleted since the binary snapshot was written (binary mode only)
+    private static final User TOMBSTONE = new User();
 
     private final ObjectMapper objectMapper;
+    private final Path dataDir;
+    private final Path usersFile;
+    private final Path tempFile;
+    private final Path walFile;
+    private final Path snapshotFile;
+    // Held exclusively by a process rewriting users.json; users.json itself is replaced on every write
+    private final Path lockFile;
+    // Highest user version ever written to users.json, so file mode need not scan it at startup
+    private final Path versionFile;
+
+    // Storage mode: "file" re-reads users.json on every call, "indexed" serves reads from memory,
+    // "wal" serves reads from memory and appends mutations to a write-ahead log,
+    // "binary" serves reads from a memory-mapped snapshot overlaid with WAL changes held in memory
+    @Value("${self-healing.storage.mode:file}")
+    private String storageMode;
+
+    // Number of WAL records after which the log is compacted into users.json
+    @Value("${self-healing.storage.wal.compaction-threshold:1000}")
+    private int walCompactionThreshold;
+
+    // Queue writes from request threads and flush them as one durable write
+    @Value("${self-healing.storage.group-commit.enabled:false}")
+    private boolean groupCommitEnabled;
+
+    @Value("${self-healing.storage.group-commit.max-batch-size:256}")
+    private int groupCommitMaxBatchSize;
+
+    // Per-email lock stripes making check-then-act operations atomic for the same email
+    @Value("${self-healing.storage.lock-stripes:64}")
+    private int lockStripes;
+
+    // Email-keyed index, populated once at startup when running in indexed or wal mode.
+    // In binary mode it only holds changes since the snapshot (TOMBSTONE for deletions).
+    // Kept sorted by email so cursor pagination is a tailMap walk.
+    private final ConcurrentNavigableMap<String, User> userIndex = new ConcurrentSkipListMap<>();
+    private final Object writeMonitor = new Object();
+    // Readers of users.json share it; a read-modify-write cycle excludes them and other writers in this process
+    private final ReentrantReadWriteLock fileLock = new ReentrantReadWriteLock();
+    // Age and name-prefix indexes, kept in step with every index mutation
+    private final UserSecondaryIndex secondaryIndex = new UserSecondaryIndex();
+    // False in binary mode until the secondary indexes are first needed
+    private volatile boolean secondaryIndexReady;
+    private boolean indexed;
+    private UserWriteAheadLog writeAheadLog;
+    private volatile BinaryUserSnapshot snapshot;
+    // Scans in flight over (snapshot, userIndex); while any is open, folded changes stay in the index
+    private final AtomicInteger openScans = new AtomicInteger();
+    // Changes folded into the current snapshot but not yet dropped from the index; written under writeMonitor
+    private volatile Map<String, User> foldedChanges;
+    private GroupCommitWriter<PendingWrite> groupCommitWriter;
+    private StripedLockManager emailLocks;
+
+    // Source of per-user versions, and a counter bumped after every mutation for collection ETags.
+    // Both are seeded from the wall clock at startup so values never repeat across restarts.
+    private final AtomicLong versionSequence = new AtomicLong();
+    private final AtomicLong datasetVersion = new AtomicLong();
 
     public JsonFileUserRepository() {
+        this(Paths.get(DATA_DIR));
+    }
+
+    JsonFileUserRepository(Path dataDir) {
+        this.dataDir = dataDir;
+        this.usersFile = dataDir.resolve("users.json");
+        this.tempFile = dataDir.resolve("users.json.tmp");
+        this.walFile = dataDir.resolve("users.wal");
+        this.snapshotFile = dataDir.resolve("users.bin");
+        this.lockFile = dataDir.resolve("users.json.lock");
+        this.versionFile = dataDir.resolve("users.json.version");
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
         initializeDataDirectory();
@@ -34,16 +123,14 @@ public class JsonFileUserRepository {
 
     private void initializeDataDirectory() {
         try {
-            Path dataPath = Paths.get(DATA_DIR);
-            if (!Files.exists(dataPath)) {
-                Files.createDirectories(dataPath);
-                logger.info("Created data directory: {}", DATA_DIR);
+            if (!Files.exists(dataDir)) {
+                Files.createDirectories(dataDir);
+                logger.info("Created data directory: {}", dataDir);
             }
 
-            Path usersFile = Paths.get(USERS_FILE);
             if (!Files.exists(usersFile)) {
                 Files.write(usersFile, "[]".getBytes());
-                logger.info("Created users file: {}", USERS_FILE);
+                logger.info("Created users file: {}", usersFile);
             }
         } catch (IOException e) {
             logger.error("Failed to initialize data directory", e);
@@ -51,112 +138,777 @@ public class JsonFileUserRepository {
         }
     }
 
+    /**
+     * Load users.json (or map the binary snapshot), replay any WAL records into the in-memory index,
+     * and start the group-commit writer when enabled. Loaded users are visited once, for the
+     * secondary indexes and the highest version together; in binary mode only the replayed changes
+     * are, since the snapshot header carries its highest version and the secondary indexes are
+     * built on first use. File mode reads the highest version stored next to users.json.
+     */
+    @PostConstruct
+    void initializeStorage() {
+        boolean binaryMode = "binary".equalsIgnoreCase(storageMode);
+        boolean walMode = binaryMode || "wal".equalsIgnoreCase(storageMode);
+        indexed = walMode || "indexed".equalsIgnoreCase(storageMode);
+        emailLocks = new StripedLockManager(lockStripes);
+
+        long maxVersion = 0;
+        if (indexed) {
+            if (binaryMode) {
+                snapshot = openBinarySnapshot();
+                maxVersion = snapshot.getMaxVersion();
+            } else {
+                for (User user : readUsersFromFile()) {
+                    userIndex.put(user.getEmail(), user);
+                }
+            }
+
+            if (walMode) {
+                writeAheadLog = openWriteAheadLog(walFile);
+                writeAheadLog.replay(this::applyToIndex);
+            }
+
+            for (Map.Entry<String, User> entry : userIndex.entrySet()) {
+                User user = entry.getValue();
+                if (user == TOMBSTONE) {
+                    continue;
+                }
+                maxVersion = Math.max(maxVersion, user.getVersion());
+                if (!binaryMode) {
+                    secondaryIndex.update(entry.getKey(), user);
+                }
+            }
+            secondaryIndexReady = !binaryMode;
+            if (binaryMode) {
+                logger.info("Mapped snapshot of {} users with {} pending changes", snapshot.size(), userIndex.size());
+            } else {
+                logger.info("Loaded {} users into in-memory index", userIndex.size());
+            }
+        } else {
+            maxVersion = readStoredMaxVersion();
+        }
+
+        long seed = Math.max(maxVersion, System.currentTimeMillis());
+        versionSequence.set(seed);
+        datasetVersion.set(seed);
+
+        if (groupCommitEnabled) {
+            groupCommitWriter = new GroupCommitWriter<>("user-group-commit", groupCommitMaxBatchSize, this::flushBatch);
+            logger.info("Group commit enabled for user writes (max batch size {})", groupCommitMaxBatchSize);
+        }
+    }
+
+    /**
+     * Open the write-ahead log; overridden in tests to inject failures
+     */
+    UserWriteAheadLog openWriteAheadLog(Path logPath) {
+        return new UserWriteAheadLog(logPath, objectMapper);
+    }
+
+    /**
+     * Map users.bin, importing it from users.json the first time binary mode is used
+     */
+    private BinaryUserSnapshot openBinarySnapshot() {
+        Path snapshotPath = snapshotFile;
+        if (!Files.exists(snapshotPath)) {
+            TreeMap<String, User> users = new TreeMap<>();
+            for (User user : readUsersFromFile()) {
+                users.put(user.getEmail(), user);
+            }
+            BinaryUserSnapshot.write(snapshotPath, users.values().iterator());
+            logger.info("Imported {} users from {} into binary snapshot", users.size(), usersFile);
+        }
+        return BinaryUserSnapshot.open(snapshotPath);
+    }
+
+    /**
+     * Drain pending group commits and fold the write-ahead log into the snapshot before shutdown
+     */
+    @PreDestroy
+    void shutdown() {
+        if (groupCommitWriter != null) {
+            groupCommitWriter.close();
+        }
+        if (writeAheadLog == null) {
+            return;
+        }
+        synchronized (writeMonitor) {
+            compactWriteAheadLog();
+            writeAheadLog.close();
+        }
+    }
+
     public List<User> findAll() {
+        if (indexed) {
+            List<User> users = new ArrayList<>();
+            forEachUser(null, 0, users::add);
+            return users;
+        }
         return readUsersFromFile();
     }
 
     public Optional<User> findByEmail(String email) {
+        if (indexed) {
+            User user = lookup(email);
+            return user != null ? Optional.of(new User(user)) : Optional.empty();
+        }
+
         List<User> users = readUsersFromFile();
         return users.stream()
                 .filter(user -> email.equals(user.getEmail()))
                 .findFirst();
     }
 
+    /**
+     * Version of the whole dataset; changes after every mutation
+     */
+    public long getDatasetVersion() {
+        return datasetVersion.get();
+    }
+
+    /**
+     * Current version of the user from the in-memory indexes without reading the user.
+     * Null when the user does not exist or, in file mode, when it is not known without a read.
+     */
+    public Long findVersionByEmail(String email) {
+        if (!indexed) {
+            return null;
+        }
+        if (secondaryIndexReady) {
+            return secondaryIndex.versionOf(email);
+        }
+        // Binary mode before any search: one record lookup rather than indexing the whole snapshot
+        User user = lookup(email);
+        return user != null ? user.getVersion() : null;
+    }
+
     public User save(User user) {
-        List<User> users = readUsersFromFile();
+        return mutate(() -> emailLocks.withLock(user.getEmail(), () -> saveUnderLock(user)));
+    }
+
+    public boolean deleteByEmail(String email) {
+        return mutate(() -> emailLocks.withLock(email, () -> deleteUnderLock(email)));
+    }
 
-        // Check for duplicate email (except when updating same user)
-        boolean emailExists = users.stream()
-                .anyMatch(existingUser -> user.getEmail().equals(existingUser.getEmail()));
+    /**
+     * Atomically delete the user with this email, if present, once the precondition accepts it.
+     * The precondition throws to abort the delete.
+     */
+    public boolean deleteByEmail(String email, Consumer<User> precondition) {
+        return mutate(() -> emailLocks.withLock(email, () -> {
+            Optional<User> existing = findByEmail(email);
+            if (existing.isEmpty()) {
+                return false;
+            }
+            precondition.accept(existing.get());
+            return deleteUnderLock(email);
+        }));
+    }
 
-        if (emailExists) {
-            // Remove existing user for update
-            users.removeIf(existingUser -> user.getEmail().equals(existingUser.getEmail()));
+    /**
+     * Atomically insert the user unless the email is taken.
+     * Returns the existing user when present, empty when the user was inserted.
+     */
+    public Optional<User> putIfAbsent(User user) {
+        return mutate(() -> emailLocks.withLock(user.getEmail(), () -> {
+            Optional<User> existing = findByEmail(user.getEmail());
+            if (existing.isEmpty()) {
+                saveUnderLock(user);
+            }
+            return existing;
+        }));
+    }
+
+    /**
+     * Atomically apply the update to the user with this email, if present, and persist the result
+     */
+    public Optional<User> computeIfPresent(String email, UnaryOperator<User> updater) {
+        return mutate(() -> emailLocks.withLock(email, () -> findByEmail(email)
+                .map(existing -> saveUnderLock(updater.apply(existing)))));
+    }
+
+    /**
+     * Apply a batch of creates/updates/deletes as one transaction with a single persistence write.
+     * Items are resolved in order; the result list says, per item, whether it applied
+     * (false for creating an existing email or updating/deleting a missing one).
+     */
+    public List<Boolean> applyBatch(List<UserBatchOperation> operations) {
+        List<String> emails = new ArrayList<>(operations.size());
+        for (UserBatchOperation operation : operations) {
+            emails.add(operation.getEmail());
         }
+        return mutate(() -> emailLocks.withLocks(emails, () -> indexed
+                ? applyBatchToIndex(operations)
+                : applyBatchToFile(operations)));
+    }
 
-        users.add(user);
-        writeUsersToFile(users);
+    /**
+     * Run a mutation and then bump the dataset version. Bumping after the change is visible (and even
+     * when it fails and is rolled back) means a collection ETag never labels data it does not describe.
+     */
+    private <T> T mutate(Supplier<T> mutation) {
+        try {
+            return mutation.get();
+        } finally {
+            datasetVersion.incrementAndGet();
+        }
+    }
+
+    private void stampVersion(UserWriteAheadLog.WalRecord record) {
+        if (record.getUser() != null) {
+            record.getUser().setVersion(versionSequence.incrementAndGet());
+        }
+    }
+
+    private List<Boolean> applyBatchToIndex(List<UserBatchOperation> operations) {
+        List<Boolean> outcomes = new ArrayList<>(operations.size());
+        List<UserWriteAheadLog.WalRecord> records = new ArrayList<>();
+        // Later items see earlier items of the batch here; the index only changes once all are durable
+        Map<String, User> staged = new HashMap<>();
+
+        for (UserBatchOperation operation : operations) {
+            String email = operation.getEmail();
+            User current = staged.containsKey(email) ? staged.get(email) : lookup(email);
+            UserWriteAheadLog.WalRecord record = operation.resolve(current);
+            outcomes.add(record != null);
+            if (record != null) {
+                stampVersion(record);
+                records.add(record);
+                staged.put(email, record.getUser());
+            }
+        }
+
+        if (records.isEmpty()) {
+            return outcomes;
+        }
+
+        commitToIndex(records);
+        logger.info("Applied batch of {} user mutations", records.size());
+        return outcomes;
+    }
+
+    private List<Boolean> applyBatchToFile(List<UserBatchOperation> operations) {
+        if (groupCommitWriter != null) {
+            return resolveBatchAgainstFile(operations);
+        }
+        return withFileWriteLock(() -> resolveBatchAgainstFile(operations));
+    }
+
+    /**
+     * Resolve the batch against users.json and persist it, through the group-commit writer when enabled
+     */
+    private List<Boolean> resolveBatchAgainstFile(List<UserBatchOperation> operations) {
+        Map<String, User> users = new LinkedHashMap<>();
+        for (User user : readUsersFromFile()) {
+            users.put(user.getEmail(), user);
+        }
+
+        List<Boolean> outcomes = new ArrayList<>(operations.size());
+        List<PendingWrite> writes = new ArrayList<>();
+        for (UserBatchOperation operation : operations) {
+            UserWriteAheadLog.WalRecord record = operation.resolve(users.get(operation.getEmail()));
+            outcomes.add(record != null);
+            if (record != null) {
+                stampVersion(record);
+                record.applyTo(users);
+                writes.add(new PendingWrite(record));
+            }
+        }
+
+        if (writes.isEmpty()) {
+            return outcomes;
+        }
+
+        if (groupCommitWriter != null) {
+            awaitCommit(groupCommitWriter.submitAll(writes));
+        } else {
+            writeUsersToFile(new ArrayList<>(users.values()));
+        }
+        logger.info("Applied batch of {} user mutations", writes.size());
+        return outcomes;
+    }
+
+    private User saveUnderLock(User user) {
+        user.setVersion(versionSequence.incrementAndGet());
+        if (indexed) {
+            return saveToIndex(user);
+        }
+
+        if (groupCommitWriter != null) {
+            awaitCommit(groupCommitWriter.submit(new PendingWrite(UserWriteAheadLog.WalRecord.put(user))));
+            logger.info("Saved user: {}", user.getEmail());
+            return user;
+        }
+
+        withFileWriteLock(() -> {
+            List<User> users = readUsersFromFile();
+
+            // Check for duplicate email (except when updating same user)
+            boolean emailExists = users.stream()
+                    .anyMatch(existingUser -> user.getEmail().equals(existingUser.getEmail()));
+
+            if (emailExists) {
+                // Remove existing user for update
+                users.removeIf(existingUser -> user.getEmail().equals(existingUser.getEmail()));
+            }
+
+            users.add(user);
+            writeUsersToFile(users);
+            return null;
+        });
 
         logger.info("Saved user: {}", user.getEmail());
         return user;
     }
 
-    public boolean deleteByEmail(String email) {
-        List<User> users = readUsersFromFile();
-        boolean removed = users.removeIf(user -> email.equals(user.getEmail()));
+    private boolean deleteUnderLock(String email) {
+        if (indexed) {
+            return deleteFromIndex(email);
+        }
+
+        if (groupCommitWriter != null) {
+            PendingWrite pending = new PendingWrite(UserWriteAheadLog.WalRecord.delete(email));
+            awaitCommit(groupCommitWriter.submit(pending));
+            if (pending.changed) {
+                logger.info("Deleted user: {}", email);
+            }
+            return pending.changed;
+        }
+
+        boolean removed = withFileWriteLock(() -> {
+            List<User> users = readUsersFromFile();
+            boolean found = users.removeIf(user -> email.equals(user.getEmail()));
+            if (found) {
+                writeUsersToFile(users);
+            }
+            return found;
+        });
 
         if (removed) {
-            writeUsersToFile(users);
             logger.info("Deleted user: {}", email);
         }
-
         return removed;
     }
 
+    /**
+     * Find users by age range and/or name prefix (case-insensitive); null criteria are unbounded.
+     * Indexed modes answer from the secondary indexes, file mode falls back to a scan.
+     */
+    public List<User> search(Integer minAge, Integer maxAge, String namePrefix, int limit) {
+        String prefix = namePrefix == null || namePrefix.isEmpty() ? null : UserSecondaryIndex.normalize(namePrefix);
+        List<User> matches = new ArrayList<>();
+
+        if (indexed) {
+            for (String email : secondaryIndex().search(minAge, maxAge, prefix, limit)) {
+                // Re-check against the primary index in case a concurrent write moved the user
+                User user = lookup(email);
+                if (user != null && matchesSearch(user, minAge, maxAge, prefix)) {
+                    matches.add(new User(user));
+                }
+            }
+            return matches;
+        }
+
+        streamUsersFromFile(user -> {
+            if (matches.size() < limit && matchesSearch(user, minAge, maxAge, prefix)) {
+                matches.add(user);
+            }
+        });
+        return matches;
+    }
+
+    private static boolean matchesSearch(User user, Integer minAge, Integer maxAge, String prefix) {
+        if (!UserSecondaryIndex.inRange(user.getAge(), minAge, maxAge)) {
+            return false;
+        }
+        return prefix == null || (user.getName() != null && UserSecondaryIndex.normalize(user.getName()).startsWith(prefix));
+    }
+
     public boolean existsByEmail(String email) {
+        if (indexed) {
+            return lookup(email) != null;
+        }
         return findByEmail(email).isPresent();
     }
 
-    private List<User> readUsersFromFile() {
-        Path filePath = Paths.get(USERS_FILE);
+    /**
+     * Visit users with email greater than the cursor, in email order, without materializing the dataset.
+     * A non-positive limit visits every remaining user. Returns the number of users visited.
+     */
+    public int forEachUser(String after, int limit, Consumer<User> visitor) {
+        int visited = 0;
 
-        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
-            try (FileLock lock = channel.tryLock(0, Long.MAX_VALUE, true)) { // Shared lock for reading
-                if (lock == null) {
-                    logger.warn("Could not acquire file lock for reading");
-                    throw new FileOperationException("Could not acquire file lock for reading", null);
+        if (indexed) {
+            // Registered before the snapshot is read, so a compaction cannot drop changes this scan relies on
+            openScans.incrementAndGet();
+            try {
+                Map<String, User> changes = after != null ? userIndex.tailMap(after, false) : userIndex;
+                Iterator<User> users = new MergedUserIterator(snapshot, after, changes.entrySet().iterator());
+                while (users.hasNext() && (limit <= 0 || visited < limit)) {
+                    visitor.accept(users.next());
+                    visited++;
+                }
+                return visited;
+            } finally {
+                if (openScans.decrementAndGet() == 0 && foldedChanges != null) {
+                    synchronized (writeMonitor) {
+                        dropFoldedChanges();
+                    }
+                }
+            }
+        }
+
+        if (limit <= 0) {
+            // Unbounded scan streams straight through the file (file order)
+            int[] count = {0};
+            streamUsersFromFile(user -> {
+                if (after == null || user.getEmail().compareTo(after) > 0) {
+                    visitor.accept(user);
+                    count[0]++;
+                }
+            });
+            return count[0];
+        }
+
+        // The file is unsorted: keep only the smallest `limit` emails past the cursor
+        TreeMap<String, User> page = new TreeMap<>();
+        streamUsersFromFile(user -> {
+            if (after != null && user.getEmail().compareTo(after) <= 0) {
+                return;
+            }
+            page.put(user.getEmail(), user);
+            if (page.size() > limit) {
+                page.pollLastEntry();
+            }
+        });
+        for (User user : page.values()) {
+            visitor.accept(user);
+            visited++;
+        }
+        return visited;
+    }
+
+    private User saveToIndex(User user) {
+        commitToIndex(List.of(UserWriteAheadLog.WalRecord.put(user)));
+        logger.info("Saved user: {}", user.getEmail());
+        return user;
+    }
+
+    private boolean deleteFromIndex(String email) {
+        // Callers hold the email's lock stripe, so the user cannot reappear between check and delete
+        if (lookup(email) == null) {
+            return false;
+        }
+        commitToIndex(List.of(UserWriteAheadLog.WalRecord.delete(email)));
+        logger.info("Deleted user: {}", email);
+        return true;
+    }
+
+    /**
+     * Persist mutations and only then apply them to the index, so readers, ETags and searches never
+     * see a write that could still fail. Callers hold the emails' lock stripes until this returns,
+     * so nobody can act on the affected users in between.
+     */
+    private void commitToIndex(List<UserWriteAheadLog.WalRecord> records) {
+        if (groupCommitWriter != null) {
+            List<PendingWrite> writes = new ArrayList<>(records.size());
+            for (UserWriteAheadLog.WalRecord record : records) {
+                writes.add(new PendingWrite(record));
+            }
+            awaitCommit(groupCommitWriter.submitAll(writes));
+            return;
+        }
+        synchronized (writeMonitor) {
+            persistAndApply(records);
+        }
+    }
+
+    /**
+     * Resolve a user from the index, falling back to the binary snapshot in binary mode
+     */
+    private User lookup(String email) {
+        User user = userIndex.get(email);
+        if (user == TOMBSTONE) {
+            return null;
+        }
+        if (user != null) {
+            return user;
+        }
+        BinaryUserSnapshot current = snapshot;
+        return current != null ? current.find(email) : null;
+    }
+
+    /**
+     * Apply a logged (durable) mutation to the index
+     */
+    private void applyToIndex(UserWriteAheadLog.WalRecord record) {
+        String email = record.getEmail();
+        if (UserWriteAheadLog.WalRecord.PUT.equals(record.getOp())) {
+            userIndex.put(email, new User(record.getUser()));
+        } else if (snapshot != null) {
+            userIndex.put(email, TOMBSTONE);
+        } else {
+            userIndex.remove(email);
+        }
+        if (secondaryIndexReady) {
+            secondaryIndex.update(email, lookup(email));
+        }
+    }
+
+    /**
+     * Secondary indexes, built from the snapshot on first use in binary mode. Mutations are applied
+     * under writeMonitor, so none can slip between the build and the switch to incremental updates.
+     */
+    private UserSecondaryIndex secondaryIndex() {
+        if (!secondaryIndexReady) {
+            synchronized (writeMonitor) {
+                if (!secondaryIndexReady) {
+                    int indexedUsers = forEachUser(null, 0, user -> secondaryIndex.update(user.getEmail(), user));
+                    secondaryIndexReady = true;
+                    logger.info("Built secondary indexes over {} users", indexedUsers);
                 }
+            }
+        }
+        return secondaryIndex;
+    }
 
-                byte[] bytes = Files.readAllBytes(filePath);
-                if (bytes.length == 0) {
-                    return new ArrayList<>();
+    /**
+     * Persist mutations (O(1) WAL append in wal mode, one full rewrite otherwise), then apply them
+     * to the index. Nothing is applied when persisting fails. Callers must hold writeMonitor.
+     */
+    private void persistAndApply(List<UserWriteAheadLog.WalRecord> records) {
+        if (writeAheadLog == null) {
+            TreeMap<String, User> users = new TreeMap<>(userIndex);
+            for (UserWriteAheadLog.WalRecord record : records) {
+                record.applyTo(users);
+            }
+            writeUsersToFile(new ArrayList<>(users.values()));
+            records.forEach(this::applyToIndex);
+            return;
+        }
+
+        writeAheadLog.appendAll(records);
+        records.forEach(this::applyToIndex);
+        if (writeAheadLog.getRecordCount() >= walCompactionThreshold) {
+            compactWriteAheadLog();
+        }
+    }
+
+    /**
+     * Group-commit flush, runs on the writer thread: one durable write for the whole batch
+     */
+    private void flushBatch(List<PendingWrite> batch) {
+        if (!indexed) {
+            // File mode: a single read-modify-write cycle covers every queued mutation
+            withFileWriteLock(() -> {
+                Map<String, User> users = new LinkedHashMap<>();
+                for (User user : readUsersFromFile()) {
+                    users.put(user.getEmail(), user);
+                }
+                for (PendingWrite pending : batch) {
+                    pending.changed = pending.record.applyTo(users);
                 }
+                writeUsersToFile(new ArrayList<>(users.values()));
+                return null;
+            });
+            return;
+        }
 
-                TypeReference<List<User>> typeReference = new TypeReference<List<User>>() {};
-                List<User> users = objectMapper.readValue(bytes, typeReference);
+        List<UserWriteAheadLog.WalRecord> records = new ArrayList<>(batch.size());
+        for (PendingWrite pending : batch) {
+            records.add(pending.record);
+        }
 
-                logger.debug("Read {} users from file", users.size());
-                return users;
+        synchronized (writeMonitor) {
+            persistAndApply(records);
+        }
+    }
 
-            } catch (IOException e) {
-                logger.error("Error reading users file", e);
-                throw new FileOperationException("Error reading users file", e);
+    private void awaitCommit(CompletableFuture<Void> commit) {
+        try {
+            commit.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof FileOperationException fileOperationException) {
+                throw fileOperationException;
+            }
+            throw new FileOperationException("Error committing user write", e.getCause());
+        }
+    }
+
+    /**
+     * Snapshot the index into users.json (users.bin in binary mode) and truncate the log.
+     * Callers hold writeMonitor, so the index holds exactly the mutations already in the log.
+     * Those are durable, so a failed compaction is retried later.
+     */
+    private void compactWriteAheadLog() {
+        if (writeAheadLog.getRecordCount() == 0) {
+            return;
+        }
+        try {
+            int snapshotSize;
+            if (snapshot != null) {
+                snapshotSize = compactBinarySnapshot();
+            } else {
+                List<User> users = new ArrayList<>(userIndex.values());
+                writeUsersToFile(users);
+                snapshotSize = users.size();
+            }
+            writeAheadLog.truncate();
+            logger.info("Compacted write-ahead log into snapshot of {} users", snapshotSize);
+        } catch (FileOperationException e) {
+            logger.warn("Write-ahead log compaction failed, will retry on next write", e);
+        }
+    }
+
+    /**
+     * Merge the pending changes into a new binary snapshot, map it, then drop the folded changes.
+     * The new snapshot is installed before changes are dropped so lookups never miss a user, and the
+     * drop waits for open scans, which may still be reading the previous snapshot.
+     * Runs under writeMonitor between commits, and the index only ever holds mutations whose log
+     * records are durable, so nothing in flight is folded into the snapshot.
+     */
+    private int compactBinarySnapshot() {
+        TreeMap<String, User> folded = new TreeMap<>(userIndex);
+        Path snapshotPath = snapshotFile;
+
+        int written = BinaryUserSnapshot.write(snapshotPath,
+                new MergedUserIterator(snapshot, null, folded.entrySet().iterator()));
+        snapshot = BinaryUserSnapshot.open(snapshotPath);
+        foldedChanges = folded;
+        dropFoldedChanges();
+        return written;
+    }
+
+    /**
+     * Drop changes already folded into the snapshot, unless a scan is open. A scan registers before
+     * it reads the snapshot, so one starting after this check sees the new snapshot.
+     * Callers must hold writeMonitor.
+     */
+    private void dropFoldedChanges() {
+        Map<String, User> folded = foldedChanges;
+        if (folded == null || openScans.get() > 0) {
+            return;
+        }
+        // Identity check, as a guard: only drop entries still holding the folded value
+        for (Map.Entry<String, User> entry : folded.entrySet()) {
+            userIndex.computeIfPresent(entry.getKey(), (email, current) -> current == entry.getValue() ? null : current);
+        }
+        foldedChanges = null;
+    }
+
+    /**
+     * Run a read-modify-write cycle of users.json, excluding readers and writers in this process and
+     * blocking until other processes have released the lock file. Re-entrant on the same thread.
+     */
+    private <T> T withFileWriteLock(Supplier<T> cycle) {
+        ReentrantReadWriteLock.WriteLock writeLock = fileLock.writeLock();
+        if (writeLock.isHeldByCurrentThread()) {
+            return cycle.get();
+        }
+        writeLock.lock();
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            return cycle.get();
+        } catch (IOException e) {
+            logger.error("Error locking users file", e);
+            throw new FileOperationException("Error locking users file", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Read all of users.json. Writers replace the file with an atomic move, so a reader always sees
+     * one complete version of it; the read lock only keeps in-process writers from racing the read.
+     */
+    private List<User> readUsersFromFile() {
+        Path filePath = usersFile;
+
+        fileLock.readLock().lock();
+        try {
+            byte[] bytes = Files.readAllBytes(filePath);
+            if (bytes.length == 0) {
+                return new ArrayList<>();
+            }
+
+            TypeReference<List<User>> typeReference = new TypeReference<List<User>>() {};
+            List<User> users = objectMapper.readValue(bytes, typeReference);
+
+            logger.debug("Read {} users from file", users.size());
+            return users;
+        } catch (IOException e) {
+            logger.error("Error reading users file", e);
+            throw new FileOperationException("Error reading users file", e);
+        } finally {
+            fileLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Parse users.json one element at a time instead of binding the whole array
+     */
+    private void streamUsersFromFile(Consumer<User> visitor) {
+        Path filePath = usersFile;
+
+        fileLock.readLock().lock();
+        try (InputStream in = Files.newInputStream(filePath);
+             MappingIterator<User> users = objectMapper.readerFor(User.class).readValues(in)) {
+            while (users.hasNextValue()) {
+                visitor.accept(users.nextValue());
             }
         } catch (IOException e) {
-            logger.error("Error opening file channel for reading", e);
-            throw new FileOperationException("Error opening file channel for reading", e);
+            logger.error("Error streaming users file", e);
+            throw new FileOperationException("Error streaming users file", e);
+        } finally {
+            fileLock.readLock().unlock();
         }
     }
 
     private void writeUsersToFile(List<User> users) {
-        Path tempPath = Paths.get(TEMP_FILE);
-        Path filePath = Paths.get(USERS_FILE);
+        withFileWriteLock(() -> {
+            replaceUsersFile(users);
+            return null;
+        });
+    }
+
+    /**
+     * Highest user version stored next to users.json. Without one (users.json written elsewhere),
+     * the file is scanned once; the next write stores the value.
+     */
+    private long readStoredMaxVersion() {
+        try {
+            if (Files.exists(versionFile)) {
+                return Long.parseLong(Files.readString(versionFile).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Ignoring unreadable {}, scanning users file for versions", versionFile, e);
+        }
+        long[] maxVersion = {0};
+        streamUsersFromFile(user -> maxVersion[0] = Math.max(maxVersion[0], user.getVersion()));
+        return maxVersion[0];
+    }
+
+    // Callers hold the file write lock
+    private void replaceUsersFile(List<User> users) {
+        Path tempPath = tempFile;
+        Path filePath = usersFile;
 
         try {
+            // Versions are stamped before they are written, so the sequence covers every user in the file.
+            // Stored first: a crash before the move below leaves it ahead of the file, never behind.
+            Path versionTemp = versionFile.resolveSibling(versionFile.getFileName() + ".tmp");
+            Files.writeString(versionTemp, Long.toString(versionSequence.get()));
+            Files.move(versionTemp, versionFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
             // Write to temporary file first
             String jsonContent = objectMapper.writerWithDefaultPrettyPrinter()
                     .writeValueAsString(users);
             Files.write(tempPath, jsonContent.getBytes(),
                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
 
-            // Acquire exclusive lock and atomic move
-            try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
-                try (FileLock lock = channel.tryLock()) {
-                    if (lock == null) {
-                        Files.delete(tempPath); // Clean up temp file
-                        throw new FileOperationException("Could not acquire file lock for writing", null);
-                    }
-
-                    // Atomic move from temp to actual file
-                    Files.move(tempPath, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-                    logger.debug("Successfully wrote {} users to file", users.size());
-
-                } catch (IOException e) {
-                    Files.deleteIfExists(tempPath); // Clean up temp file on error
-                    logger.error("Error during file write operation", e);
-                    throw new FileOperationException("Error during file write operation", e);
-                }
-            }
+            // Atomic move from temp to actual file
+            Files.move(tempPath, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Successfully wrote {} users to file", users.size());
         } catch (IOException e) {
             try {
                 Files.deleteIfExists(tempPath); // Clean up temp file
@@ -167,4 +919,83 @@ public class JsonFileUserRepository {
             throw new FileOperationException("Error writing users file", e);
         }
     }
+
+    /**
+     * Mutation queued for group commit; file mode reports back whether it changed anything
+     */
+    private static class PendingWrite {
+        private final UserWriteAheadLog.WalRecord record;
+        private boolean changed;
+
+        PendingWrite(UserWriteAheadLog.WalRecord record) {
+            this.record = record;
+        }
+    }
+
+    /**
+     * Email-ordered merge of the binary snapshot (if any) with in-memory changes; changes shadow
+     * snapshot records with the same email and tombstones hide them
+     */
+    private static class MergedUserIterator implements Iterator<User> {
+        private final BinaryUserSnapshot base;
+        private final Iterator<Map.Entry<String, User>> changes;
+        private int ordinal;
+        private String baseEmail;
+        private Map.Entry<String, User> change;
+        private User next;
+
+        MergedUserIterator(BinaryUserSnapshot base, String after, Iterator<Map.Entry<String, User>> changes) {
+            this.base = base;
+            this.changes = changes;
+            this.ordinal = base != null ? base.ordinalAfter(after) : 0;
+            advanceBase();
+            advanceChange();
+            this.next = computeNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public User next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            User current = next;
+            next = computeNext();
+            return current;
+        }
+
+        private User computeNext() {
+            while (baseEmail != null || change != null) {
+                int order = baseEmail == null ? 1 : change == null ? -1 : baseEmail.compareTo(change.getKey());
+                if (order < 0) {
+                    User user = base.userAt(ordinal++);
+                    advanceBase();
+                    return user;
+                }
+                if (order == 0) {
+                    // Shadowed by the in-memory change
+                    ordinal++;
+                    advanceBase();
+                }
+                User user = change.getValue();
+                advanceChange();
+                if (user != TOMBSTONE) {
+                    return new User(user);
+                }
+            }
+            return null;
+        }
+
+        private void advanceBase() {
+            baseEmail = base != null && ordinal < base.size() ? base.emailAt(ordinal) : null;
+        }
+
+        private void advanceChange() {
+            change = changes.hasNext() ? changes.next() : null;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.tata.self_healing.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed pool of locks selected by key hash. Operations on the same key are serialized,
+ * while operations on different keys only contend when they happen to share a stripe.
+ */
+public class StripedLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedLockManager(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Run the action while holding the stripe lock for the given key
+     */
+    public <T> T withLock(String key, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(key);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run the action while holding the stripe locks for all given keys.
+     * Stripes are acquired in index order so overlapping multi-key calls cannot deadlock.
+     */
+    public <T> T withLocks(Collection<String> keys, Supplier<T> action) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (String key : keys) {
+            indexes.add(stripeIndex(key));
+        }
+
+        List<ReentrantLock> acquired = new ArrayList<>(indexes.size());
+        try {
+            for (int index : indexes) {
+                ReentrantLock lock = stripes[index];
+                lock.lock();
+                acquired.add(lock);
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired.size() - 1; i >= 0; i--) {
+                acquired.get(i).unlock();
+            }
+        }
+    }
+
+    private ReentrantLock stripeFor(String key) {
+        return stripes[stripeIndex(key)];
+    }
+
+    private int stripeIndex(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16); // Spread high bits so similar keys don't cluster on one stripe
+        return hash & mask;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+}
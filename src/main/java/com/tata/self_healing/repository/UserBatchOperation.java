@@ -0,0 +1,58 @@
+package com.tata.self_healing.repository;
+
+import com.tata.self_healing.model.User;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * One item of a batch applied atomically by {@link JsonFileUserRepository#applyBatch}
+ */
+public class UserBatchOperation {
+
+    public enum Type { CREATE, UPDATE, DELETE }
+
+    private final Type type;
+    private final String email;
+    private final User user;
+    private final UnaryOperator<User> updater;
+
+    private UserBatchOperation(Type type, String email, User user, UnaryOperator<User> updater) {
+        this.type = type;
+        this.email = email;
+        this.user = user;
+        this.updater = updater;
+    }
+
+    public static UserBatchOperation create(User user) {
+        return new UserBatchOperation(Type.CREATE, user.getEmail(), user, null);
+    }
+
+    public static UserBatchOperation update(String email, UnaryOperator<User> updater) {
+        return new UserBatchOperation(Type.UPDATE, email, null, updater);
+    }
+
+    public static UserBatchOperation delete(String email) {
+        return new UserBatchOperation(Type.DELETE, email, null, null);
+    }
+
+    /**
+     * Resolve against the current stored user: the mutation to log, or null when the operation
+     * does not apply (create of an existing email, update/delete of a missing one)
+     */
+    UserWriteAheadLog.WalRecord resolve(User current) {
+        switch (type) {
+            case CREATE:
+                return current == null ? UserWriteAheadLog.WalRecord.put(user) : null;
+            case UPDATE:
+                return current != null ? UserWriteAheadLog.WalRecord.put(updater.apply(new User(current))) : null;
+            case DELETE:
+                return current != null ? UserWriteAheadLog.WalRecord.delete(email) : null;
+            default:
+                return null;
+        }
+    }
+
+    // Getters
+    public Type getType() { return type; }
+    public String getEmail() { return email; }
+}
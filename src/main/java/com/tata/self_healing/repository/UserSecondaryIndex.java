@@ -0,0 +1,201 @@
+package com.tata.self_healing.repository;
+
+import com.tata.self_healing.model.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory secondary indexes over the user dataset: a sorted map on age and a
+ * case-insensitive prefix trie on name. Both resolve to emails, which are then
+ * looked up through the primary index. Each user's current version is tracked too,
+ * so conditional requests can be answered without reading the user.
+ */
+public class UserSecondaryIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IndexedFields> fieldsByEmail = new HashMap<>();
+    private final TreeMap<Integer, TreeSet<String>> emailsByAge = new TreeMap<>();
+    private final TrieNode nameRoot = new TrieNode();
+
+    /**
+     * Re-index one email; a null user removes it from every index
+     */
+    public void update(String email, User user) {
+        lock.writeLock().lock();
+        try {
+            IndexedFields previous = fieldsByEmail.remove(email);
+            if (previous != null) {
+                unindex(email, previous);
+            }
+            if (user != null) {
+                IndexedFields fields = new IndexedFields(normalize(user.getName()), user.getAge(), user.getVersion());
+                fieldsByEmail.put(email, fields);
+                index(email, fields);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Current version of the user, or null when no user has this email
+     */
+    public Long versionOf(String email) {
+        lock.readLock().lock();
+        try {
+            IndexedFields fields = fieldsByEmail.get(email);
+            return fields != null ? fields.version : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            fieldsByEmail.clear();
+            emailsByAge.clear();
+            nameRoot.children.clear();
+            nameRoot.emails.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Emails matching all given criteria (null means unbounded), at most limit of them.
+     * With a name prefix the trie drives the walk (results in name order), otherwise the
+     * age map does (results in age order).
+     */
+    public List<String> search(Integer minAge, Integer maxAge, String namePrefix, int limit) {
+        List<String> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (namePrefix != null) {
+                TrieNode node = nameRoot;
+                for (char c : normalize(namePrefix).toCharArray()) {
+                    node = node.children.get(c);
+                    if (node == null) {
+                        return matches;
+                    }
+                }
+                collect(node, minAge, maxAge, limit, matches);
+                return matches;
+            }
+
+            NavigableMap<Integer, TreeSet<String>> range = emailsByAge;
+            if (minAge != null) {
+                range = range.tailMap(minAge, true);
+            }
+            if (maxAge != null) {
+                range = range.headMap(maxAge, true);
+            }
+            for (TreeSet<String> emails : range.values()) {
+                for (String email : emails) {
+                    if (matches.size() >= limit) {
+                        return matches;
+                    }
+                    matches.add(email);
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(TrieNode node, Integer minAge, Integer maxAge, int limit, List<String> matches) {
+        for (String email : node.emails) {
+            if (matches.size() >= limit) {
+                return;
+            }
+            if (inRange(fieldsByEmail.get(email).age, minAge, maxAge)) {
+                matches.add(email);
+            }
+        }
+        for (TrieNode child : node.children.values()) {
+            if (matches.size() >= limit) {
+                return;
+            }
+            collect(child, minAge, maxAge, limit, matches);
+        }
+    }
+
+    private void index(String email, IndexedFields fields) {
+        if (fields.age != null) {
+            emailsByAge.computeIfAbsent(fields.age, age -> new TreeSet<>()).add(email);
+        }
+        if (fields.name != null) {
+            TrieNode node = nameRoot;
+            for (char c : fields.name.toCharArray()) {
+                node = node.children.computeIfAbsent(c, key -> new TrieNode());
+            }
+            node.emails.add(email);
+        }
+    }
+
+    private void unindex(String email, IndexedFields fields) {
+        if (fields.age != null) {
+            TreeSet<String> emails = emailsByAge.get(fields.age);
+            if (emails != null && emails.remove(email) && emails.isEmpty()) {
+                emailsByAge.remove(fields.age);
+            }
+        }
+        if (fields.name != null) {
+            removeFromTrie(nameRoot, fields.name, 0, email);
+        }
+    }
+
+    /**
+     * Remove the email under the given name, pruning nodes left empty; returns whether this node is now empty
+     */
+    private boolean removeFromTrie(TrieNode node, String name, int depth, String email) {
+        if (depth == name.length()) {
+            node.emails.remove(email);
+        } else {
+            char c = name.charAt(depth);
+            TrieNode child = node.children.get(c);
+            if (child != null && removeFromTrie(child, name, depth + 1, email)) {
+                node.children.remove(c);
+            }
+        }
+        return node.emails.isEmpty() && node.children.isEmpty();
+    }
+
+    static boolean inRange(Integer age, Integer minAge, Integer maxAge) {
+        if (minAge == null && maxAge == null) {
+            return true;
+        }
+        return age != null && (minAge == null || age >= minAge) && (maxAge == null || age <= maxAge);
+    }
+
+    static String normalize(String name) {
+        return name != null ? name.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static class IndexedFields {
+        private final String name;
+        private final Integer age;
+        private final long version;
+
+        IndexedFields(String name, Integer age, long version) {
+            this.name = name;
+            this.age = age;
+            this.version = version;
+        }
+    }
+
+    private static class TrieNode {
+        private final TreeMap<Character, TrieNode> children = new TreeMap<>();
+        private final TreeSet<String> emails = new TreeSet<>();
+    }
+}
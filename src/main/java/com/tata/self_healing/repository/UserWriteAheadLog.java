@@ -0,0 +1,231 @@
+package com.tata.self_healing.repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tata.self_healing.exception.FileOperationException;
+import com.tata.self_healing.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Append-only write-ahead log of user mutations.
+ * Each mutation is one compact JSON line; replay is idempotent so a crash
+ * between snapshot and truncate only re-applies records already in the snapshot.
+ */
+public class UserWriteAheadLog implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(UserWriteAheadLog.class);
+
+    private final Path logPath;
+    private final ObjectMapper objectMapper;
+    private FileChannel channel;
+    private long recordCount;
+
+    public UserWriteAheadLog(Path logPath, ObjectMapper objectMapper) {
+        this.logPath = logPath;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Replay every complete record through the given handler and open the log for appending.
+     * A record is complete only with its terminating newline; the log is truncated after the
+     * last complete record so the next append starts on a fresh line.
+     */
+    public int replay(Consumer<WalRecord> handler) {
+        int applied = 0;
+        long validBytes = 0;
+
+        try {
+            if (Files.exists(logPath)) {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(logPath))) {
+                    ByteArrayOutputStream line = new ByteArrayOutputStream();
+                    int next;
+                    while ((next = in.read()) != -1) {
+                        if (next != '\n') {
+                            line.write(next);
+                            continue;
+                        }
+                        String text = line.toString(StandardCharsets.UTF_8);
+                        if (!text.isBlank()) {
+                            WalRecord record;
+                            try {
+                                record = objectMapper.readValue(text, WalRecord.class);
+                            } catch (IOException e) {
+                                // Corrupt record; everything from here on is discarded
+                                logger.warn("Discarding unreadable WAL record at offset {}", validBytes);
+                                line.reset();
+                                break;
+                            }
+                            handler.accept(record);
+                            applied++;
+                        }
+                        validBytes += line.size() + 1;
+                        line.reset();
+                    }
+                    if (line.size() > 0) {
+                        // A torn tail from a crash mid-append: the record was never acknowledged
+                        logger.warn("Discarding incomplete WAL record at offset {}", validBytes);
+                    }
+                }
+            }
+
+            channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.size() > validBytes) {
+                channel.truncate(validBytes);
+            }
+            channel.position(validBytes);
+            recordCount = applied;
+
+            logger.info("Replayed {} records from write-ahead log {}", applied, logPath);
+            return applied;
+        } catch (IOException e) {
+            logger.error("Error replaying write-ahead log", e);
+            throw new FileOperationException("Error replaying write-ahead log", e);
+        }
+    }
+
+    public void append(WalRecord record) {
+        appendAll(List.of(record));
+    }
+
+    /**
+     * Append records and fsync once, so a batch costs a single durable write
+     */
+    public synchronized void appendAll(List<WalRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        long start = -1;
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            for (WalRecord record : records) {
+                buffer.write(objectMapper.writeValueAsBytes(record));
+                buffer.write('\n');
+            }
+
+            start = channel.position();
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+            recordCount += records.size();
+        } catch (IOException e) {
+            discardPartialAppend(start);
+            logger.error("Error appending to write-ahead log", e);
+            throw new FileOperationException("Error appending to write-ahead log", e);
+        }
+    }
+
+    /**
+     * Cut off whatever part of a failed append reached the file, so it cannot merge with the next record
+     */
+    private void discardPartialAppend(long start) {
+        if (start < 0) {
+            return;
+        }
+        try {
+            channel.truncate(start);
+            channel.position(start);
+        } catch (IOException e) {
+            logger.warn("Failed to discard partial write-ahead log append", e);
+        }
+    }
+
+    /**
+     * Drop all records once their effects are captured in a snapshot
+     */
+    public synchronized void truncate() {
+        try {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+            recordCount = 0;
+        } catch (IOException e) {
+            logger.error("Error truncating write-ahead log", e);
+            throw new FileOperationException("Error truncating write-ahead log", e);
+        }
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close write-ahead log", e);
+        }
+    }
+
+    /**
+     * Single logged mutation: PUT carries the full user, DELETE only the email
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class WalRecord {
+        public static final String PUT = "PUT";
+        public static final String DELETE = "DELETE";
+
+        private String op;
+        private String email;
+        private User user;
+
+        public WalRecord() {
+        }
+
+        private WalRecord(String op, String email, User user) {
+            this.op = op;
+            this.email = email;
+            this.user = user;
+        }
+
+        public static WalRecord put(User user) {
+            return new WalRecord(PUT, user.getEmail(), user);
+        }
+
+        public static WalRecord delete(String email) {
+            return new WalRecord(DELETE, email, null);
+        }
+
+        /**
+         * Apply to the given email-keyed map; returns whether the map changed
+         */
+        boolean applyTo(Map<String, User> index) {
+            if (PUT.equals(op)) {
+                index.put(email, user);
+                return true;
+            }
+            if (DELETE.equals(op)) {
+                return index.remove(email) != null;
+            }
+            return false;
+        }
+
+        // Getters and setters
+        public String getOp() { return op; }
+        public void setOp(String op) { this.op = op; }
+        public String getEmail() { return email; }
+        public void setEmail(String email) { this.email = email; }
+        public User getUser() { return user; }
+        public void setUser(User user) { this.user = user; }
+    }
+}
@@ -1,16 +1,24 @@
 package com.tata.self_healing.service;
 
+import com.tata.self_healing.dto.BatchItemResult;
 import com.tata.self_healing.exception.DuplicateEmailException;
+import com.tata.self_healing.exception.PreconditionFailedException;
 import com.tata.self_healing.exception.UserNotFoundException;
 import com.tata.self_healing.model.User;
 import com.tata.self_healing.repository.JsonFileUserRepository;
+import com.tata.self_healing.repository.UserBatchOperation;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.LongPredicate;
 
 @Service
 public class UserService {
@@ -19,11 +27,54 @@ public class UserService {
     @Autowired
     private JsonFileUserRepository userRepository;
 
+    @Autowired
+    private Validator validator;
+
     public List<User> getAllUsers() {
         logger.info("Retrieving all users");
         return userRepository.findAll();
     }
 
+    /**
+     * Get one page of users in email order, starting after the given cursor
+     */
+    public List<User> getUsersPage(String after, int limit) {
+        logger.info("Retrieving users page: after={}, limit={}", after, limit);
+        List<User> page = new ArrayList<>(limit);
+        userRepository.forEachUser(after, limit, page::add);
+        return page;
+    }
+
+    /**
+     * Stream users to the visitor one at a time without materializing the full list
+     */
+    public int streamUsers(String after, int limit, Consumer<User> visitor) {
+        logger.info("Streaming users: after={}, limit={}", after, limit);
+        return userRepository.forEachUser(after, limit, visitor);
+    }
+
+    /**
+     * Find users by age range and/or name prefix using the secondary indexes
+     */
+    public List<User> searchUsers(Integer minAge, Integer maxAge, String namePrefix, int limit) {
+        logger.info("Searching users: minAge={}, maxAge={}, namePrefix={}, limit={}", minAge, maxAge, namePrefix, limit);
+        return userRepository.search(minAge, maxAge, namePrefix, limit);
+    }
+
+    /**
+     * Version of the whole user collection, for collection ETags
+     */
+    public long getDatasetVersion() {
+        return userRepository.getDatasetVersion();
+    }
+
+    /**
+     * Current version of the user when known without reading storage, otherwise null
+     */
+    public Long findUserVersion(String email) {
+        return userRepository.findVersionByEmail(email);
+    }
+
     public User getUserByEmail(String email) {
         logger.info("Retrieving user by email: {}", email);
         return userRepository.findByEmail(email)
@@ -33,50 +84,155 @@ public class UserService {
     public User createUser(User user) {
         logger.info("Creating new user: {}", user.getEmail());
 
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new DuplicateEmailException("User already exists with email: " + user.getEmail());
-        }
-
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
 
-        User savedUser = userRepository.save(user);
-        logger.info("Successfully created user: {}", savedUser.getEmail());
-        return savedUser;
+        // Existence check and insert happen atomically under the email's lock stripe
+        if (userRepository.putIfAbsent(user).isPresent()) {
+            throw new DuplicateEmailException("User already exists with email: " + user.getEmail());
+        }
+
+        logger.info("Successfully created user: {}", user.getEmail());
+        return user;
     }
 
     public User updateUser(String email, User updatedUser) {
+        return updateUser(email, updatedUser, null);
+    }
+
+    /**
+     * Update the user if its current version satisfies the precondition (null for unconditional)
+     */
+    public User updateUser(String email, User updatedUser, LongPredicate expectedVersion) {
         logger.info("Updating user: {}", email);
 
-        User existingUser = userRepository.findByEmail(email)
+        User savedUser = userRepository.computeIfPresent(email, existingUser -> {
+                    checkVersion(existingUser, expectedVersion);
+                    // Update fields (email cannot be changed)
+                    existingUser.setName(updatedUser.getName());
+                    existingUser.setAge(updatedUser.getAge());
+                    existingUser.setUpdatedAt(LocalDateTime.now());
+                    return existingUser;
+                })
                 .orElseThrow(() -> new UserNotFoundException("User not found with email: " + email));
 
-        // Update fields (email cannot be changed)
-        existingUser.setName(updatedUser.getName());
-        existingUser.setAge(updatedUser.getAge());
-        existingUser.setUpdatedAt(LocalDateTime.now());
-
-        User savedUser = userRepository.save(existingUser);
         logger.info("Successfully updated user: {}", savedUser.getEmail());
         return savedUser;
     }
 
     public void deleteUser(String email) {
+        deleteUser(email, null);
+    }
+
+    /**
+     * Delete the user if its current version satisfies the precondition (null for unconditional)
+     */
+    public void deleteUser(String email, LongPredicate expectedVersion) {
         logger.info("Deleting user: {}", email);
 
-        if (!userRepository.existsByEmail(email)) {
+        boolean deleted = expectedVersion == null
+                ? userRepository.deleteByEmail(email)
+                : userRepository.deleteByEmail(email, existingUser -> checkVersion(existingUser, expectedVersion));
+        if (!deleted) {
             throw new UserNotFoundException("User not found with email: " + email);
         }
+        logger.info("Successfully deleted user: {}", email);
+    }
 
-        boolean deleted = userRepository.deleteByEmail(email);
-        if (deleted) {
-            logger.info("Successfully deleted user: {}", email);
-        } else {
-            logger.error("Failed to delete user: {}", email);
-            throw new RuntimeException("Failed to delete user: " + email);
+    private void checkVersion(User existingUser, LongPredicate expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.test(existingUser.getVersion())) {
+            throw new PreconditionFailedException("User " + existingUser.getEmail()
+                    + " has been modified (current version " + existingUser.getVersion() + ")");
         }
     }
 
+    /**
+     * Create many users with a single persistence write; returns one result per input item
+     */
+    public List<BatchItemResult> createUsers(List<User> users) {
+        logger.info("Creating batch of {} users", users.size());
+
+        LocalDateTime now = LocalDateTime.now();
+        return applyBatch(users.size(), index -> {
+            User user = users.get(index);
+            user.setCreatedAt(now);
+            user.setUpdatedAt(now);
+            return UserBatchOperation.create(user);
+        }, users::get, "CREATED", "DUPLICATE_EMAIL", "User already exists with email: ");
+    }
+
+    /**
+     * Update the name and age of many users with a single persistence write
+     */
+    public List<BatchItemResult> updateUsers(List<User> users) {
+        logger.info("Updating batch of {} users", users.size());
+
+        return applyBatch(users.size(), index -> {
+            User updatedUser = users.get(index);
+            return UserBatchOperation.update(updatedUser.getEmail(), existingUser -> {
+                existingUser.setName(updatedUser.getName());
+                existingUser.setAge(updatedUser.getAge());
+                existingUser.setUpdatedAt(LocalDateTime.now());
+                return existingUser;
+            });
+        }, users::get, "UPDATED", "USER_NOT_FOUND", "User not found with email: ");
+    }
+
+    /**
+     * Delete many users with a single persistence write
+     */
+    public List<BatchItemResult> deleteUsers(List<String> emails) {
+        logger.info("Deleting batch of {} users", emails.size());
+
+        return applyBatch(emails.size(), index -> UserBatchOperation.delete(emails.get(index)),
+                index -> null, "DELETED", "USER_NOT_FOUND", "User not found with email: ");
+    }
+
+    /**
+     * Validate every item, apply the valid ones as one repository transaction and map per-item outcomes
+     */
+    private List<BatchItemResult> applyBatch(int size,
+                                             IntFunction<UserBatchOperation> operationFactory,
+                                             IntFunction<User> validationTarget,
+                                             String successStatus,
+                                             String conflictCode,
+                                             String conflictMessage) {
+        BatchItemResult[] results = new BatchItemResult[size];
+        List<UserBatchOperation> operations = new ArrayList<>(size);
+        List<Integer> operationIndexes = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            User target = validationTarget.apply(i);
+            if (target != null) {
+                Set<ConstraintViolation<User>> violations = validator.validate(target);
+                if (!violations.isEmpty()) {
+                    Map<String, String> fieldErrors = new HashMap<>();
+                    violations.forEach(v -> fieldErrors.put(v.getPropertyPath().toString(), v.getMessage()));
+                    results[i] = BatchItemResult.failure(i, target.getEmail(), "VALIDATION_ERROR",
+                            "Invalid input data: " + fieldErrors);
+                    continue;
+                }
+            }
+            operations.add(operationFactory.apply(i));
+            operationIndexes.add(i);
+        }
+
+        List<Boolean> outcomes = operations.isEmpty()
+                ? Collections.emptyList()
+                : userRepository.applyBatch(operations);
+
+        for (int j = 0; j < operations.size(); j++) {
+            int index = operationIndexes.get(j);
+            String email = operations.get(j).getEmail();
+            results[index] = outcomes.get(j)
+                    ? BatchItemResult.success(index, email, successStatus)
+                    : BatchItemResult.failure(index, email, conflictCode, conflictMessage + email);
+        }
+
+        logger.info("Batch completed: {} of {} items applied", outcomes.stream().filter(b -> b).count(), size);
+        return Arrays.asList(results);
+    }
+
     public boolean userExists(String email) {
         return userRepository.existsByEmail(email);
     }
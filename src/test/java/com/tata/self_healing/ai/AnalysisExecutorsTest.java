@@ -0,0 +1,45 @@
+package com.tata.self_healing.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rejection handling of the async helpers: a saturated executor fails the stage, never strands it
+ */
+public class AnalysisExecutorsTest {
+
+    private static final Executor SATURATED = task -> {
+        throw new RejectedExecutionException("The llm executor is saturated");
+    };
+
+    @Test
+    public void testRejectedSupplyYieldsFailedFuture() {
+        CompletableFuture<String> future = AnalysisExecutors.supplyAsync(() -> "prompt", SATURATED);
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testRejectedContinuationFailsTheStageWhenTheSourceCompletesLater() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<Integer> parsed = AnalysisExecutors.thenApplyAsync(source, String::length, SATURATED);
+
+        // Completing the source must neither throw nor leave the dependent stage pending
+        assertTrue(source.complete("response"));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> parsed.get(1, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void testContinuationRunsOnTheGivenExecutor() throws Exception {
+        CompletableFuture<Integer> parsed = AnalysisExecutors.thenApplyAsync(
+                CompletableFuture.completedFuture("response"), String::length, Runnable::run);
+        assertEquals(8, parsed.get(1, TimeUnit.SECONDS).intValue());
+    }
+}
@@ -0,0 +1,139 @@
+package com.tata.self_healing.ai;
+
+import com.tata.self_healing.monitoring.ErrorPatternDetector;
+import io.micrometer.core.instrument.Counter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sharing, reuse and cancellation of cached analyses
+ */
+public class AnalysisResultCacheTest {
+
+    private static final List<ErrorPatternDetector.ErrorInsight> NO_INSIGHTS = List.of();
+
+    private final AnalysisResultCache cache = new AnalysisResultCache(60_000, 8,
+            new NoopCounter(), new NoopCounter(), new NoopCounter(), new NoopCounter());
+
+    @Test
+    public void testConcurrentCallersShareOneGeneration() {
+        AtomicInteger generations = new AtomicInteger();
+        CompletableFuture<GenAIAnalysisService.AIAnalysisResult> generation = new CompletableFuture<>();
+
+        AnalysisResultCache.Lookup first = cache.getOrCompute("key", "sig", NO_INSIGHTS, () -> {
+            generations.incrementAndGet();
+            return generation;
+        });
+        AnalysisResultCache.Lookup second = cache.getOrCompute("key", "sig", NO_INSIGHTS, () -> {
+            generations.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertFalse(first.isHit());
+        assertTrue(second.isHit());
+        GenAIAnalysisService.AIAnalysisResult result = result("analysis-1");
+        generation.complete(result);
+        assertSame(result, first.getResult().join());
+        assertEquals("root cause", second.getResult().join().getRootCauseAnalysis());
+        assertEquals(1, generations.get());
+    }
+
+    @Test
+    public void testCancellingAnUnsharedAnalysisCancelsTheGeneration() {
+        CompletableFuture<GenAIAnalysisService.AIAnalysisResult> generation = new CompletableFuture<>();
+        AnalysisResultCache.Lookup lookup = cache.getOrCompute("key", "sig", NO_INSIGHTS, () -> generation);
+
+        lookup.getResult().cancel(true);
+
+        assertTrue(generation.isCancelled());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testCancellingASharedAnalysisLeavesItRunningForTheOthers() {
+        CompletableFuture<GenAIAnalysisService.AIAnalysisResult> generation = new CompletableFuture<>();
+        AnalysisResultCache.Lookup owner = cache.getOrCompute("key", "sig", NO_INSIGHTS, () -> generation);
+        AnalysisResultCache.Lookup leaving = cache.getOrCompute("key", "sig", NO_INSIGHTS, CompletableFuture::new);
+        AnalysisResultCache.Lookup staying = cache.getOrCompute("key", "sig", NO_INSIGHTS, CompletableFuture::new);
+
+        owner.getResult().cancel(true);
+        // A joined caller cannot cancel the generation for everyone either
+        leaving.getResult().cancel(true);
+        assertFalse(generation.isCancelled());
+
+        GenAIAnalysisService.AIAnalysisResult result = result("analysis-1");
+        generation.complete(result);
+        assertEquals("root cause", staying.getResult().join().getRootCauseAnalysis());
+        assertTrue(cache.getOrCompute("key", "sig", NO_INSIGHTS, CompletableFuture::new).isHit());
+    }
+
+    @Test
+    public void testFallbackAndErrorResultsAreNotReused() {
+        GenAIAnalysisService.AIAnalysisResult fallback = result("analysis-1");
+        fallback.setFallback(true);
+        cache.getOrCompute("fallback", "sig", NO_INSIGHTS, () -> CompletableFuture.completedFuture(fallback)).getResult().join();
+        cache.getOrCompute("error", "sig", NO_INSIGHTS, () -> CompletableFuture.completedFuture(result("error"))).getResult().join();
+
+        assertEquals(0, cache.size());
+        assertFalse(cache.getOrCompute("fallback", "sig", NO_INSIGHTS, () -> CompletableFuture.completedFuture(result("analysis-2"))).isHit());
+        assertTrue(cache.getOrCompute("fallback", "sig", NO_INSIGHTS, CompletableFuture::new).isHit());
+    }
+
+    @Test
+    public void testEveryHitGetsItsOwnCopyForItsInsights() {
+        GenAIAnalysisService.AIAnalysisResult original = result("analysis-1");
+        cache.getOrCompute("key", "sig", List.of(insight("first")),
+                () -> CompletableFuture.completedFuture(original)).getResult().join();
+        // The caller that ran the analysis edits its result afterwards
+        original.setRootCauseAnalysis("edited");
+        original.getRecommendations().clear();
+
+        List<ErrorPatternDetector.ErrorInsight> current = List.of(insight("second"));
+        GenAIAnalysisService.AIAnalysisResult first = cache.getOrCompute("key", "sig", current, CompletableFuture::new)
+                .getResult().join();
+        GenAIAnalysisService.AIAnalysisResult second = cache.getOrCompute("key", "sig", current, CompletableFuture::new)
+                .getResult().join();
+
+        assertEquals("root cause", first.getRootCauseAnalysis());
+        assertSame(current, first.getOriginalInsights());
+        assertNotEquals("analysis-1", first.getAnalysisId());
+        assertNotEquals(first.getAnalysisId(), second.getAnalysisId());
+        assertEquals(1, first.getRecommendations().size());
+        assertNotSame(first.getRecommendations().get(0), second.getRecommendations().get(0));
+        assertNotEquals(first.getRecommendations().get(0).getRecommendationId(),
+                second.getRecommendations().get(0).getRecommendationId());
+    }
+
+    private static GenAIAnalysisService.AIAnalysisResult result(String analysisId) {
+        GenAIAnalysisService.AIAnalysisResult result = new GenAIAnalysisService.AIAnalysisResult();
+        result.setAnalysisId(analysisId);
+        result.setRootCauseAnalysis("root cause");
+        GenAIAnalysisService.HealingRecommendation recommendation = new GenAIAnalysisService.HealingRecommendation();
+        recommendation.setRecommendationId("recommendation-1");
+        recommendation.setAction("Restart the service");
+        List<GenAIAnalysisService.HealingRecommendation> recommendations = new ArrayList<>();
+        recommendations.add(recommendation);
+        result.setRecommendations(recommendations);
+        return result;
+    }
+
+    private static ErrorPatternDetector.ErrorInsight insight(String message) {
+        ErrorPatternDetector.ErrorInsight insight = new ErrorPatternDetector.ErrorInsight();
+        insight.setMessage(message);
+        return insight;
+    }
+
+    private static class NoopCounter implements Counter {
+        @Override
+        public void increment() { }
+
+        @Override
+        public double count() { return 0; }
+    }
+}
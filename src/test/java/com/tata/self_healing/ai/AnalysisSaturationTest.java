@@ -0,0 +1,75 @@
+package com.tata.self_healing.ai;
+
+import com.tata.self_healing.SelfHealingApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * AI analysis against a saturated LLM executor: the request must complete with an error result
+ * rather than wait for a stage that was never scheduled
+ */
+@SpringBootTest(classes = SelfHealingApplication.class, properties = {
+        "self-healing.ai.mock-mode=true",
+        "self-healing.ai.cache.enabled=false",
+        "self-healing.executor.llm.max-threads=1",
+        "self-healing.executor.llm.queue-capacity=1"
+})
+@AutoConfigureMockMvc
+public class AnalysisSaturationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AnalysisExecutors analysisExecutors;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    public void releaseExecutor() {
+        release.countDown();
+    }
+
+    @Test
+    public void testAnalysisFailsFastWhenTheLlmExecutorIsSaturated() throws Exception {
+        // One task running and one queued fill the executor
+        CountDownLatch running = new CountDownLatch(1);
+        analysisExecutors.llm().execute(() -> {
+            running.countDown();
+            awaitRelease();
+        });
+        running.await(5, TimeUnit.SECONDS);
+        analysisExecutors.llm().execute(this::awaitRelease);
+
+        MvcResult pending = mockMvc.perform(post("/api/v1/ai/analyze")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.analysisId").value("error"))
+                .andExpect(jsonPath("$.data.rootCauseAnalysis").value(containsString("saturated")));
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.tata.self_healing.ai;
+
+import com.tata.self_healing.monitoring.ErrorPatternDetector;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cache keys of analyses: which insights count as the same incident
+ */
+public class GenAIAnalysisServiceTest {
+
+    private final GenAIAnalysisService service = new GenAIAnalysisService();
+
+    @Test
+    public void testErrorRatesOnDifferentRoutesGetDifferentKeys() {
+        ReflectionTestUtils.setField(service, "cacheContextKeys", new String[] {"environment"});
+        Map<String, Object> context = Map.of("environment", "test");
+
+        String users = cacheKey(List.of(errorRate("/api/v1/users", 40)), context);
+        String monitoring = cacheKey(List.of(errorRate("/api/v1/monitoring", 40)), context);
+        // Same route, message and count changed within the same power-of-two bucket
+        String usersLater = cacheKey(List.of(errorRate("/api/v1/users", 50)), context);
+
+        assertNotEquals(users, monitoring);
+        assertEquals(users, usersLater);
+    }
+
+    private String cacheKey(List<ErrorPatternDetector.ErrorInsight> insights, Map<String, Object> context) {
+        return ReflectionTestUtils.invokeMethod(service, "analysisCacheKey", insights, context);
+    }
+
+    private static ErrorPatternDetector.ErrorInsight errorRate(String route, int errors) {
+        ErrorPatternDetector.ErrorInsight insight = new ErrorPatternDetector.ErrorInsight();
+        insight.setType("HIGH_ERROR_RATE");
+        insight.setPatternId("HIGH_ERROR_RATE:" + route);
+        insight.setSeverity("HIGH");
+        insight.setMessage("High error rate on " + route + ": " + errors + " errors");
+        insight.setOccurrenceCount(errors);
+        return insight;
+    }
+}
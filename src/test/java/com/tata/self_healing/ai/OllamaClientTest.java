@@ -0,0 +1,129 @@
+package com.tata.self_healing.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Streaming calls against a local HTTP server: lines are delivered as they arrive, and a failing
+ * line handler or a stalled stream fails the call and frees the host's permit
+ */
+public class OllamaClientTest {
+
+    private HttpServer server;
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private OllamaClient client;
+    private final CountDownLatch releaseStalled = new CountDownLatch(1);
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/stream", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                write(body, "{\"message\":{\"content\":\"a\"}}\n");
+                write(body, "{\"error\":\"model unloaded\"}\n");
+                write(body, "{\"message\":{\"content\":\"b\"}}\n");
+            }
+        });
+        server.createContext("/stalled", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                write(body, "{\"message\":{\"content\":\"a\"}}\n");
+                releaseStalled.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // Stalled handlers must not hold up other exchanges
+        server.setExecutor(handlers);
+        server.start();
+
+        client = new OllamaClient();
+        ReflectionTestUtils.setField(client, "jamvantHttpClient", HttpClient.newHttpClient());
+        ReflectionTestUtils.setField(client, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(client, "requestTimeoutMs", 5000);
+        ReflectionTestUtils.setField(client, "streamTimeoutMs", 300L);
+        ReflectionTestUtils.setField(client, "maxConcurrentPerHost", 1);
+        ReflectionTestUtils.setField(client, "maxPendingPerHost", 4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        releaseStalled.countDown();
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    @Test
+    public void testFailingLineCancelsTheStreamAndFailsTheCall() {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> call = client.postJsonStreaming(url("/stream"), Map.of(), line -> {
+            if (line.contains("error")) {
+                throw new IllegalStateException("JAMVANT stream error: model unloaded");
+            }
+            lines.add(line);
+        });
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+        assertEquals("JAMVANT stream error: model unloaded", failure.getCause().getMessage());
+        assertEquals(List.of("{\"message\":{\"content\":\"a\"}}"), lines);
+    }
+
+    @Test
+    public void testStalledStreamTimesOutAndReleasesTheHostPermit() throws Exception {
+        CompletableFuture<Void> stalled = client.postJsonStreaming(url("/stalled"), Map.of(), line -> { });
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> stalled.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof TimeoutException);
+
+        // With one permit per host, this call only starts once the stalled one has let go
+        List<String> lines = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> next = client.postJsonStreaming(url("/stream"), Map.of(), lines::add);
+        next.get(5, TimeUnit.SECONDS);
+        assertEquals(3, lines.size());
+    }
+
+    @Test
+    public void testCancellingAStreamReleasesTheHostPermit() throws Exception {
+        ReflectionTestUtils.setField(client, "streamTimeoutMs", 60_000L);
+        CountDownLatch firstLine = new CountDownLatch(1);
+        CompletableFuture<Void> stalled = client.postJsonStreaming(url("/stalled"), Map.of(), line -> firstLine.countDown());
+        assertTrue(firstLine.await(5, TimeUnit.SECONDS));
+
+        assertTrue(stalled.cancel(true));
+        // The stalled server is still holding its response open; only the cancellation frees the permit
+        List<String> lines = new CopyOnWriteArrayList<>();
+        client.postJsonStreaming(url("/stream"), Map.of(), lines::add).get(5, TimeUnit.SECONDS);
+        assertEquals(3, lines.size());
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static void write(OutputStream body, String text) throws IOException {
+        body.write(text.getBytes(StandardCharsets.UTF_8));
+        body.flush();
+    }
+}
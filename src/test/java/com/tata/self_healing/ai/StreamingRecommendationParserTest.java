@@ -0,0 +1,78 @@
+package com.tata.self_healing.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Incremental extraction of healing recommendations from a response fed in arbitrary fragments
+ */
+public class StreamingRecommendationParserTest {
+
+    private static final String RESPONSE = """
+            Here is my analysis: {
+                "rootCauseAnalysis": "Clients send {malformed} payloads, see \\"healingRecommendations\\": [{}]",
+                "details": {"healingRecommendations": [{"action": "not top-level"}]},
+                "healingRecommendations": [
+                    {"action": "Add validation", "priority": "HIGH", "implementation": {"layer": "controller", "rules": ["email", "age"]}},
+                    {"action": "Escape \\"}\\" in messages", "priority": "LOW", "automated": false}
+                ],
+                "preventionStrategies": [{"strategy": "not a recommendation"}],
+                "confidence": 0.9
+            }""";
+
+    @Test
+    public void testWholeResponseYieldsEachTopLevelRecommendation() {
+        List<String> recommendations = new ArrayList<>();
+        StreamingRecommendationParser parser = new StreamingRecommendationParser(recommendations::add);
+        parser.feed(RESPONSE);
+
+        assertEquals(List.of(
+                "{\"action\": \"Add validation\", \"priority\": \"HIGH\", \"implementation\": {\"layer\": \"controller\", \"rules\": [\"email\", \"age\"]}}",
+                "{\"action\": \"Escape \\\"}\\\" in messages\", \"priority\": \"LOW\", \"automated\": false}"),
+                recommendations);
+        assertEquals(2, parser.getEmitted());
+    }
+
+    @Test
+    public void testTokensSplitAnywhereGiveTheSameRecommendations() {
+        List<String> whole = new ArrayList<>();
+        new StreamingRecommendationParser(whole::add).feed(RESPONSE);
+
+        for (int size = 1; size <= 7; size++) {
+            List<String> split = new ArrayList<>();
+            StreamingRecommendationParser parser = new StreamingRecommendationParser(split::add);
+            for (int i = 0; i < RESPONSE.length(); i += size) {
+                parser.feed(RESPONSE.substring(i, Math.min(RESPONSE.length(), i + size)));
+            }
+            assertEquals(whole, split, "fragment size " + size);
+        }
+    }
+
+    @Test
+    public void testRecommendationIsEmittedAsSoonAsItCloses() {
+        List<String> recommendations = new ArrayList<>();
+        StreamingRecommendationParser parser = new StreamingRecommendationParser(recommendations::add);
+
+        parser.feed("{\"healingRecommendations\": [{\"action\": \"Restart\"");
+        assertTrue(recommendations.isEmpty());
+        parser.feed("}");
+        assertEquals(List.of("{\"action\": \"Restart\"}"), recommendations);
+        parser.feed(", {\"action\": \"Sc");
+        assertEquals(1, recommendations.size());
+    }
+
+    @Test
+    public void testResponseWithoutRecommendationsEmitsNothing() {
+        List<String> recommendations = new ArrayList<>();
+        StreamingRecommendationParser parser = new StreamingRecommendationParser(recommendations::add);
+        parser.feed("No JSON here: [{\"action\": \"ignored\"}]");
+        parser.feed("{\"rootCauseAnalysis\": \"none\", \"healingRecommendations\": []}");
+
+        assertTrue(recommendations.isEmpty());
+        assertEquals(0, parser.getEmitted());
+    }
+}
@@ -0,0 +1,171 @@
+package com.tata.self_healing.controller;
+
+import com.tata.self_healing.ai.GenAIAnalysisService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fan-out of one streamed analysis: publishing never waits on a watcher, slow watchers are
+ * dropped, and late watchers get a bounded replay
+ */
+public class AnalysisBroadcastTest {
+
+    private final ExecutorService sender = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void tearDown() {
+        sender.shutdownNow();
+    }
+
+    @Test
+    public void testStalledWatcherHoldsBackNeitherThePublisherNorOtherWatchers() throws Exception {
+        AnalysisBroadcast broadcast = new AnalysisBroadcast(sender, closed -> { }, 100, 1000);
+        RecordingEmitter stalled = new RecordingEmitter(new CountDownLatch(1));
+        RecordingEmitter fast = new RecordingEmitter(null);
+        assertTrue(broadcast.attach(stalled));
+        assertTrue(broadcast.attach(fast));
+
+        // Runs on this thread: it must return even though one watcher's send is stuck
+        for (int i = 0; i < 10; i++) {
+            broadcast.onToken("t" + i);
+        }
+        fast.awaitEvents(10);
+        assertEquals("event:token\ndata:t9", fast.events.get(9));
+
+        stalled.release.countDown();
+        stalled.awaitEvents(10);
+        assertEquals(fast.events, stalled.events);
+    }
+
+    @Test
+    public void testWatcherFallingTooFarBehindIsDisconnected() throws Exception {
+        AnalysisBroadcast broadcast = new AnalysisBroadcast(sender, closed -> { }, 2, 1000);
+        RecordingEmitter stalled = new RecordingEmitter(new CountDownLatch(1));
+        RecordingEmitter fast = new RecordingEmitter(null);
+        broadcast.attach(stalled);
+        broadcast.attach(fast);
+        broadcast.onToken("a");
+        stalled.awaitSendStarted();
+        for (int i = 0; i < 5; i++) {
+            broadcast.onToken("b" + i);
+            // The other watcher keeps up, so only the stalled one overflows
+            fast.awaitEvents(i + 2);
+        }
+
+        stalled.release.countDown();
+        assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(stalled.events.size() < 6);
+        assertEquals(1, broadcast.watcherCount());
+        fast.awaitEvents(6);
+    }
+
+    @Test
+    public void testLateWatcherIsReplayedFoldedAndCappedTokens() throws Exception {
+        AnalysisBroadcast broadcast = new AnalysisBroadcast(Runnable::run, closed -> { }, 100, 4);
+        RecordingEmitter first = new RecordingEmitter(null);
+        broadcast.attach(first);
+        broadcast.onPromptBuilt("prompt");
+        broadcast.onToken("ab");
+        broadcast.onToken("c");
+        GenAIAnalysisService.HealingRecommendation recommendation = new GenAIAnalysisService.HealingRecommendation();
+        recommendation.setRecommendationId("rec-1");
+        broadcast.onRecommendation(recommendation);
+        broadcast.onToken("de");
+
+        RecordingEmitter late = new RecordingEmitter(null);
+        broadcast.attach(late);
+        assertEquals(5, first.events.size());
+        // Consecutive tokens come back as one event; "de" is past the 4-character replay cap
+        assertEquals(3, late.events.size());
+        assertEquals("event:prompt\ndata:{promptLength=6}", late.events.get(0));
+        assertEquals("event:token\ndata:abc", late.events.get(1));
+        assertTrue(late.events.get(2).startsWith("event:recommendation"));
+
+        broadcast.finish("result", "done");
+        assertEquals("event:result\ndata:done", late.events.get(3));
+        assertEquals(0, late.completed.getCount());
+        assertFalse(broadcast.attach(new RecordingEmitter(null)));
+    }
+
+    @Test
+    public void testAnalysisIsCancelledWhenTheLastWatcherDisconnects() {
+        AtomicInteger closed = new AtomicInteger();
+        AnalysisBroadcast broadcast = new AnalysisBroadcast(Runnable::run, b -> closed.incrementAndGet(), 100, 1000);
+        RecordingEmitter watcher = new RecordingEmitter(null);
+        broadcast.attach(watcher);
+        CompletableFuture<GenAIAnalysisService.AIAnalysisResult> analysis = new CompletableFuture<>();
+        broadcast.start(analysis);
+
+        watcher.disconnected = true;
+        broadcast.onToken("x");
+        assertTrue(analysis.isCancelled());
+        assertEquals(1, closed.get());
+        assertFalse(broadcast.attach(new RecordingEmitter(null)));
+    }
+
+    /**
+     * Emitter that records each event as "event:<name>\ndata:<data>", optionally blocking every send until released
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile boolean disconnected;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (disconnected) {
+                throw new IOException("Broken pipe");
+            }
+            sendStarted.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                text.append(part.getData());
+            }
+            events.add(text.toString().trim());
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        void awaitSendStarted() throws InterruptedException {
+            assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+        }
+
+        void awaitEvents(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count) {
+                assertTrue(System.nanoTime() < deadline, "only " + events.size() + " of " + count + " events");
+                Thread.sleep(5);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.tata.self_healing.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Weak and strong ETag comparison used for If-None-Match and If-Match
+ */
+public class ETagsTest {
+
+    @Test
+    public void testWeakComparisonIgnoresTheWeakPrefix() {
+        String eTag = ETags.of(42);
+        assertEquals("\"42\"", eTag);
+        assertTrue(ETags.matches("\"42\"", eTag, false));
+        assertTrue(ETags.matches("\"7\" , W/\"42\"", eTag, false));
+        assertTrue(ETags.matches("*", eTag, false));
+        assertFalse(ETags.matches("\"7\"", eTag, false));
+        assertFalse(ETags.matches(null, eTag, false));
+    }
+
+    @Test
+    public void testStrongComparisonNeverMatchesWeakTags() {
+        String eTag = ETags.of(42);
+        assertTrue(ETags.matches("\"42\"", eTag, true));
+        assertTrue(ETags.matches("*", eTag, true));
+        assertFalse(ETags.matches("W/\"42\"", eTag, true));
+        assertFalse(ETags.matches("42", eTag, true));
+    }
+
+    @Test
+    public void testTagsAreReadAsQuotedStrings() {
+        String eTag = ETags.of(42);
+        assertTrue(ETags.matches("\"a,b\", \"42\"", eTag, true));
+        assertFalse(ETags.matches("\"4,2\"", eTag, false));
+        assertTrue(ETags.matches("bogus, \"42\"", eTag, false));
+        assertFalse(ETags.matches("\"42", eTag, false));
+        assertFalse(ETags.matches("\"420\"", eTag, false));
+    }
+}
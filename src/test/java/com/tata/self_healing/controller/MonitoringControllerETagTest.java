@@ -0,0 +1,40 @@
+package com.tata.self_healing.controller;
+
+import com.tata.self_healing.SelfHealingApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Conditional GET on the error-patterns endpoint, answered from the insights snapshot version
+ */
+@SpringBootTest(classes = SelfHealingApplication.class)
+@AutoConfigureMockMvc
+public class MonitoringControllerETagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testErrorPatternsNotModifiedWhileInsightsAreUnchanged() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/monitoring/error-patterns"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        mockMvc.perform(get("/api/v1/monitoring/error-patterns")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/" + eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        mockMvc.perform(get("/api/v1/monitoring/error-patterns")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"-1\""))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,103 @@
+package com.tata.self_healing.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tata.self_healing.SelfHealingApplication;
+import com.tata.self_healing.model.User;
+import com.tata.self_healing.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Conditional requests on the user API: 304 for matching If-None-Match, 412 for stale If-Match
+ */
+@SpringBootTest(classes = SelfHealingApplication.class)
+@AutoConfigureMockMvc
+public class UserControllerETagTest {
+
+    private static final String EMAIL = "etag.test@example.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @AfterEach
+    public void cleanUp() {
+        if (userService.userExists(EMAIL)) {
+            userService.deleteUser(EMAIL);
+        }
+    }
+
+    @Test
+    public void testMatchingIfNoneMatchReturnsNotModified() throws Exception {
+        String eTag = ETags.of(userService.createUser(new User("ETag Test", 30, EMAIL)).getVersion());
+
+        mockMvc.perform(get("/api/v1/users/" + EMAIL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        // Weak comparison: a W/ tag among others still matches
+        mockMvc.perform(get("/api/v1/users/" + EMAIL).header(HttpHeaders.IF_NONE_MATCH, "\"1\", W/" + eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/v1/users/" + EMAIL).header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testCollectionETagChangesAfterAWrite() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/users"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/v1/users").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        userService.createUser(new User("ETag Test", 30, EMAIL));
+        String changed = mockMvc.perform(get("/api/v1/users").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, changed);
+    }
+
+    @Test
+    public void testStaleIfMatchIsRejectedWithPreconditionFailed() throws Exception {
+        User created = userService.createUser(new User("ETag Test", 30, EMAIL));
+        String eTag = ETags.of(created.getVersion());
+        String body = objectMapper.writeValueAsString(new User("ETag Test", 31, EMAIL));
+
+        String updatedETag = mockMvc.perform(put("/api/v1/users/" + EMAIL)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, updatedETag);
+
+        // The first version is now stale, and strong comparison never accepts a weak tag
+        mockMvc.perform(put("/api/v1/users/" + EMAIL)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error.code").value("PRECONDITION_FAILED"));
+        mockMvc.perform(delete("/api/v1/users/" + EMAIL).header(HttpHeaders.IF_MATCH, "W/" + updatedETag))
+                .andExpect(status().isPreconditionFailed());
+        assertTrue(userService.userExists(EMAIL));
+
+        mockMvc.perform(delete("/api/v1/users/" + EMAIL).header(HttpHeaders.IF_MATCH, updatedETag))
+                .andExpect(status().isNoContent());
+        assertFalse(userService.userExists(EMAIL));
+    }
+}
@@ -0,0 +1,98 @@
+package com.tata.self_healing.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tata.self_healing.SelfHealingApplication;
+import com.tata.self_healing.model.User;
+import com.tata.self_healing.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Cursor pagination and NDJSON streaming of GET /api/v1/users
+ */
+@SpringBootTest(classes = SelfHealingApplication.class)
+@AutoConfigureMockMvc
+public class UserControllerPaginationTest {
+
+    // Every test email sorts right after this cursor
+    private static final String CURSOR = "page.test.";
+    private static final List<String> EMAILS = List.of(
+            "page.test.1@example.com", "page.test.2@example.com", "page.test.3@example.com");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @BeforeEach
+    public void setUp() {
+        // Created out of order: pages are in email order regardless
+        for (int i = EMAILS.size() - 1; i >= 0; i--) {
+            userService.createUser(new User("Page Test", 30, EMAILS.get(i)));
+        }
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        for (String email : EMAILS) {
+            if (userService.userExists(email)) {
+                userService.deleteUser(email);
+            }
+        }
+    }
+
+    @Test
+    public void testFullPageCarriesTheNextCursor() throws Exception {
+        mockMvc.perform(get("/api/v1/users").param("after", CURSOR).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", EMAILS.get(1)))
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].email").value(EMAILS.get(0)))
+                .andExpect(jsonPath("$.data[1].email").value(EMAILS.get(1)));
+
+        mockMvc.perform(get("/api/v1/users").param("after", EMAILS.get(1)).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].email").value(EMAILS.get(2)));
+    }
+
+    @Test
+    public void testNdjsonStreamsOneUserPerLine() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/users")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("after", CURSOR)
+                        .param("limit", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        List<String> emails = new ArrayList<>();
+        for (String line : lines) {
+            emails.add(objectMapper.readValue(line, User.class).getEmail());
+        }
+        assertEquals(EMAILS, emails);
+    }
+}
@@ -0,0 +1,102 @@
+package com.tata.self_healing.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Capacity bound and oldest-first dropping of the occurrence ring, and the exact count kept beside it
+ */
+public class BoundedRingBufferTest {
+
+    @Test
+    public void testKeepsItemsInOrderUntilFull() {
+        BoundedRingBuffer<Integer> ring = new BoundedRingBuffer<>(4);
+        assertEquals(0, ring.size());
+        assertNull(ring.latest());
+        assertTrue(ring.snapshot().isEmpty());
+
+        for (int i = 0; i < 3; i++) {
+            ring.add(i);
+        }
+        assertEquals(3, ring.size());
+        assertEquals(List.of(0, 1, 2), ring.snapshot());
+        assertEquals(Integer.valueOf(2), ring.latest());
+    }
+
+    @Test
+    public void testOverflowDropsTheOldestItems() {
+        BoundedRingBuffer<Integer> ring = new BoundedRingBuffer<>(4);
+        for (int i = 0; i < 10; i++) {
+            ring.add(i);
+        }
+        assertEquals(4, ring.size());
+        assertEquals(4, ring.capacity());
+        assertEquals(List.of(6, 7, 8, 9), ring.snapshot());
+        assertEquals(Integer.valueOf(9), ring.latest());
+    }
+
+    @Test
+    public void testCapacityIsAtLeastOne() {
+        BoundedRingBuffer<String> ring = new BoundedRingBuffer<>(0);
+        assertEquals(1, ring.capacity());
+        ring.add("a");
+        ring.add("b");
+        assertEquals(List.of("b"), ring.snapshot());
+    }
+
+    @Test
+    public void testConcurrentWritersNeverExceedCapacity() throws Exception {
+        BoundedRingBuffer<Integer> ring = new BoundedRingBuffer<>(64);
+        int writers = 8;
+        int perWriter = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perWriter; i++) {
+                    ring.add(writer * perWriter + i);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        assertEquals(64, ring.size());
+        List<Integer> retained = ring.snapshot();
+        assertEquals(64, retained.size());
+        assertFalse(retained.contains(null));
+    }
+
+    @Test
+    public void testPatternCountsEveryOccurrenceButRetainsOnlyTheNewest() {
+        SlidingWindowCounter window = new SlidingWindowCounter(60, 1_000);
+        ErrorPatternDetector.ErrorPattern pattern = new ErrorPatternDetector.ErrorPattern(
+                "TEST_ERROR", "message", null, 1L, 3, window, new ThresholdAnomalyDetector().newState(window));
+        long now = 1_000_000;
+        for (int i = 0; i < 5; i++) {
+            pattern.addOccurrence(new ErrorPatternDetector.ErrorOccurrence("TEST_ERROR", "message",
+                    CapturedStackTrace.ofText("trace"), "id-" + i, now + i), now + i);
+        }
+
+        assertEquals(5, pattern.getTotalOccurrences());
+        assertEquals(List.of("id-2", "id-3", "id-4"),
+                pattern.getOccurrences().stream().map(ErrorPatternDetector.ErrorOccurrence::getCorrelationId).toList());
+        assertEquals("id-4", pattern.getLatestOccurrence().getCorrelationId());
+    }
+}
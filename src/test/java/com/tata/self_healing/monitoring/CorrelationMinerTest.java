@@ -0,0 +1,109 @@
+package com.tata.self_healing.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lift and phi of co-occurring signals, and expiry of signals that left the history
+ */
+public class CorrelationMinerTest {
+
+    private static final long BUCKET_MILLIS = 10_000;
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    public void testLiftAndPhiOverClosedBuckets() {
+        CorrelationMiner miner = newMiner(20, 10);
+        for (int bucket = 0; bucket < 10; bucket++) {
+            long time = START + bucket * BUCKET_MILLIS;
+            if (bucket < 6) {
+                miner.recordPattern("A", time); // Buckets 0-5
+            }
+            if (bucket < 4 || bucket == 6) {
+                miner.recordPattern("B", time); // Buckets 0-3 and 6
+            }
+            if (bucket >= 7) {
+                miner.recordPattern("C", time); // Never together with A or B
+            }
+        }
+
+        List<CorrelationMiner.Correlation> correlations = miner.getStrongestCorrelations(10, START + 10 * BUCKET_MILLIS);
+
+        // 10 buckets: A in 6, B in 5, both in 4
+        assertEquals(1, correlations.size());
+        CorrelationMiner.Correlation correlation = correlations.get(0);
+        assertEquals("pattern:A", correlation.getSignalA());
+        assertEquals("pattern:B", correlation.getSignalB());
+        assertEquals(4, correlation.getCoOccurrences());
+        assertEquals(4.0 * 10 / (6 * 5), correlation.getLift(), 1e-9);
+        assertEquals((10.0 * 4 - 6 * 5) / Math.sqrt(6.0 * 4 * 5 * 5), correlation.getCorrelation(), 1e-9);
+    }
+
+    @Test
+    public void testSlowAndFailingRoutesAreSignals() {
+        CorrelationMiner miner = newMiner(20, 10);
+        assertFalse(miner.isSignal(200, 10));
+        assertTrue(miner.isSignal(503, 10));
+        assertTrue(miner.isSignal(200, 1000));
+
+        for (int bucket = 0; bucket < 3; bucket++) {
+            long time = START + bucket * BUCKET_MILLIS;
+            miner.recordRequest("GET /api/v1/users", 503, 1500, time);
+        }
+        List<CorrelationMiner.Correlation> correlations = miner.getStrongestCorrelations(10, START + 4 * BUCKET_MILLIS);
+
+        assertEquals(1, correlations.size());
+        assertEquals("slow:GET /api/v1/users", correlations.get(0).getSignalA());
+        assertEquals("5xx:GET /api/v1/users", correlations.get(0).getSignalB());
+    }
+
+    @Test
+    public void testSignalsThatLeftTheHistoryMakeRoomForNewOnes() {
+        CorrelationMiner miner = newMiner(5, 2);
+        miner.recordPattern("A", START);
+        miner.recordPattern("B", START);
+
+        // Long after A and B went quiet, both slots are free again
+        long later = START + 20 * BUCKET_MILLIS;
+        for (int bucket = 0; bucket < 3; bucket++) {
+            miner.recordPattern("C", later + bucket * BUCKET_MILLIS);
+            miner.recordPattern("D", later + bucket * BUCKET_MILLIS);
+        }
+
+        List<CorrelationMiner.Correlation> correlations = miner.getStrongestCorrelations(10, later + 3 * BUCKET_MILLIS);
+        assertEquals(1, correlations.size());
+        assertEquals("pattern:C", correlations.get(0).getSignalA());
+        assertEquals("pattern:D", correlations.get(0).getSignalB());
+    }
+
+    @Test
+    public void testNewSignalReplacesTheLeastRecentlyRecordedWhenFull() {
+        CorrelationMiner miner = newMiner(20, 2);
+        miner.recordPattern("A", START);
+        for (int bucket = 0; bucket < 3; bucket++) {
+            long time = START + bucket * BUCKET_MILLIS;
+            miner.recordPattern("B", time);
+            miner.recordPattern("C", time); // Replaces A, the least recently recorded
+        }
+
+        List<CorrelationMiner.Correlation> correlations = miner.getStrongestCorrelations(10, START + 4 * BUCKET_MILLIS);
+        assertEquals(1, correlations.size());
+        assertEquals("pattern:B", correlations.get(0).getSignalA());
+        assertEquals("pattern:C", correlations.get(0).getSignalB());
+    }
+
+    private static CorrelationMiner newMiner(int historyBuckets, int maxSignals) {
+        CorrelationMiner miner = new CorrelationMiner();
+        ReflectionTestUtils.setField(miner, "bucketSeconds", 10);
+        ReflectionTestUtils.setField(miner, "historyBuckets", historyBuckets);
+        ReflectionTestUtils.setField(miner, "maxSignals", maxSignals);
+        ReflectionTestUtils.setField(miner, "minSupport", 3);
+        ReflectionTestUtils.setField(miner, "slowRequestMillis", 1000L);
+        miner.initialize();
+        return miner;
+    }
+}
@@ -0,0 +1,68 @@
+package com.tata.self_healing.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Count-Min Sketch estimates stay within their documented bounds
+ */
+public class CountMinSketchTest {
+
+    @Test
+    public void testEstimatesNeverUndercountAndStayWithinTheErrorBound() {
+        CountMinSketch sketch = new CountMinSketch(4, 256);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            // Skewed keys: a few heavy hitters and a long tail of rare ones
+            long key = random.nextInt(10) < 7 ? random.nextInt(5) : 1_000 + random.nextInt(5_000);
+            exact.merge(key, 1L, Long::sum);
+            sketch.add(key, 1);
+        }
+
+        assertEquals(20_000, sketch.getTotal());
+        long bound = sketch.getErrorBound();
+        int outsideBound = 0;
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), "undercount for key " + entry.getKey());
+            if (estimate - entry.getValue() > bound) {
+                outsideBound++;
+            }
+        }
+        // The bound holds per key with probability getConfidence(); allow for that failure rate
+        assertTrue(outsideBound <= exact.size() * (1 - sketch.getConfidence()) + 1,
+                outsideBound + " of " + exact.size() + " keys exceeded the bound");
+    }
+
+    @Test
+    public void testAddReturnsTheUpdatedEstimate() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        assertEquals(0, sketch.estimate(7));
+        assertEquals(3, sketch.add(7, 3));
+        assertEquals(5, sketch.add(7, 2));
+        assertEquals(5, sketch.estimate(7));
+    }
+
+    @Test
+    public void testDimensionsAreClampedAndCheckpointsMustMatch() {
+        CountMinSketch sketch = new CountMinSketch(100, 0);
+        assertEquals(8, sketch.getDepth());
+        assertEquals(1, sketch.getWidth());
+        // A single column: every key shares the same counters
+        sketch.add(1, 2);
+        sketch.add(2, 3);
+        assertEquals(5, sketch.estimate(3));
+
+        CountMinSketch restored = new CountMinSketch(8, 1);
+        restored.restore(sketch.getTotal(), sketch.counters());
+        assertEquals(5, restored.estimate(1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CountMinSketch(4, 16).restore(5, sketch.counters()));
+    }
+}
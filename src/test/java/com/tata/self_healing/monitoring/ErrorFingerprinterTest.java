@@ -0,0 +1,68 @@
+package com.tata.self_healing.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Masking of variable message tokens and normalization of the top frame into a fingerprint
+ */
+public class ErrorFingerprinterTest {
+
+    @Test
+    public void testVariableTokensAreMasked() {
+        assertEquals("User not found with email: <email>",
+                ErrorFingerprinter.template("User not found with email: alice.smith+test@example.co.uk"));
+        assertEquals("Order <uuid> failed after <num> retries in <num> s",
+                ErrorFingerprinter.template("Order 123e4567-e89b-12d3-a456-426614174000 failed after 3 retries in 1.5 s"));
+        assertEquals("Key <str> conflicts with <str> at <hex>",
+                ErrorFingerprinter.template("Key 'alice' conflicts with \"bob\" at 0x7f3a"));
+        assertEquals("Balance <num>", ErrorFingerprinter.template("Balance -42"));
+        assertEquals("null", ErrorFingerprinter.template(null));
+    }
+
+    @Test
+    public void testNumbersInsideIdentifiersAreKept() {
+        assertEquals("Http2 stream on port <num> of node-a1 with List<T>",
+                ErrorFingerprinter.template("Http2 stream on port 8080 of node-a1 with List<T>"));
+        assertEquals("Expected v1.2 <num>", ErrorFingerprinter.template("Expected v1.2 7"));
+        // A decimal glued to a unit is left whole rather than split into "<num>.5s"
+        assertEquals("Timed out after 1.5s", ErrorFingerprinter.template("Timed out after 1.5s"));
+    }
+
+    @Test
+    public void testTopFrameDropsFileLineModuleAndSyntheticSuffixes() {
+        String trace = "java.lang.IllegalStateException: boom\n"
+                + "\tat java.base/java.util.Objects.requireNonNull(Objects.java:233)\n"
+                + "\tat com.example.Service.find(Service.java:42)\n";
+        assertEquals("java.util.Objects.requireNonNull", ErrorFingerprinter.topFrame(trace));
+
+        assertEquals("com.example.UserService.createUser", ErrorFingerprinter.topFrame(
+                "x\n\tat com.example.UserService$$SpringCGLIB$$0.createUser(<generated>)\n"));
+        // Anonymous-class and lambda ordinals change between builds
+        assertEquals("com.example.Handler.lambda$handle", ErrorFingerprinter.topFrame(
+                "x\n\tat app//com.example.Handler$1.lambda$handle$0(Handler.java:10)\n"));
+        assertEquals("com.example.Task.run", ErrorFingerprinter.normalizeFrame(
+                "com.example.Task$$Lambda$123/0x0000000800c0b000.run"));
+
+        assertEquals("", ErrorFingerprinter.topFrame("no frames here"));
+        assertEquals("", ErrorFingerprinter.topFrame(null));
+    }
+
+    @Test
+    public void testFingerprintGroupsByTemplateAndFrame() {
+        String frame = "com.example.UserService.getUserByEmail";
+        long first = ErrorFingerprinter.fingerprint("USER_NOT_FOUND",
+                ErrorFingerprinter.template("User not found with email: a@x.com"), frame);
+        long second = ErrorFingerprinter.fingerprint("USER_NOT_FOUND",
+                ErrorFingerprinter.template("User not found with email: b@y.org"), frame);
+        assertEquals(first, second);
+
+        assertNotEquals(first, ErrorFingerprinter.fingerprint("USER_NOT_FOUND",
+                ErrorFingerprinter.template("User not found with email: a@x.com"), "com.example.Other.find"));
+        assertNotEquals(first, ErrorFingerprinter.fingerprint("DUPLICATE_EMAIL",
+                ErrorFingerprinter.template("User not found with email: a@x.com"), frame));
+        // Field boundaries matter
+        assertNotEquals(ErrorFingerprinter.fingerprint("ab", "c", ""), ErrorFingerprinter.fingerprint("a", "bc", ""));
+    }
+}
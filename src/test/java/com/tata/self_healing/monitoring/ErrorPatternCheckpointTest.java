@@ -0,0 +1,97 @@
+package com.tata.self_healing.monitoring;
+
+import com.tata.self_healing.exception.FileOperationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trip of the error pattern checkpoint, and redaction of what it persists
+ */
+public class ErrorPatternCheckpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testWriteThenReadRestoresEveryField() {
+        Path path = tempDir.resolve("checkpoint").resolve("error-patterns.bin");
+        ErrorPatternDetector.ErrorOccurrence latest = new ErrorPatternDetector.ErrorOccurrence("USER_NOT_FOUND",
+                "User not found", CapturedStackTrace.ofText("com.example.NotFound: User not found\n\tat com.example.Service.find(Service.java:42)\n"),
+                "corr-1", 1_700_000_000_000L);
+        ErrorPatternCheckpoint.PatternState pattern = new ErrorPatternCheckpoint.PatternState(0x1234L, "USER_NOT_FOUND",
+                "User not found", "com.example.Service.find", 17, new long[] {0, 5, 12}, latest);
+        ErrorPatternCheckpoint.PatternState withoutOccurrence = new ErrorPatternCheckpoint.PatternState(-7L, "VALIDATION_ERROR",
+                null, "", 3, new long[0], null);
+
+        new ErrorPatternCheckpoint(1_700_000_001_000L, 10_000L, 2, 3, 20, new long[] {1, 2, 3, 4, 5, 6},
+                List.of(new SpaceSavingTopK.Entry(0x1234L, 17, 9), new SpaceSavingTopK.Entry(-7L, 3, 2)),
+                List.of(pattern, withoutOccurrence)).write(path);
+        ErrorPatternCheckpoint read = ErrorPatternCheckpoint.read(path);
+
+        assertEquals(1_700_000_001_000L, read.getCheckpointMillis());
+        assertEquals(10_000L, read.getBucketMillis());
+        assertEquals(2, read.getSketchDepth());
+        assertEquals(3, read.getSketchWidth());
+        assertEquals(20, read.getSketchTotal());
+        assertArrayEquals(new long[] {1, 2, 3, 4, 5, 6}, read.getSketchCounters());
+
+        assertEquals(2, read.getHeavyHitters().size());
+        SpaceSavingTopK.Entry hitter = read.getHeavyHitters().get(0);
+        assertEquals(0x1234L, hitter.getKey());
+        assertEquals(17, hitter.getEstimate());
+        assertEquals(9, hitter.getSeen());
+
+        assertEquals(2, read.getPatterns().size());
+        ErrorPatternCheckpoint.PatternState restored = read.getPatterns().get(0);
+        assertEquals(0x1234L, restored.getFingerprint());
+        assertEquals("USER_NOT_FOUND", restored.getErrorType());
+        assertEquals("User not found", restored.getTemplate());
+        assertEquals("com.example.Service.find", restored.getTopFrame());
+        assertEquals(17, restored.getTotalOccurrences());
+        assertArrayEquals(new long[] {0, 5, 12}, restored.getBucketCounts());
+        assertEquals("User not found", restored.getLatestOccurrence().getErrorMessage());
+        assertEquals(latest.getStackTrace(), restored.getLatestOccurrence().getStackTrace());
+        assertEquals("corr-1", restored.getLatestOccurrence().getCorrelationId());
+        assertEquals(1_700_000_000_000L, restored.getLatestOccurrence().getTimestampMillis());
+
+        ErrorPatternCheckpoint.PatternState empty = read.getPatterns().get(1);
+        assertNull(empty.getTemplate());
+        assertNull(empty.getLatestOccurrence());
+        assertEquals(0, empty.getBucketCounts().length);
+        assertFalse(Files.exists(path.resolveSibling("error-patterns.bin.tmp")));
+    }
+
+    @Test
+    public void testLatestOccurrenceIsPersistedRedacted() {
+        Path path = tempDir.resolve("error-patterns.bin");
+        ErrorPatternDetector.ErrorOccurrence latest = new ErrorPatternDetector.ErrorOccurrence("DUPLICATE_EMAIL",
+                "Email already exists: alice@example.com",
+                CapturedStackTrace.ofText("com.example.Duplicate: Email already exists: alice@example.com\n"
+                        + "\tat com.example.Service.create(Service.java:42)\n"
+                        + "Caused by: java.lang.IllegalStateException: key 'alice@example.com' taken\n"),
+                "corr-2", 1_700_000_000_000L);
+        new ErrorPatternCheckpoint(1_700_000_001_000L, 10_000L, 1, 1, 1, new long[] {1},
+                List.of(new SpaceSavingTopK.Entry(1L, 1, 1)),
+                List.of(new ErrorPatternCheckpoint.PatternState(1L, "DUPLICATE_EMAIL", "Email already exists: <email>",
+                        "com.example.Service.create", 1, new long[] {1}, latest))).write(path);
+
+        ErrorPatternDetector.ErrorOccurrence restored = ErrorPatternCheckpoint.read(path).getPatterns().get(0).getLatestOccurrence();
+        assertEquals("Email already exists: <email>", restored.getErrorMessage());
+        assertEquals("com.example.Duplicate: Email already exists: <email>\n"
+                + "\tat com.example.Service.create(Service.java:42)\n"
+                + "Caused by: java.lang.IllegalStateException: key <str> taken\n", restored.getStackTrace());
+    }
+
+    @Test
+    public void testUnrecognizedFileIsRejected() throws Exception {
+        Path path = tempDir.resolve("error-patterns.bin");
+        Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(FileOperationException.class, () -> ErrorPatternCheckpoint.read(path));
+    }
+}
@@ -0,0 +1,96 @@
+package com.tata.self_healing.monitoring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Request-relative error rates: the min-requests floor, the strict threshold and per-route results
+ */
+public class ErrorRateTrackerTest {
+
+    private static final String USERS = "GET /api/v1/users";
+    private static final String USER = "GET /api/v1/users/{email}";
+
+    private ErrorRateTracker tracker;
+
+    @BeforeEach
+    public void setUp() {
+        tracker = new ErrorRateTracker();
+        ReflectionTestUtils.setField(tracker, "windowBucketCount", 60);
+        ReflectionTestUtils.setField(tracker, "windowBucketSeconds", 10);
+        ReflectionTestUtils.setField(tracker, "minRequests", 20);
+        tracker.initialize();
+    }
+
+    @Test
+    public void testRoutesBelowMinRequestsAreNotRated() {
+        for (int i = 0; i < 19; i++) {
+            tracker.recordRequest(USER, 500);
+        }
+        assertTrue(tracker.findHighErrorRates(0.1).isEmpty());
+
+        tracker.recordRequest(USER, 500);
+        List<ErrorRateTracker.RouteErrorRate> rates = tracker.findHighErrorRates(0.1);
+        assertEquals(List.of(ErrorRateTracker.ALL_ROUTES, USER),
+                rates.stream().map(ErrorRateTracker.RouteErrorRate::getRoute).sorted().toList());
+        assertEquals(1.0, rates.get(0).getErrorRate(), 1e-9);
+    }
+
+    @Test
+    public void testRateIsErrorsOverRequestsAndMustExceedTheThreshold() {
+        record(USERS, 200, 18);
+        record(USERS, 404, 1);
+        record(USERS, 503, 1);
+
+        ErrorRateTracker.RouteErrorRate overall = tracker.getOverallErrorRate();
+        assertEquals(20, overall.getRequests());
+        assertEquals(2, overall.getErrors());
+        assertEquals(1, overall.getClientErrors());
+        assertEquals(1, overall.getServerErrors());
+        assertEquals(0.1, overall.getErrorRate(), 1e-9);
+
+        // Exactly at the threshold is not above it
+        assertTrue(tracker.findHighErrorRates(0.1).isEmpty());
+        assertEquals(2, tracker.findHighErrorRates(0.05).size());
+    }
+
+    @Test
+    public void testEachRouteIsJudgedOnItsOwnTrafficHighestFirst() {
+        record(USERS, 200, 100);
+        record(USER, 200, 10);
+        record(USER, 404, 10);
+
+        // 10 errors in 120 requests overall is below 10%; the single-user route alone is at 50%
+        List<ErrorRateTracker.RouteErrorRate> rates = tracker.findHighErrorRates(0.05);
+        assertEquals(List.of(USER, ErrorRateTracker.ALL_ROUTES),
+                rates.stream().map(ErrorRateTracker.RouteErrorRate::getRoute).toList());
+        assertEquals(0.5, rates.get(0).getErrorRate(), 1e-9);
+
+        assertEquals(List.of(USER), tracker.findHighErrorRates(0.1).stream()
+                .map(ErrorRateTracker.RouteErrorRate::getRoute).toList());
+    }
+
+    @Test
+    public void testErrorsAreCountedByTypeWithinTheWindow() {
+        long now = System.currentTimeMillis();
+        tracker.recordError("USER_NOT_FOUND", now);
+        tracker.recordError("USER_NOT_FOUND", now);
+        tracker.recordError("VALIDATION_ERROR", now);
+        // Older than the ten-minute window
+        tracker.recordError("VALIDATION_ERROR", now - 3_600_000);
+
+        assertEquals(Integer.valueOf(2), tracker.getErrorsByType().get("USER_NOT_FOUND"));
+        assertEquals(Integer.valueOf(1), tracker.getErrorsByType().get("VALIDATION_ERROR"));
+    }
+
+    private void record(String route, int status, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.recordRequest(route, status);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.tata.self_healing.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ordering, capacity and drop behaviour of the error ingestion ring
+ */
+public class MpscRingBufferTest {
+
+    @Test
+    public void testCapacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(8, new MpscRingBuffer<String>(5).capacity());
+        assertEquals(8, new MpscRingBuffer<String>(8).capacity());
+        assertEquals(2, new MpscRingBuffer<String>(0).capacity());
+    }
+
+    @Test
+    public void testItemsComeOutInOfferOrder() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(8);
+        assertTrue(ring.isEmpty());
+        assertNull(ring.poll());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.isEmpty());
+        assertEquals(5, ring.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, ring.drain(drained::add, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertEquals(3, ring.poll().intValue());
+        assertEquals(4, ring.poll().intValue());
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void testOfferFailsWhenFullAndSlotsAreReusedAfterDraining() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        // Full: the item is rejected and nothing already queued is lost
+        assertFalse(ring.offer(99));
+        assertEquals(4, ring.size());
+
+        assertEquals(0, ring.poll().intValue());
+        assertTrue(ring.offer(4));
+        assertFalse(ring.offer(100));
+
+        // Wrap around the ring several times
+        List<Integer> drained = new ArrayList<>();
+        int next = 5;
+        for (int round = 0; round < 10; round++) {
+            ring.drain(drained::add, Integer.MAX_VALUE);
+            while (ring.offer(next)) {
+                next++;
+            }
+        }
+        ring.drain(drained::add, Integer.MAX_VALUE);
+        assertEquals(next - 1, drained.size());
+        for (int i = 0; i < drained.size(); i++) {
+            assertEquals(i + 1, drained.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testConcurrentProducersKeepTheirOwnOrderAndCountDrops() throws Exception {
+        int producers = 4;
+        int perProducer = 20_000;
+        MpscRingBuffer<long[]> ring = new MpscRingBuffer<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] dropped = new long[producers];
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    if (!ring.offer(new long[] {producer, i})) {
+                        dropped[producer]++;
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+        long[] received = new long[producers];
+        start.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (threads.stream().anyMatch(Thread::isAlive) || !ring.isEmpty()) {
+            assertTrue(System.nanoTime() < deadline, "producers did not finish");
+            ring.drain(item -> {
+                int producer = (int) item[0];
+                // Items from one producer never overtake each other
+                assertTrue(item[1] > lastSeen[producer]);
+                lastSeen[producer] = item[1];
+                received[producer]++;
+            }, 256);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int p = 0; p < producers; p++) {
+            // Every offer was either delivered exactly once or reported as dropped
+            assertEquals(perProducer, received[p] + dropped[p]);
+        }
+    }
+}
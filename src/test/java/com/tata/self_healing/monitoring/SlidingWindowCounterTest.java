@@ -0,0 +1,107 @@
+package com.tata.self_healing.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bucket rotation and expiry of the sliding window, and anomaly cool-down once it empties
+ */
+public class SlidingWindowCounterTest {
+
+    private static final long BUCKET_MILLIS = 10_000;
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    public void testCountsExpireBucketByBucket() {
+        SlidingWindowCounter window = new SlidingWindowCounter(6, BUCKET_MILLIS);
+        window.add(START, 3);
+        window.add(START + BUCKET_MILLIS, 2);
+        window.increment(START + 2 * BUCKET_MILLIS);
+
+        long now = START + 2 * BUCKET_MILLIS;
+        assertEquals(6, window.sum(now));
+        assertEquals(1, window.sum(now, 1));
+        assertEquals(3, window.sum(now, 2));
+        assertArrayEquals(new long[] {0, 0, 0, 3, 2, 1}, window.toArray(now));
+
+        // Six buckets after the first one, it has left the window; one more and the second follows
+        assertEquals(3, window.sum(START + 6 * BUCKET_MILLIS));
+        assertEquals(1, window.sum(START + 7 * BUCKET_MILLIS));
+        assertEquals(0, window.sum(START + 9 * BUCKET_MILLIS));
+    }
+
+    @Test
+    public void testSlotIsRotatedWhenItsPeriodComesRoundAgain() {
+        SlidingWindowCounter window = new SlidingWindowCounter(6, BUCKET_MILLIS);
+        window.add(START, 5);
+
+        // Same slot, one full window later: the old count is replaced, not added to
+        long later = START + 6 * BUCKET_MILLIS;
+        window.increment(later);
+        assertEquals(1, window.sum(later));
+        assertArrayEquals(new long[] {0, 0, 0, 0, 0, 1}, window.toArray(later));
+
+        // A late event for the rotated-out period is dropped
+        window.increment(START);
+        assertEquals(1, window.sum(later));
+    }
+
+    @Test
+    public void testBucketsForRoundsUpAndCapsAtTheWindow() {
+        SlidingWindowCounter window = new SlidingWindowCounter(6, BUCKET_MILLIS);
+        assertEquals(1, window.bucketsFor(0));
+        assertEquals(1, window.bucketsFor(BUCKET_MILLIS));
+        assertEquals(2, window.bucketsFor(BUCKET_MILLIS + 1));
+        assertEquals(6, window.bucketsFor(BUCKET_MILLIS * 100));
+    }
+
+    @Test
+    public void testConcurrentIncrementsAreAllCounted() throws Exception {
+        SlidingWindowCounter window = new SlidingWindowCounter(6, BUCKET_MILLIS);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    window.increment(START + (i % 3) * BUCKET_MILLIS);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, window.sum(START + 2 * BUCKET_MILLIS));
+    }
+
+    @Test
+    public void testAnomalyCoolsDownOnceTheWindowEmptiesAndCanRecur() {
+        ThresholdAnomalyDetector detector = new ThresholdAnomalyDetector();
+        ReflectionTestUtils.setField(detector, "minCount", 3L);
+        ReflectionTestUtils.setField(detector, "thresholdMinutes", 1);
+        SlidingWindowCounter window = new SlidingWindowCounter(6, BUCKET_MILLIS);
+        AnomalyDetector.State state = detector.newState(window);
+
+        for (int i = 0; i < 3; i++) {
+            window.increment(START);
+            state.record(START);
+        }
+        assertTrue(state.isAnomalous(START));
+        // Still inside the minute
+        assertTrue(state.isAnomalous(START + 50_000));
+        // Quiet for a whole window: cooled down
+        assertFalse(state.isAnomalous(START + 60_000));
+
+        long later = START + 120_000;
+        for (int i = 0; i < 3; i++) {
+            window.increment(later);
+            state.record(later);
+        }
+        assertTrue(state.isAnomalous(later));
+    }
+}
@@ -0,0 +1,71 @@
+package com.tata.self_healing.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bounded heavy-hitter tracking: capacity, displacement and count bounds
+ */
+public class SpaceSavingTopKTest {
+
+    @Test
+    public void testNeverTracksMoreThanCapacityAndKeepsTheHeavyHitters() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        SpaceSavingTopK topK = new SpaceSavingTopK(3);
+        List<Long> evicted = new ArrayList<>();
+        for (int round = 0; round < 50; round++) {
+            for (long heavy = 1; heavy <= 3; heavy++) {
+                topK.offer(heavy, sketch.add(heavy, 1), evicted::add);
+            }
+            // A flood of one-off keys must not churn the established ones out
+            long oneOff = 1_000 + round;
+            topK.offer(oneOff, sketch.add(oneOff, 1), evicted::add);
+            assertTrue(topK.size() <= 3);
+        }
+
+        assertTrue(topK.contains(1) && topK.contains(2) && topK.contains(3));
+        assertTrue(evicted.isEmpty());
+        for (SpaceSavingTopK.Entry entry : topK.snapshot()) {
+            // seen <= true count (50) <= estimate
+            assertTrue(entry.getSeen() <= 50);
+            assertTrue(entry.getEstimate() >= 50);
+        }
+    }
+
+    @Test
+    public void testLargerEstimateDisplacesTheSmallestTrackedKey() {
+        SpaceSavingTopK topK = new SpaceSavingTopK(2);
+        List<Long> evicted = new ArrayList<>();
+        assertTrue(topK.offer(1, 5, evicted::add));
+        assertTrue(topK.offer(2, 2, evicted::add));
+        // Not larger than the smallest: rejected
+        assertFalse(topK.offer(3, 2, evicted::add));
+        assertTrue(evicted.isEmpty());
+
+        assertTrue(topK.offer(3, 3, evicted::add));
+        assertEquals(List.of(2L), evicted);
+        assertFalse(topK.contains(2));
+
+        List<SpaceSavingTopK.Entry> snapshot = topK.snapshot();
+        assertEquals(1, snapshot.get(0).getKey());
+        assertEquals(3, snapshot.get(1).getKey());
+        assertEquals(1, snapshot.get(1).getSeen());
+    }
+
+    @Test
+    public void testRestoreKeepsOnlyTheLargestEntries() {
+        SpaceSavingTopK source = new SpaceSavingTopK(4);
+        for (long key = 1; key <= 4; key++) {
+            source.offer(key, key * 10, evicted -> { });
+        }
+
+        SpaceSavingTopK restored = new SpaceSavingTopK(2);
+        restored.restore(source.snapshot());
+        assertEquals(2, restored.size());
+        assertTrue(restored.contains(4) && restored.contains(3));
+    }
+}
@@ -0,0 +1,60 @@
+package com.tata.self_healing.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Interning of identical stack traces: shared frames, per-occurrence message and cause
+ */
+public class StackTraceInternerTest {
+
+    @Test
+    public void testOccurrencesShareFramesButKeepTheirOwnMessageAndCause() {
+        StackTraceInterner interner = new StackTraceInterner(16);
+        List<CapturedStackTrace> traces = new ArrayList<>();
+        for (String user : List.of("alice", "bob")) {
+            // Thrown from the same line, so both traces have identical frames
+            traces.add(interner.intern(CapturedStackTrace.capture(new RuntimeException(
+                    "Duplicate email: " + user + "@example.com", new IllegalStateException(user)))));
+        }
+        CapturedStackTrace first = traces.get(0);
+        CapturedStackTrace second = traces.get(1);
+
+        assertEquals(first.getFingerprint(), second.getFingerprint());
+        assertSame(first.getFrames(), second.getFrames());
+        assertTrue(second.render().startsWith("java.lang.RuntimeException: Duplicate email: bob@example.com\n"));
+        assertTrue(second.render().contains("Caused by: java.lang.IllegalStateException: bob\n"));
+        assertFalse(second.render().contains("alice"));
+        assertTrue(first.render().contains("alice@example.com"));
+    }
+
+    @Test
+    public void testLeastRecentlySeenTraceIsEvicted() {
+        RuntimeException a = new RuntimeException("a");
+        RuntimeException b = new RuntimeException("b");
+        RuntimeException c = new RuntimeException("c");
+        StackTraceInterner interner = new StackTraceInterner(2);
+        CapturedStackTrace sharedA = interner.intern(CapturedStackTrace.capture(a));
+        interner.intern(CapturedStackTrace.capture(b));
+        // Seeing A again makes B the eldest
+        interner.intern(CapturedStackTrace.capture(a));
+        interner.intern(CapturedStackTrace.capture(c));
+
+        assertEquals(2, interner.size());
+        assertSame(sharedA.getFrames(), interner.intern(CapturedStackTrace.capture(a)).getFrames());
+        CapturedStackTrace fresh = CapturedStackTrace.capture(b);
+        assertSame(fresh.getFrames(), interner.intern(fresh).getFrames());
+    }
+
+    @Test
+    public void testTextTracesAreNotInterned() {
+        StackTraceInterner interner = new StackTraceInterner(16);
+        CapturedStackTrace text = CapturedStackTrace.ofText("java.lang.RuntimeException: boom\n");
+        assertSame(text, interner.intern(text));
+        assertEquals(0, interner.size());
+    }
+}
@@ -0,0 +1,120 @@
+package com.tata.self_healing.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Warm-up and burst detection of the bucketed statistical detectors
+ */
+public class StatisticalAnomalyDetectorTest {
+
+    private static final long BUCKET_MILLIS = 10_000;
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    public void testColdBaselineIsNotScoredUntilWarmedUp() {
+        for (StatisticalAnomalyDetector detector : detectors()) {
+            AnomalyDetector.State state = detector.newState(new SlidingWindowCounter(60, BUCKET_MILLIS));
+            // A burst on a brand-new pattern: no spread yet, which used to be an infinite z-score
+            state.record(START, 50);
+            assertFalse(state.isAnomalous(START), detector.getName());
+            assertEquals(0.0, state.score(START), 1e-9);
+
+            // Still cold one bucket short of the warm-up
+            long almostWarm = START + 29 * BUCKET_MILLIS;
+            state.record(almostWarm, 50);
+            assertFalse(state.isAnomalous(almostWarm), detector.getName());
+        }
+    }
+
+    @Test
+    public void testBurstOverAWarmBaselineIsAnomalous() {
+        for (StatisticalAnomalyDetector detector : detectors()) {
+            AnomalyDetector.State state = detector.newState(new SlidingWindowCounter(60, BUCKET_MILLIS));
+            // Over an hour of one or two errors per bucket, so the seasonal model has folded an hour too
+            long bucket = 0;
+            for (; bucket < 400; bucket++) {
+                state.record(START + bucket * BUCKET_MILLIS, 1 + bucket % 2);
+            }
+            long now = START + bucket * BUCKET_MILLIS;
+            assertFalse(state.isAnomalous(now), detector.getName());
+
+            state.record(now, 200);
+            assertTrue(state.isAnomalous(now), detector.getName());
+            assertTrue(state.score(now) > detector.getAnomalousScore(), detector.getName());
+        }
+    }
+
+    @Test
+    public void testIdleGapMatchesClosingEachEmptyBucket() {
+        // A few buckets, more than an evaluation window and history, and more than a week
+        for (long gap : new long[] {3, 400, 70_000}) {
+            for (StatisticalAnomalyDetector detector : detectors()) {
+                AnomalyDetector.State jumped = detector.newState(new SlidingWindowCounter(60, BUCKET_MILLIS));
+                AnomalyDetector.State stepped = detector.newState(new SlidingWindowCounter(60, BUCKET_MILLIS));
+                long bucket = 0;
+                for (; bucket < 400; bucket++) {
+                    jumped.record(START + bucket * BUCKET_MILLIS, 1 + bucket % 3);
+                    stepped.record(START + bucket * BUCKET_MILLIS, 1 + bucket % 3);
+                }
+                for (long idle = 0; idle < gap; idle++, bucket++) {
+                    stepped.record(START + bucket * BUCKET_MILLIS, 0);
+                }
+                long now = START + bucket * BUCKET_MILLIS;
+                jumped.record(now, 8);
+                stepped.record(now, 8);
+
+                String label = detector.getName() + " after " + gap + " idle buckets";
+                assertSameScore(stepped.score(now), jumped.score(now), label);
+                assertEquals(stepped.isAnomalous(now), jumped.isAnomalous(now), label);
+            }
+        }
+    }
+
+    @Test
+    public void testYearsOfIdleBucketsAreFoldedAtOnce() {
+        for (StatisticalAnomalyDetector detector : detectors()) {
+            AnomalyDetector.State state = detector.newState(new SlidingWindowCounter(60, BUCKET_MILLIS));
+            for (long bucket = 0; bucket < 400; bucket++) {
+                state.record(START + bucket * BUCKET_MILLIS, 1 + bucket % 2);
+            }
+            // Ten years of 10s buckets; replaying them one by one would not finish
+            long now = START + 400 * BUCKET_MILLIS + 10L * 365 * 24 * 3600 * 1000;
+            state.record(now, 200);
+            assertTrue(state.isAnomalous(now), detector.getName());
+        }
+    }
+
+    /**
+     * Equal to a relative 1e-6; once the baseline has decayed to (next to) nothing, stepping leaves
+     * a subnormal spread where the closed form underflows to zero, so both only need to be huge
+     */
+    private static void assertSameScore(double stepped, double jumped, String label) {
+        if (stepped > 1e12) {
+            assertTrue(jumped > 1e12, label + ": " + jumped);
+        } else {
+            assertEquals(stepped, jumped, 1e-6 * Math.max(1, stepped), label);
+        }
+    }
+
+    private static StatisticalAnomalyDetector[] detectors() {
+        EwmaAnomalyDetector ewma = configure(new EwmaAnomalyDetector());
+        ReflectionTestUtils.setField(ewma, "alpha", 0.05);
+        RollingZScoreAnomalyDetector zScore = configure(new RollingZScoreAnomalyDetector());
+        ReflectionTestUtils.setField(zScore, "historyBuckets", 360);
+        SeasonalBaselineAnomalyDetector seasonal = configure(new SeasonalBaselineAnomalyDetector());
+        ReflectionTestUtils.setField(seasonal, "alpha", 0.3);
+        return new StatisticalAnomalyDetector[] {ewma, zScore, seasonal};
+    }
+
+    private static <T extends StatisticalAnomalyDetector> T configure(T detector) {
+        ReflectionTestUtils.setField(detector, "bucketSeconds", 10);
+        ReflectionTestUtils.setField(detector, "evaluationSeconds", 60);
+        ReflectionTestUtils.setField(detector, "minCount", 5L);
+        ReflectionTestUtils.setField(detector, "sensitivity", 3.0);
+        ReflectionTestUtils.setField(detector, "warmupBuckets", 30);
+        return detector;
+    }
+}
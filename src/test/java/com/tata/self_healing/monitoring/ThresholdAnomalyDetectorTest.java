@@ -0,0 +1,42 @@
+package com.tata.self_healing.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The threshold detector judges the pattern's own window instead of keeping a second one
+ */
+public class ThresholdAnomalyDetectorTest {
+
+    @Test
+    public void testStateReadsThePatternWindowWithoutDoubleCounting() {
+        ThresholdAnomalyDetector detector = new ThresholdAnomalyDetector();
+        ReflectionTestUtils.setField(detector, "minCount", 5L);
+        ReflectionTestUtils.setField(detector, "thresholdMinutes", 1);
+        assertEquals(60_000, detector.getWindowMillis());
+
+        SlidingWindowCounter window = new SlidingWindowCounter(60, 10_000);
+        ErrorPatternDetector.ErrorPattern pattern = new ErrorPatternDetector.ErrorPattern(
+                "TEST_ERROR", "message", null, 1L, 10, window, detector.newState(window));
+        long now = 1_000_000;
+        for (int i = 0; i < 4; i++) {
+            pattern.addOccurrence(occurrence(now), now);
+        }
+        assertFalse(pattern.getAnomalyState().isAnomalous(now));
+        assertEquals(0.8, pattern.getAnomalyState().score(now), 1e-9);
+
+        pattern.addOccurrence(occurrence(now), now);
+        assertTrue(pattern.getAnomalyState().isAnomalous(now));
+        assertEquals(detector.getAnomalousScore(), pattern.getAnomalyState().score(now), 1e-9);
+
+        // Occurrences older than the detector's window no longer count
+        assertFalse(pattern.getAnomalyState().isAnomalous(now + 120_000));
+    }
+
+    private static ErrorPatternDetector.ErrorOccurrence occurrence(long timestampMillis) {
+        return new ErrorPatternDetector.ErrorOccurrence("TEST_ERROR", "message",
+                CapturedStackTrace.ofText("trace"), "test-id", timestampMillis);
+    }
+}
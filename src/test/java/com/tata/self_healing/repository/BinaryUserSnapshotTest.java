@@ -0,0 +1,84 @@
+package com.tata.self_healing.repository;
+
+import com.tata.self_healing.exception.FileOperationException;
+import com.tata.self_healing.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writing, mapping and reading the binary user snapshot
+ */
+public class BinaryUserSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testWrittenUsersAreFoundByEmailAndInOrder() {
+        Path path = tempDir.resolve("users.bin");
+        User alice = user("Alice", 30, "alice@example.com", 4);
+        alice.setCreatedAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        alice.setUpdatedAt(LocalDateTime.of(2024, 2, 3, 4, 5, 6));
+        User bob = user("Bob", null, "bob@example.com", 9);
+        User carol = user("Carol", 50, "carol@example.com", 2);
+
+        assertEquals(3, BinaryUserSnapshot.write(path, List.of(alice, bob, carol).iterator()));
+        assertFalse(Files.exists(tempDir.resolve("users.bin.tmp")));
+
+        BinaryUserSnapshot snapshot = BinaryUserSnapshot.open(path);
+        assertEquals(3, snapshot.size());
+        assertEquals(9, snapshot.getMaxVersion());
+
+        User found = snapshot.find("alice@example.com");
+        assertEquals("Alice", found.getName());
+        assertEquals(Integer.valueOf(30), found.getAge());
+        assertEquals(alice.getCreatedAt(), found.getCreatedAt());
+        assertEquals(alice.getUpdatedAt(), found.getUpdatedAt());
+        assertEquals(4, found.getVersion());
+        assertNull(snapshot.find("bob@example.com").getAge());
+        assertNull(snapshot.find("dave@example.com"));
+        assertFalse(snapshot.contains("dave@example.com"));
+        assertTrue(snapshot.contains("carol@example.com"));
+
+        assertEquals("bob@example.com", snapshot.emailAt(1));
+        assertEquals("Carol", snapshot.userAt(2).getName());
+        // Cursor seeks: first record strictly after the given email
+        assertEquals(0, snapshot.ordinalAfter(null));
+        assertEquals(1, snapshot.ordinalAfter("alice@example.com"));
+        assertEquals(2, snapshot.ordinalAfter("bz"));
+        assertEquals(3, snapshot.ordinalAfter("carol@example.com"));
+    }
+
+    @Test
+    public void testRewriteReplacesThePreviousSnapshot() {
+        Path path = tempDir.resolve("users.bin");
+        BinaryUserSnapshot.write(path, List.of(user("Alice", 30, "alice@example.com", 1)).iterator());
+        BinaryUserSnapshot.write(path, Collections.emptyIterator());
+
+        BinaryUserSnapshot snapshot = BinaryUserSnapshot.open(path);
+        assertEquals(0, snapshot.size());
+        assertEquals(0, snapshot.getMaxVersion());
+        assertNull(snapshot.find("alice@example.com"));
+    }
+
+    @Test
+    public void testUnrecognizedFileIsRejected() throws Exception {
+        Path path = tempDir.resolve("users.bin");
+        Files.write(path, new byte[40]);
+        assertThrows(FileOperationException.class, () -> BinaryUserSnapshot.open(path));
+    }
+
+    private static User user(String name, Integer age, String email, long version) {
+        User user = new User(name, age, email);
+        user.setVersion(version);
+        return user;
+    }
+}
@@ -0,0 +1,119 @@
+package com.tata.self_healing.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batching and failure handling of the group-commit writer
+ */
+public class GroupCommitWriterTest {
+
+    private final List<List<Integer>> flushed = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch firstFlushEntered = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstFlush = new CountDownLatch(1);
+    private volatile Integer failOn;
+
+    private GroupCommitWriter<Integer> writer;
+
+    @AfterEach
+    public void tearDown() {
+        releaseFirstFlush.countDown();
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testMutationsQueuedDuringAFlushShareTheNextBatch() throws Exception {
+        writer = new GroupCommitWriter<>("test-group-commit", 16, this::flush);
+        CompletableFuture<Void> first = writer.submit(0);
+        assertTrue(firstFlushEntered.await(5, TimeUnit.SECONDS));
+
+        // Queued while the first flush is blocked
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            queued.add(writer.submit(i));
+        }
+        queued.add(writer.submitAll(List.of(6, 7)));
+        assertFalse(queued.get(0).isDone());
+
+        releaseFirstFlush.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        CompletableFuture.allOf(queued.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(List.of(0), List.of(1, 2, 3, 4, 5, 6, 7)), flushed);
+    }
+
+    @Test
+    public void testBatchSizeIsBoundedButUnitsAreNeverSplit() throws Exception {
+        writer = new GroupCommitWriter<>("test-group-commit", 2, this::flush);
+        CompletableFuture<Void> first = writer.submit(0);
+        assertTrue(firstFlushEntered.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> a = writer.submit(1);
+        CompletableFuture<Void> b = writer.submitAll(List.of(2, 3, 4));
+        CompletableFuture<Void> c = writer.submit(5);
+        releaseFirstFlush.countDown();
+        CompletableFuture.allOf(first, a, b, c).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(List.of(0), List.of(1, 2, 3, 4), List.of(5)), flushed);
+    }
+
+    @Test
+    public void testFailedFlushFailsEveryCallerInTheBatchOnly() throws Exception {
+        writer = new GroupCommitWriter<>("test-group-commit", 16, this::flush);
+        CompletableFuture<Void> first = writer.submit(0);
+        assertTrue(firstFlushEntered.await(5, TimeUnit.SECONDS));
+
+        failOn = 2;
+        CompletableFuture<Void> a = writer.submit(1);
+        CompletableFuture<Void> b = writer.submit(2);
+        releaseFirstFlush.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> a.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+        assertThrows(ExecutionException.class, () -> b.get(5, TimeUnit.SECONDS));
+
+        // The writer keeps going after a failed batch
+        failOn = null;
+        writer.submit(3).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(List.of(0), List.of(3)), flushed);
+    }
+
+    @Test
+    public void testCloseFlushesQueuedMutationsAndRejectsLaterOnes() throws Exception {
+        writer = new GroupCommitWriter<>("test-group-commit", 16, this::flush);
+        releaseFirstFlush.countDown();
+        CompletableFuture<Void> queued = writer.submit(1);
+        writer.close();
+
+        queued.get(5, TimeUnit.SECONDS);
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> writer.submit(2).get(5, TimeUnit.SECONDS));
+        assertTrue(rejected.getCause() instanceof IllegalStateException);
+    }
+
+    private void flush(List<Integer> mutations) {
+        firstFlushEntered.countDown();
+        try {
+            releaseFirstFlush.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failOn != null && mutations.contains(failOn)) {
+            throw new IllegalStateException("Injected flush failure");
+        }
+        flushed.add(List.copyOf(mutations));
+    }
+}
@@ -0,0 +1,416 @@
+package com.tata.self_healing.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tata.self_healing.exception.FileOperationException;
+import com.tata.self_healing.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Indexed storage modes against a temporary data directory. Failure injection checks that a write
+ * whose log append fails is never visible, never folded into a compacted snapshot and does not
+ * survive a restart.
+ */
+public class JsonFileUserRepositoryTest {
+
+    @TempDir
+    Path dataDir;
+
+    private JsonFileUserRepository repository;
+
+    @AfterEach
+    public void tearDown() {
+        if (repository != null) {
+            repository.shutdown();
+        }
+    }
+
+    @Test
+    public void testIndexedModeServesReadsFromMemory() throws Exception {
+        FailingWriteAheadLog[] log = new FailingWriteAheadLog[1];
+        repository = open("indexed", false, 1000, log);
+        repository.save(new User("Alice", 30, "alice@example.com"));
+        repository.save(new User("Bob", 40, "bob@example.com"));
+
+        // Reads no longer touch users.json once it is loaded
+        Path usersFile = dataDir.resolve("users.json");
+        Files.writeString(usersFile, "[]");
+        assertTrue(repository.existsByEmail("alice@example.com"));
+        assertEquals(List.of("alice@example.com", "bob@example.com"),
+                repository.findAll().stream().map(User::getEmail).toList());
+
+        // Callers get copies, so editing one does not reach the index
+        repository.findByEmail("alice@example.com").get().setAge(99);
+        assertEquals(Integer.valueOf(30), repository.findByEmail("alice@example.com").get().getAge());
+
+        // Writes still rewrite the file from the index, and a restart reloads it
+        assertTrue(repository.deleteByEmail("bob@example.com"));
+        String persisted = Files.readString(usersFile);
+        assertTrue(persisted.contains("alice@example.com"));
+        assertFalse(persisted.contains("bob@example.com"));
+
+        repository.shutdown();
+        repository = open("indexed", false, 1000, log);
+        assertEquals(List.of("alice@example.com"),
+                repository.findAll().stream().map(User::getEmail).toList());
+    }
+
+    @Test
+    public void testFileModeGroupCommitRunsAlongsideReaders() throws Exception {
+        FailingWriteAheadLog[] log = new FailingWriteAheadLog[1];
+        repository = open("file", true, 1000, log);
+        int writers = 8;
+        int usersPerWriter = 20;
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < usersPerWriter; i++) {
+                        repository.save(new User("User", 30, "user" + writer + "-" + i + "@example.com"));
+                    }
+                }));
+            }
+            // Readers hold the file while batches are flushed; neither side may fail on the other's lock
+            for (int r = 0; r < 2; r++) {
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        repository.findAll();
+                        repository.forEachUser(null, 5, user -> { });
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(writers * usersPerWriter, repository.findAll().size());
+    }
+
+    @Test
+    public void testFailedGroupCommitInBinaryModeLeavesNoTrace() {
+        assertFailedWriteLeavesNoTrace("binary", true);
+    }
+
+    @Test
+    public void testFailedWriteInWalModeLeavesNoTrace() {
+        assertFailedWriteLeavesNoTrace("wal", false);
+    }
+
+    @Test
+    public void testWriteIsInvisibleUntilItsLogRecordIsDurable() throws Exception {
+        FailingWriteAheadLog[] log = new FailingWriteAheadLog[1];
+        repository = open("binary", true, 1, log);
+        repository.save(new User("Alice", 30, "alice@example.com"));
+        // Build the secondary indexes up front; the first build waits for in-flight commits
+        assertEquals(1, repository.search(null, null, null, 10).size());
+        long datasetVersion = repository.getDatasetVersion();
+
+        log[0].blockNextAppend();
+        CompletableFuture<User> write = CompletableFuture.supplyAsync(
+                () -> repository.save(new User("Bob", 40, "bob@example.com")));
+        assertTrue(log[0].appendEntered.await(5, TimeUnit.SECONDS));
+
+        // The append is in flight: nothing about Bob may be observable yet
+        assertFalse(repository.existsByEmail("bob@example.com"));
+        assertNull(repository.findVersionByEmail("bob@example.com"));
+        assertTrue(repository.search(35, 45, null, 10).isEmpty());
+        assertEquals(datasetVersion, repository.getDatasetVersion());
+
+        log[0].failAppends = true;
+        log[0].releaseAppend.countDown();
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> write.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof FileOperationException);
+        assertFalse(repository.existsByEmail("bob@example.com"));
+    }
+
+    @Test
+    public void testBinaryModeBuildsSecondaryIndexesOnFirstUse() {
+        FailingWriteAheadLog[] log = new FailingWriteAheadLog[1];
+        repository = open("binary", false, 1, log);
+        User alice = repository.save(new User("Alice", 30, "alice@example.com"));
+        repository.save(new User("Bob", 40, "bob@example.com"));
+        repository.shutdown();
+
+        repository = open("binary", false, 1000, log);
+        // Versions are answered from the snapshot before the indexes exist, and never repeat
+        assertEquals(Long.valueOf(alice.getVersion()), repository.findVersionByEmail("alice@example.com"));
+        User carol = repository.save(new User("Carol", 35, "carol@example.com"));
+        assertTrue(carol.getVersion() > alice.getVersion());
+
+        assertEquals(List.of("alice@example.com", "carol@example.com"),
+                repository.search(25, 36, null, 10).stream().map(User::getEmail).toList());
+        // Once built, the indexes follow later writes
+        repository.deleteByEmail("alice@example.com");
+        assertEquals(List.of("bob@example.com"),
+                repository.search(null, null, "b", 10).stream().map(User::getEmail).toList());
+        assertEquals(List.of("carol@example.com"),
+                repository.search(25, 36, null, 10).stream().map(User::getEmail).toList());
+    }
+
+    @Test
+    public void testDeletedSnapshotUsersStayHiddenUntilCompaction() {
+        FailingWriteAheadLog[] log = new FailingWriteAheadLog[1];
+        repository = open("binary", false, 1, log);
+        repository.save(new User("Alice", 30, "alice@example.com"));
+        repository.save(new User("Bob", 40, "bob@example.com"));
+        repository.shutdown();
+
+        // A high threshold keeps the deletion as a tombstone over the snapshot
+        repository = open("binary", false, 1000, log);
+        assertTrue(repository.deleteByEmail("alice@example.com"));
+        assertFalse(repository.existsByEmail("alice@example.com"));
+        assertTrue(repository.findByEmail("alice@example.com").isEmpty());
+        assertNull(repository.findVersionByEmail("alice@example.com"));
+        assertFalse(repository.deleteByEmail("alice@example.com"));
+        assertEquals(List.of("bob@example.com"),
+                repository.findAll().stream().map(User::getEmail).toList());
+        assertTrue(repository.search(25, 35, null, 10).isEmpty());
+
+        // Replayed from the log after a restart, and re-creating the user replaces the tombstone
+        repository.shutdown();
+        repository = open("binary", false, 1000, log);
+        assertFalse(repository.existsByEmail("alice@example.com"));
+        repository.save(new User("Alice", 31, "alice@example.com"));
+        assertEquals(Integer.valueOf(31), repository.findByEmail("alice@example.com").get().getAge());
+        assertEquals(List.of("alice@example.com", "bob@example.com"),
+                repository.findAll().stream().map(User::getEmail).toList());
+    }
+
+    @Test
+    public void testScanOpenDuringCompactionSeesEveryUser() {
+        FailingWriteAheadLog[] log = new FailingWriteAheadLog[1];
+        List<String> emails = List.of("bob@example.com", "erin@example.com", "frank@example.com",
+                "gina@example.com", "hugo@example.com", "ivy@example.com");
+        repository = open("binary", false, emails.size() + 1, log);
+        for (String email : emails) {
+            repository.save(new User("User", 30, email));
+        }
+
+        // The write made from inside the scan reaches the threshold and compacts under it
+        List<String> scanned = new ArrayList<>();
+        repository.forEachUser(null, 0, user -> {
+            if (scanned.isEmpty()) {
+                repository.save(new User("Zed", 30, "zed@example.com"));
+            }
+            scanned.add(user.getEmail());
+        });
+        assertTrue(scanned.containsAll(emails));
+
+        // Folded changes are dropped once the scan closes
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(repository, "userIndex")).isEmpty());
+        assertEquals(emails.size() + 1, repository.findAll().size());
+    }
+
+    @Test
+    public void testCursorPagesInFileMode() {
+        assertCursorPagesWalkEveryUser("file");
+    }
+
+    @Test
+    public void testCursorPagesInIndexedMode() {
+        assertCursorPagesWalkEveryUser("indexed");
+    }
+
+    @Test
+    public void testCursorPagesOverSnapshotAndChangesInBinaryMode() {
+        assertCursorPagesWalkEveryUser("binary");
+    }
+
+    @Test
+    public void testFileModeSeedsVersionsFromTheStoredMaximum() throws Exception {
+        FailingWriteAheadLog[] log = new FailingWriteAheadLog[1];
+        repository = open("file", false, 1000, log);
+        User alice = repository.save(new User("Alice", 30, "alice@example.com"));
+        repository.shutdown();
+
+        Path versionFile = dataDir.resolve("users.json.version");
+        assertTrue(Long.parseLong(Files.readString(versionFile)) >= alice.getVersion());
+
+        // The stored value is trusted over a scan: a maximum ahead of the clock carries over
+        long stored = 1_000_000_000_000_000L;
+        Files.writeString(versionFile, Long.toString(stored));
+        repository = open("file", false, 1000, log);
+        assertEquals(stored + 1, repository.save(new User("Bob", 40, "bob@example.com")).getVersion());
+    }
+
+    @Test
+    public void testBinaryModeShutdownLeavesUsersJsonAlone() throws Exception {
+        FailingWriteAheadLog[] log = new FailingWriteAheadLog[1];
+        repository = open("binary", false, 1, log);
+        repository.save(new User("Alice", 30, "alice@example.com"));
+        repository.shutdown();
+        assertEquals("[]", Files.readString(dataDir.resolve("users.json")));
+
+        repository = open("binary", false, 1, log);
+        assertTrue(repository.existsByEmail("alice@example.com"));
+    }
+
+    @Test
+    public void testBatchOutcomesInIndexedMode() {
+        assertBatchReportsEachItemInOrder("indexed");
+    }
+
+    @Test
+    public void testBatchOutcomesInFileMode() {
+        assertBatchReportsEachItemInOrder("file");
+    }
+
+    private void assertBatchReportsEachItemInOrder(String mode) {
+        FailingWriteAheadLog[] log = new FailingWriteAheadLog[1];
+        repository = open(mode, false, 1000, log);
+        repository.save(new User("Alice", 30, "alice@example.com"));
+
+        List<Boolean> outcomes = repository.applyBatch(List.of(
+                UserBatchOperation.create(new User("Alice", 31, "alice@example.com")),
+                UserBatchOperation.create(new User("Bob", 40, "bob@example.com")),
+                // Later items see earlier ones in the same batch
+                UserBatchOperation.update("bob@example.com", user -> {
+                    user.setAge(41);
+                    return user;
+                }),
+                UserBatchOperation.delete("carol@example.com"),
+                UserBatchOperation.update("carol@example.com", user -> user),
+                UserBatchOperation.delete("alice@example.com")));
+
+        assertEquals(List.of(false, true, true, false, false, true), outcomes);
+        assertFalse(repository.existsByEmail("alice@example.com"));
+        assertEquals(Integer.valueOf(41), repository.findByEmail("bob@example.com").get().getAge());
+
+        // A batch in which nothing applies still reports every item
+        assertEquals(List.of(false, false), repository.applyBatch(List.of(
+                UserBatchOperation.delete("alice@example.com"),
+                UserBatchOperation.create(new User("Bob", 40, "bob@example.com")))));
+        assertEquals(List.of("bob@example.com"), repository.findAll().stream().map(User::getEmail).toList());
+    }
+
+    private void assertCursorPagesWalkEveryUser(String mode) {
+        FailingWriteAheadLog[] log = new FailingWriteAheadLog[1];
+        // In binary mode the first three users are compacted into the snapshot, the rest stay in memory
+        repository = open(mode, false, 3, log);
+        for (String name : List.of("dave", "alice", "carol", "erin", "bob")) {
+            repository.save(new User(name, 30, name + "@example.com"));
+        }
+
+        List<List<String>> pages = new ArrayList<>();
+        String cursor = null;
+        while (true) {
+            List<String> page = new ArrayList<>();
+            repository.forEachUser(cursor, 2, user -> page.add(user.getEmail()));
+            pages.add(page);
+            if (page.size() < 2) {
+                break;
+            }
+            cursor = page.get(page.size() - 1);
+        }
+        assertEquals(List.of(
+                List.of("alice@example.com", "bob@example.com"),
+                List.of("carol@example.com", "dave@example.com"),
+                List.of("erin@example.com")), pages);
+
+        // Unbounded, from a cursor (file mode streams in file order)
+        List<String> rest = new ArrayList<>();
+        assertEquals(2, repository.forEachUser("carol@example.com", 0, user -> rest.add(user.getEmail())));
+        assertEquals(List.of("dave@example.com", "erin@example.com"), rest.stream().sorted().toList());
+    }
+
+    private void assertFailedWriteLeavesNoTrace(String mode, boolean groupCommit) {
+        FailingWriteAheadLog[] log = new FailingWriteAheadLog[1];
+        // A threshold of 1 compacts after every successful commit
+        repository = open(mode, groupCommit, 1, log);
+        repository.save(new User("Alice", 30, "alice@example.com"));
+
+        log[0].failAppends = true;
+        assertThrows(FileOperationException.class,
+                () -> repository.save(new User("Bob", 40, "bob@example.com")));
+        assertThrows(FileOperationException.class,
+                () -> repository.applyBatch(List.of(
+                        UserBatchOperation.create(new User("Carol", 50, "carol@example.com")),
+                        UserBatchOperation.delete("alice@example.com"))));
+
+        assertFalse(repository.existsByEmail("bob@example.com"));
+        assertFalse(repository.existsByEmail("carol@example.com"));
+        assertTrue(repository.existsByEmail("alice@example.com"));
+
+        // Later writes compact again; the failed ones must not be folded in
+        log[0].failAppends = false;
+        repository.save(new User("Dave", 60, "dave@example.com"));
+        repository.shutdown();
+
+        repository = open(mode, groupCommit, 1, log);
+        assertEquals(List.of("alice@example.com", "dave@example.com"),
+                repository.findAll().stream().map(User::getEmail).toList());
+    }
+
+    private JsonFileUserRepository open(String mode, boolean groupCommit, int compactionThreshold,
+                                        FailingWriteAheadLog[] log) {
+        JsonFileUserRepository opened = new JsonFileUserRepository(dataDir) {
+            @Override
+            UserWriteAheadLog openWriteAheadLog(Path logPath) {
+                log[0] = new FailingWriteAheadLog(logPath);
+                return log[0];
+            }
+        };
+        ReflectionTestUtils.setField(opened, "storageMode", mode);
+        ReflectionTestUtils.setField(opened, "walCompactionThreshold", compactionThreshold);
+        ReflectionTestUtils.setField(opened, "groupCommitEnabled", groupCommit);
+        ReflectionTestUtils.setField(opened, "groupCommitMaxBatchSize", 16);
+        ReflectionTestUtils.setField(opened, "lockStripes", 8);
+        opened.initializeStorage();
+        return opened;
+    }
+
+    /**
+     * Log whose appends can be made to fail, or to block until released
+     */
+    private static class FailingWriteAheadLog extends UserWriteAheadLog {
+        private volatile boolean failAppends;
+        private volatile CountDownLatch appendEntered = new CountDownLatch(0);
+        private volatile CountDownLatch releaseAppend = new CountDownLatch(0);
+
+        FailingWriteAheadLog(Path logPath) {
+            super(logPath, new ObjectMapper().findAndRegisterModules());
+        }
+
+        void blockNextAppend() {
+            appendEntered = new CountDownLatch(1);
+            releaseAppend = new CountDownLatch(1);
+        }
+
+        @Override
+        public synchronized void appendAll(List<WalRecord> records) {
+            appendEntered.countDown();
+            try {
+                releaseAppend.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failAppends) {
+                throw new FileOperationException("Injected write-ahead log failure", null);
+            }
+            super.appendAll(records);
+        }
+    }
+}
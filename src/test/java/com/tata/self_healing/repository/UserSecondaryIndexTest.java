@@ -0,0 +1,80 @@
+package com.tata.self_healing.repository;
+
+import com.tata.self_healing.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Age-range and name-prefix lookups, and re-indexing on update and removal
+ */
+public class UserSecondaryIndexTest {
+
+    private UserSecondaryIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new UserSecondaryIndex();
+        index.update("ann@example.com", user("Ann", 25, "ann@example.com", 1));
+        index.update("anna@example.com", user("ANNA", 40, "anna@example.com", 2));
+        index.update("andy@example.com", user("Andy", 30, "andy@example.com", 3));
+        index.update("bob@example.com", user("Bob", 30, "bob@example.com", 4));
+    }
+
+    @Test
+    public void testAgeRangeIsInclusiveAndInAgeOrder() {
+        assertEquals(List.of("andy@example.com", "bob@example.com", "anna@example.com"),
+                index.search(30, 40, null, 10));
+        assertEquals(List.of("ann@example.com"), index.search(null, 29, null, 10));
+        assertEquals(List.of("anna@example.com"), index.search(31, null, null, 10));
+        assertTrue(index.search(41, null, null, 10).isEmpty());
+        assertEquals(4, index.search(null, null, null, 10).size());
+    }
+
+    @Test
+    public void testNamePrefixIsCaseInsensitiveAndCombinesWithAge() {
+        assertEquals(List.of("andy@example.com", "ann@example.com", "anna@example.com"),
+                index.search(null, null, "AN", 10));
+        assertEquals(List.of("ann@example.com", "anna@example.com"), index.search(null, null, "ann", 10));
+        assertEquals(List.of("andy@example.com", "anna@example.com"), index.search(30, null, "an", 10));
+        assertTrue(index.search(null, null, "annabel", 10).isEmpty());
+        assertTrue(index.search(null, null, "c", 10).isEmpty());
+    }
+
+    @Test
+    public void testLimitStopsTheWalk() {
+        assertEquals(List.of("andy@example.com", "ann@example.com"), index.search(null, null, "a", 2));
+        assertEquals(List.of("ann@example.com"), index.search(null, null, null, 1));
+    }
+
+    @Test
+    public void testUpdateMovesTheUserAndRemovalUnindexesIt() {
+        index.update("bob@example.com", user("Anton", 50, "bob@example.com", 5));
+        assertEquals(Long.valueOf(5), index.versionOf("bob@example.com"));
+        assertEquals(List.of("bob@example.com"), index.search(50, 50, "ant", 10));
+        assertTrue(index.search(null, null, "bob", 10).isEmpty());
+        assertEquals(List.of("andy@example.com"), index.search(30, 30, null, 10));
+
+        index.update("bob@example.com", null);
+        assertNull(index.versionOf("bob@example.com"));
+        assertTrue(index.search(null, null, "ant", 10).isEmpty());
+        assertTrue(index.search(50, null, null, 10).isEmpty());
+    }
+
+    @Test
+    public void testUsersWithoutAgeOnlyMatchUnboundedSearches() {
+        index.update("nobody@example.com", user("Nora", null, "nobody@example.com", 6));
+        assertEquals(List.of("nobody@example.com"), index.search(null, null, "no", 10));
+        assertTrue(index.search(0, null, "no", 10).isEmpty());
+        assertFalse(index.search(0, 200, null, 10).contains("nobody@example.com"));
+    }
+
+    private static User user(String name, Integer age, String email, long version) {
+        User user = new User(name, age, email);
+        user.setVersion(version);
+        return user;
+    }
+}
@@ -0,0 +1,124 @@
+package com.tata.self_healing.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tata.self_healing.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replay and torn-tail handling of the user write-ahead log
+ */
+public class UserWriteAheadLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReplayAppliesRecordsInOrder() {
+        Path logPath = tempDir.resolve("users.wal");
+        try (UserWriteAheadLog log = new UserWriteAheadLog(logPath, objectMapper)) {
+            log.replay(record -> { });
+            log.append(UserWriteAheadLog.WalRecord.put(new User("Alice", 30, "alice@example.com")));
+            log.appendAll(List.of(
+                    UserWriteAheadLog.WalRecord.put(new User("Bob", 40, "bob@example.com")),
+                    UserWriteAheadLog.WalRecord.delete("alice@example.com")));
+            assertEquals(3, log.getRecordCount());
+        }
+
+        Map<String, User> users = new TreeMap<>();
+        List<String> ops = new ArrayList<>();
+        try (UserWriteAheadLog log = new UserWriteAheadLog(logPath, objectMapper)) {
+            int replayed = log.replay(record -> {
+                ops.add(record.getOp());
+                record.applyTo(users);
+            });
+            assertEquals(3, replayed);
+        }
+
+        assertEquals(List.of("PUT", "PUT", "DELETE"), ops);
+        assertEquals(List.of("bob@example.com"), new ArrayList<>(users.keySet()));
+        assertEquals("Bob", users.get("bob@example.com").getName());
+    }
+
+    @Test
+    public void testTornTailIsTruncatedAndAppendsContinueAfterIt() throws Exception {
+        Path logPath = tempDir.resolve("users.wal");
+        try (UserWriteAheadLog log = new UserWriteAheadLog(logPath, objectMapper)) {
+            log.replay(record -> { });
+            log.append(UserWriteAheadLog.WalRecord.put(new User("Alice", 30, "alice@example.com")));
+        }
+        long validSize = Files.size(logPath);
+        Files.write(logPath, "{\"op\":\"PUT\",\"email\":\"torn@exa".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        try (UserWriteAheadLog log = new UserWriteAheadLog(logPath, objectMapper)) {
+            assertEquals(1, log.replay(record -> { }));
+            assertEquals(validSize, Files.size(logPath));
+            log.append(UserWriteAheadLog.WalRecord.delete("alice@example.com"));
+        }
+
+        assertEquals(2, replayAll(logPath).size());
+    }
+
+    @Test
+    public void testUnterminatedLastRecordIsDiscardedWithoutLeavingAGap() throws Exception {
+        Path logPath = tempDir.resolve("users.wal");
+        try (UserWriteAheadLog log = new UserWriteAheadLog(logPath, objectMapper)) {
+            log.replay(record -> { });
+            log.append(UserWriteAheadLog.WalRecord.put(new User("Alice", 30, "alice@example.com")));
+        }
+        long validSize = Files.size(logPath);
+        // A complete JSON document whose newline never reached the disk
+        byte[] unterminated = objectMapper.writeValueAsBytes(UserWriteAheadLog.WalRecord.delete("alice@example.com"));
+        Files.write(logPath, unterminated, StandardOpenOption.APPEND);
+
+        try (UserWriteAheadLog log = new UserWriteAheadLog(logPath, objectMapper)) {
+            assertEquals(1, log.replay(record -> { }));
+            assertEquals(validSize, Files.size(logPath));
+            log.append(UserWriteAheadLog.WalRecord.put(new User("Bob", 40, "bob@example.com")));
+        }
+
+        byte[] content = Files.readAllBytes(logPath);
+        for (byte b : content) {
+            assertNotEquals((byte) 0, b);
+        }
+        List<UserWriteAheadLog.WalRecord> records = replayAll(logPath);
+        assertEquals(2, records.size());
+        assertEquals("bob@example.com", records.get(1).getEmail());
+    }
+
+    @Test
+    public void testTruncateDropsAllRecords() {
+        Path logPath = tempDir.resolve("users.wal");
+        try (UserWriteAheadLog log = new UserWriteAheadLog(logPath, objectMapper)) {
+            log.replay(record -> { });
+            log.append(UserWriteAheadLog.WalRecord.put(new User("Alice", 30, "alice@example.com")));
+            log.truncate();
+            assertEquals(0, log.getRecordCount());
+        }
+
+        assertTrue(replayAll(logPath).isEmpty());
+    }
+
+    private List<UserWriteAheadLog.WalRecord> replayAll(Path logPath) {
+        List<UserWriteAheadLog.WalRecord> records = new ArrayList<>();
+        try (UserWriteAheadLog log = new UserWriteAheadLog(logPath, objectMapper)) {
+            log.replay(records::add);
+        }
+        return records;
+    }
+}
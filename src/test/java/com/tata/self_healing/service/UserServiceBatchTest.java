@@ -0,0 +1,80 @@
+package com.tata.self_healing.service;
+
+import com.tata.self_healing.SelfHealingApplication;
+import com.tata.self_healing.dto.BatchItemResult;
+import com.tata.self_healing.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Per-item results of the batch create, update and delete operations
+ */
+@SpringBootTest(classes = SelfHealingApplication.class)
+public class UserServiceBatchTest {
+
+    private static final String FIRST = "batch.test.1@example.com";
+    private static final String SECOND = "batch.test.2@example.com";
+
+    @Autowired
+    private UserService userService;
+
+    @AfterEach
+    public void cleanUp() {
+        for (String email : List.of(FIRST, SECOND)) {
+            if (userService.userExists(email)) {
+                userService.deleteUser(email);
+            }
+        }
+    }
+
+    @Test
+    public void testCreateReportsEachItemAtItsIndex() {
+        userService.createUser(new User("Batch Test", 30, FIRST));
+
+        List<BatchItemResult> results = userService.createUsers(List.of(
+                new User("Batch Test", 31, FIRST),
+                new User("B", 30, "not-an-email"),
+                new User("Batch Test", 40, SECOND)));
+
+        assertEquals(3, results.size());
+        assertFailed(results.get(0), 0, "DUPLICATE_EMAIL");
+        assertFailed(results.get(1), 1, "VALIDATION_ERROR");
+        assertEquals(2, results.get(2).getIndex());
+        assertEquals("CREATED", results.get(2).getStatus());
+        assertNull(results.get(2).getError());
+
+        // The failed items did not stop the valid one, nor touch the existing user
+        assertTrue(userService.userExists(SECOND));
+        assertEquals(Integer.valueOf(30), userService.getUserByEmail(FIRST).getAge());
+    }
+
+    @Test
+    public void testUpdateAndDeleteReportMissingUsers() {
+        userService.createUser(new User("Batch Test", 30, FIRST));
+
+        List<BatchItemResult> updated = userService.updateUsers(List.of(
+                new User("Batch Renamed", 35, FIRST),
+                new User("Batch Test", 40, SECOND)));
+        assertEquals("UPDATED", updated.get(0).getStatus());
+        assertFailed(updated.get(1), 1, "USER_NOT_FOUND");
+        assertEquals("Batch Renamed", userService.getUserByEmail(FIRST).getName());
+
+        List<BatchItemResult> deleted = userService.deleteUsers(List.of(SECOND, FIRST));
+        assertFailed(deleted.get(0), 0, "USER_NOT_FOUND");
+        assertEquals("DELETED", deleted.get(1).getStatus());
+        assertEquals(FIRST, deleted.get(1).getEmail());
+        assertFalse(userService.userExists(FIRST));
+    }
+
+    private static void assertFailed(BatchItemResult result, int index, String code) {
+        assertEquals(index, result.getIndex());
+        assertEquals("FAILED", result.getStatus());
+        assertEquals(code, result.getError().getCode());
+    }
+}
@@ -0,0 +1,16 @@
+#!/bin/bash
+
+# Start the packaged application (build it first with ./gradlew bootJar).
+# Extra JVM flags can be passed through JAVA_OPTS, application arguments as script arguments.
+
+JAR="build/libs/self_healing-0.0.1-SNAPSHOT.jar"
+
+if [ ! -f "$JAR" ]; then
+    echo "Jar not found: $JAR (run ./gradlew bootJar first)" >&2
+    exit 1
+fi
+
+# Keep pooled JAMVANT connections open between analyses (JDK default is 30 seconds); must match bootRun
+KEEPALIVE_OPTS="-Djdk.httpclient.keepalive.timeout=300"
+
+exec java $KEEPALIVE_OPTS $JAVA_OPTS -jar "$JAR" "$@"